@@ -0,0 +1,151 @@
+package com.ims.config;
+
+import com.ims.security.JwtAuthenticationFilter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * One access log line per request: method, path, status, duration and user. Successful
+ * requests are sampled at app.access-log.sample-rate; errors and slow requests are always
+ * logged. Responses are never buffered, so streamed downloads and event streams pass
+ * straight through. Request bodies are kept only for the configured path prefixes, and only
+ * written out when the response status is one of the configured codes.
+ *
+ * Runs ahead of the security filters, so requests they reject are logged too. Requests that
+ * go async, such as streams, are logged when they complete.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final Pattern PASSWORD = Pattern.compile("\"password\"\\s*:\\s*\"[^\"]*\"");
+
+    private final AccessLogWriter accessLogWriter;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long slowThresholdMillis;
+    private final List<String> bodyPaths;
+    private final Set<Integer> bodyStatuses;
+    private final int maxBodyBytes;
+
+    public AccessLogFilter(AccessLogWriter accessLogWriter,
+                           @Value("${app.access-log.enabled:true}") boolean enabled,
+                           @Value("${app.access-log.sample-rate:1.0}") double sampleRate,
+                           @Value("${app.access-log.slow-threshold-ms:1000}") long slowThresholdMillis,
+                           @Value("${app.access-log.body-paths:}") List<String> bodyPaths,
+                           @Value("${app.access-log.body-statuses:}") Set<Integer> bodyStatuses,
+                           @Value("${app.access-log.max-body-bytes:2048}") int maxBodyBytes) {
+        this.accessLogWriter = accessLogWriter;
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThresholdMillis;
+        this.bodyPaths = bodyPaths.stream().filter(path -> !path.isBlank()).toList();
+        this.bodyStatuses = bodyStatuses;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+        HttpServletRequest loggedRequest = capturesBody(request)
+                ? new ContentCachingRequestWrapper(request, maxBodyBytes)
+                : request;
+
+        try {
+            filterChain.doFilter(loggedRequest, response);
+        } finally {
+            if (loggedRequest.isAsyncStarted()) {
+                loggedRequest.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        log(loggedRequest, response, startNanos);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                log(loggedRequest, response, startNanos);
+            }
+        }
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, long startNanos) {
+        long durationMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        int status = response.getStatus();
+        boolean alwaysLogged = status >= 400 || durationMillis >= slowThresholdMillis;
+        if (!alwaysLogged && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+
+        Object username = request.getAttribute(JwtAuthenticationFilter.USERNAME_ATTRIBUTE);
+        StringBuilder line = new StringBuilder(160)
+                .append("method=").append(request.getMethod())
+                .append(" path=").append(request.getRequestURI())
+                .append(" status=").append(status)
+                .append(" durationMs=").append(durationMillis)
+                .append(" user=").append(username != null ? username : "-")
+                .append(" ip=").append(request.getRemoteAddr());
+        if (request.getQueryString() != null) {
+            line.append(" query=\"").append(request.getQueryString()).append('"');
+        }
+        if (request instanceof ContentCachingRequestWrapper cached && bodyStatuses.contains(status)) {
+            byte[] body = cached.getContentAsByteArray();
+            if (body.length > 0) {
+                String text = new String(body, StandardCharsets.UTF_8).replace('\n', ' ').replace('\r', ' ');
+                if (text.contains("\"password\"")) {
+                    text = PASSWORD.matcher(text).replaceAll("\"password\":\"***\"");
+                }
+                line.append(" body=").append(text);
+            }
+        }
+        accessLogWriter.write(line.toString());
+    }
+
+    private boolean capturesBody(HttpServletRequest request) {
+        if (bodyStatuses.isEmpty()) {
+            return false;
+        }
+        String path = request.getRequestURI();
+        for (String prefix : bodyPaths) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,86 @@
+package com.ims.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes access log lines to the com.ims.access logger from a single background thread, so
+ * request threads never wait on the log appender. Lines go through a bounded buffer; when it
+ * is full a line is dropped and counted in access_log.dropped rather than blocking the request.
+ */
+@Component
+@Slf4j
+public class AccessLogWriter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("com.ims.access");
+    private static final int DRAIN_BATCH = 256;
+
+    private final BlockingQueue<String> buffer;
+    private final Counter dropped;
+    private volatile boolean running = true;
+    private Thread worker;
+
+    public AccessLogWriter(MeterRegistry meterRegistry,
+                           @Value("${app.access-log.buffer-size:4096}") int bufferSize) {
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.dropped = Counter.builder("access_log.dropped")
+                .description("Access log lines dropped because the buffer was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        worker = new Thread(this::drain, "access-log");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queue a line for writing, or drop it if the buffer is full.
+     */
+    public void write(String line) {
+        if (!buffer.offer(line)) {
+            dropped.increment();
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        // Whatever the worker had not reached yet
+        buffer.forEach(ACCESS_LOG::info);
+    }
+
+    private void drain() {
+        List<String> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running) {
+            try {
+                batch.add(buffer.take());
+                buffer.drainTo(batch, DRAIN_BATCH - 1);
+                batch.forEach(ACCESS_LOG::info);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Could not write access log lines: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
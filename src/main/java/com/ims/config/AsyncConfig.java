@@ -1,9 +1,94 @@
 package com.ims.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
+
+    /**
+     * Default executor for @Async methods. Declared explicitly because defining any other
+     * executor bean switches off Spring Boot's auto-configured one.
+     */
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * Workers for post-commit outbox events. The queue is bounded and rejects when full;
+     * rejected events stay in the outbox table and are picked up by the poller.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor outboxExecutor(
+            @Value("${app.outbox.worker-threads:2}") int workerThreads,
+            @Value("${app.outbox.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("outbox-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Workers that render queued report jobs. Each one holds a database connection while it
+     * renders, so the pool size caps how many connections reports can take from the tills.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor reportExecutor(
+            @Value("${app.reports.worker-threads:2}") int workerThreads,
+            @Value("${app.reports.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * Workers that write queued server-sent events to client connections, so a slow client
+     * never holds up the transaction or request that published the event.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor eventStreamExecutor(
+            @Value("${app.events.worker-threads:4}") int workerThreads,
+            @Value("${app.events.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("events-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * Workers that read the stock levels pushed to event streams. Kept apart from the
+     * event-stream writers, so queries and slow clients do not wait on each other.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor eventQueryExecutor(
+            @Value("${app.events.query-threads:2}") int workerThreads,
+            @Value("${app.events.query-queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("event-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
 }
@@ -1,24 +1,20 @@
 package com.ims.config;
 
+import com.ims.security.CurrentUserContext;
+import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.AuditorAware;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import java.util.Optional;
 
 @Component
+@RequiredArgsConstructor
 public class AuditorAwareImpl implements AuditorAware<String> {
 
+    private final CurrentUserContext currentUserContext;
+
     @Override
     public Optional<String> getCurrentAuditor() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        
-        if (authentication == null || !authentication.isAuthenticated() || 
-            "anonymousUser".equals(authentication.getPrincipal())) {
-            return Optional.of("system");
-        }
-        
-        return Optional.of(authentication.getName());
+        return currentUserContext.getUsername().or(() -> Optional.of("system"));
     }
 }
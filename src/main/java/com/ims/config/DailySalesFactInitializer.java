@@ -0,0 +1,69 @@
+package com.ims.config;
+
+import com.ims.entity.OutboxEvent;
+import com.ims.enums.OutboxStatus;
+import com.ims.repository.DailySalesFactRepository;
+import com.ims.repository.ExpenseRepository;
+import com.ims.repository.OutboxEventRepository;
+import com.ims.repository.SaleRepository;
+import com.ims.service.DailySalesFactService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Backfills the daily sales facts from existing sales, returns and expenses the first time
+ * the application starts with an empty daily_sales_fact table.
+ *
+ * Runs once the beans are created but before the outbox poller and the web server start,
+ * so no event is applied while the backfill counts records. Outbox events still outstanding
+ * at that point are processed later and would count their records a second time; what they
+ * will add is subtracted from the backfilled facts up front.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DailySalesFactInitializer implements SmartInitializingSingleton {
+
+    private final DailySalesFactRepository dailySalesFactRepository;
+    private final SaleRepository saleRepository;
+    private final ExpenseRepository expenseRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final DailySalesFactService dailySalesFactService;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (dailySalesFactRepository.count() > 0) {
+            return;
+        }
+
+        LocalDateTime earliestSale = saleRepository.findEarliestSaleDate();
+        LocalDate earliestExpense = expenseRepository.findEarliestExpenseDate();
+        LocalDate start = earliestSale != null ? earliestSale.toLocalDate() : earliestExpense;
+        if (start == null) {
+            return;
+        }
+        if (earliestExpense != null && earliestExpense.isBefore(start)) {
+            start = earliestExpense;
+        }
+
+        LocalDate end = LocalDate.now();
+        log.info("Backfilling daily sales facts from {} to {}", start, end);
+        // A day per transaction, so a long history is not held in one
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            dailySalesFactService.rebuildDay(day);
+        }
+
+        List<OutboxEvent> outstanding = outboxEventRepository.findByStatusIn(
+                List.of(OutboxStatus.PENDING, OutboxStatus.PROCESSING));
+        if (!outstanding.isEmpty()) {
+            dailySalesFactService.subtractOutstanding(outstanding);
+            log.info("Offset {} outstanding outbox events against the backfilled facts", outstanding.size());
+        }
+    }
+}
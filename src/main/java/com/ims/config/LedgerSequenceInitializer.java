@@ -0,0 +1,74 @@
+package com.ims.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.Map;
+
+/**
+ * Creates the ledger and line-item sequences from db/ledger-sequences.sql and moves them past
+ * ids issued while these tables still used IDENTITY columns, so pooled sequence ids cannot
+ * collide with existing rows. Runs before the entity manager starts, so schema validation
+ * finds the sequences. PostgreSQL only; the dev H2 database is always created empty.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerSequenceInitializer implements InitializingBean {
+
+    private static final String SCRIPT = "db/ledger-sequences.sql";
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "stock_movements", "stock_movements_seq",
+            "sale_items", "sale_items_seq",
+            "transfer_items", "transfer_items_seq",
+            "audit_logs", "audit_logs_seq");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() throws MetaDataAccessException {
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        if (!"PostgreSQL".equals(product)) {
+            return;
+        }
+
+        new ResourceDatabasePopulator(new ClassPathResource(SCRIPT)).execute(dataSource);
+
+        SEQUENCES.forEach((table, sequence) -> {
+            // On a new database the table is created later by Hibernate, and empty
+            Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+            if (!Boolean.TRUE.equals(exists)) {
+                return;
+            }
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM " + sequence, Long.class);
+            if (maxId != null && lastValue != null && lastValue < maxId) {
+                jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', ?)", Long.class, maxId);
+                log.info("Advanced sequence {} from {} to {}", sequence, lastValue, maxId);
+            }
+        });
+    }
+
+    /**
+     * Makes the entity manager factory wait for the sequences.
+     */
+    @Component
+    static class EntityManagerFactoryDependency extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependency() {
+            super(LedgerSequenceInitializer.class);
+        }
+    }
+}
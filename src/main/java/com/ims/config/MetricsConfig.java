@@ -0,0 +1,40 @@
+package com.ims.config;
+
+import com.ims.security.JwtAuthenticationFilter;
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+
+/**
+ * Metrics beyond what Actuator records on its own. Endpoint timings (http.server.requests)
+ * carry the caller's branch, and Hibernate reports every statement to
+ * {@link QueryCountInspector}. Hikari pool metrics, including the time spent waiting for a
+ * connection (hikaricp.connections.acquire), are bound by Actuator.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountCustomizer(QueryCountInspector queryCountInspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCountInspector);
+    }
+
+    @Bean
+    public ServerRequestObservationConvention branchTaggingObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                // Set by the JWT filter; the security context is cleared by the time the request is timed
+                Object branchId = context.getCarrier().getAttribute(JwtAuthenticationFilter.BRANCH_ATTRIBUTE);
+                return super.getLowCardinalityKeyValues(context)
+                        .and(KeyValue.of("branch", branchId != null ? branchId.toString() : "none"));
+            }
+        };
+    }
+}
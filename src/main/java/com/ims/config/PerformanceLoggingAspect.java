@@ -1,38 +0,0 @@
-package com.ims.config;
-
-import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.annotation.Around;
-import org.aspectj.lang.annotation.Aspect;
-import org.springframework.stereotype.Component;
-
-@Slf4j
-@Aspect
-@Component
-public class PerformanceLoggingAspect {
-
-    @Around("execution(* com.ims.service..*(..))")
-    public Object logServicePerformance(ProceedingJoinPoint joinPoint) throws Throwable {
-        long startTime = System.currentTimeMillis();
-        String methodName = joinPoint.getSignature().toShortString();
-
-        log.debug("⏱️  Executing: {}", methodName);
-
-        try {
-            Object result = joinPoint.proceed();
-            long duration = System.currentTimeMillis() - startTime;
-
-            if (duration > 1000) {
-                log.warn("⚠️  SLOW: {} took {} ms", methodName, duration);
-            } else {
-                log.debug("✅ Completed: {} in {} ms", methodName, duration);
-            }
-
-            return result;
-        } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            log.error("❌ Failed: {} after {} ms - Error: {}", methodName, duration, e.getMessage());
-            throw e;
-        }
-    }
-}
\ No newline at end of file
@@ -0,0 +1,173 @@
+package com.ims.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Serial;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the SQL statements Hibernate prepares: all of them in ims.db.queries, and those
+ * of the current request, by statement, for {@link QueryMetricsFilter}. Registered with
+ * Hibernate as its statement inspector; it passes every statement through unchanged.
+ *
+ * In strict mode (app.query-budget.strict, meant for test runs) a request that goes over
+ * its statement budget, or repeats one read past the repeat threshold, fails on the
+ * statement that crossed the line.
+ */
+@Component
+public class QueryCountInspector implements StatementInspector {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Statements that differ only in the length of an IN list are counted as one shape.
+     */
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Enough to find the repeated statement of an N+1 without holding every statement of a bulk request
+    private static final int MAX_TRACKED_STATEMENTS = 256;
+
+    private static final ThreadLocal<RequestQueries> REQUEST_QUERIES = new ThreadLocal<>();
+
+    private final Counter queries;
+    private final boolean strict;
+    private final int budget;
+    private final int repeatThreshold;
+
+    public QueryCountInspector(MeterRegistry meterRegistry,
+                               @Value("${app.query-budget.strict:false}") boolean strict,
+                               @Value("${app.query-budget.max-per-request:50}") int budget,
+                               @Value("${app.query-budget.repeat-threshold:10}") int repeatThreshold) {
+        this.queries = Counter.builder("ims.db.queries")
+                .description("SQL statements prepared by Hibernate")
+                .register(meterRegistry);
+        this.strict = strict;
+        this.budget = budget;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        queries.increment();
+        RequestQueries request = REQUEST_QUERIES.get();
+        if (request != null) {
+            int repeats = request.record(sql);
+            if (strict && request.enforced) {
+                if (request.count > budget) {
+                    throw new IllegalStateException("SQL query budget of " + budget + " exceeded by " +
+                            request.path + ": " + shapeOf(sql));
+                }
+                // Repeated inserts and updates are batch writes; only repeated reads point to an N+1
+                if (repeats > repeatThreshold && isSelect(sql)) {
+                    throw new IllegalStateException("Statement repeated " + repeats + " times by " +
+                            request.path + ", likely an N+1: " + shapeOf(sql));
+                }
+            }
+        }
+        return sql;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public int getRepeatThreshold() {
+        return repeatThreshold;
+    }
+
+    /**
+     * Start counting the statements of the request running on this thread. Strict mode only
+     * applies when enforced is set.
+     */
+    void startRequest(String path, boolean enforced) {
+        REQUEST_QUERIES.set(new RequestQueries(path, enforced));
+    }
+
+    /**
+     * Stop counting and return what the request prepared on this thread.
+     */
+    RequestQueries endRequest() {
+        RequestQueries request = REQUEST_QUERIES.get();
+        REQUEST_QUERIES.remove();
+        return request != null ? request : new RequestQueries(null, false);
+    }
+
+    static boolean isSelect(String sql) {
+        int start = 0;
+        // Skip the comment Hibernate puts first when hibernate.use_sql_comments is on
+        if (sql.startsWith("/*")) {
+            int end = sql.indexOf("*/");
+            start = end >= 0 ? end + 2 : 0;
+        }
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        return sql.regionMatches(true, start, "select", 0, 6);
+    }
+
+    static String shapeOf(String sql) {
+        String shape = IN_LIST.matcher(sql).replaceAll("(?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    /**
+     * One statement shape, whether it is a read, and how many times a request prepared it.
+     */
+    record StatementCount(String shape, boolean select, int count) {
+    }
+
+    /**
+     * The statements one request prepared.
+     */
+    static final class RequestQueries {
+        private final String path;
+        private final boolean enforced;
+        private final Map<String, Integer> statements = new HashMap<>();
+        private int count;
+
+        private RequestQueries(String path, boolean enforced) {
+            this.path = path;
+            this.enforced = enforced;
+        }
+
+        /**
+         * Count a statement and return how many times this request has prepared it, or 0
+         * for a new statement once too many distinct ones are tracked.
+         */
+        private int record(String sql) {
+            count++;
+            Integer seen = statements.get(sql);
+            if (seen == null && statements.size() >= MAX_TRACKED_STATEMENTS) {
+                return 0;
+            }
+            int repeats = seen != null ? seen + 1 : 1;
+            statements.put(sql, repeats);
+            return repeats;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * Every statement shape the request prepared, most repeated first.
+         */
+        List<StatementCount> byShape() {
+            Map<String, Integer> shapes = new HashMap<>();
+            statements.forEach((sql, repeats) -> shapes.merge(shapeOf(sql), repeats, Integer::sum));
+            return shapes.entrySet().stream()
+                    .map(entry -> new StatementCount(entry.getKey(), isSelect(entry.getKey()), entry.getValue()))
+                    .sorted(Comparator.comparingInt(StatementCount::count).reversed())
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.ims.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Records how many SQL statements each request prepared in the ims.db.queries.per.request
+ * summary, tagged by method and URI template. Statements run on other threads, such as
+ * after-commit work handed to an executor, are not counted against the request.
+ *
+ * A request over app.query-budget.max-per-request statements, or one that repeats a read
+ * more than repeat-threshold times (the usual sign of an N+1), is counted in
+ * ims.db.query-budget.exceeded and logged with its most repeated statements. Paths in
+ * excluded-paths, such as bulk imports and snapshot downloads, are expected to run many
+ * statements and are only measured.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class QueryMetricsFilter extends OncePerRequestFilter {
+
+    private static final int REPORTED_STATEMENTS = 3;
+    private static final int MAX_SHAPE_LENGTH = 300;
+
+    private final QueryCountInspector queryCountInspector;
+    private final MeterRegistry meterRegistry;
+    private final List<String> excludedPaths;
+
+    public QueryMetricsFilter(QueryCountInspector queryCountInspector,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.query-budget.excluded-paths:}") List<String> excludedPaths) {
+        this.queryCountInspector = queryCountInspector;
+        this.meterRegistry = meterRegistry;
+        this.excludedPaths = excludedPaths.stream().filter(path -> !path.isBlank()).toList();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        boolean enforced = !isExcluded(request.getRequestURI());
+        queryCountInspector.startRequest(request.getMethod() + " " + request.getRequestURI(), enforced);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCountInspector.RequestQueries queries = queryCountInspector.endRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder("ims.db.queries.per.request")
+                    .description("SQL statements prepared while serving one request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(queries.getCount());
+            if (enforced) {
+                checkBudget(request.getMethod(), uri, queries);
+            }
+        }
+    }
+
+    private void checkBudget(String method, String uri, QueryCountInspector.RequestQueries queries) {
+        List<QueryCountInspector.StatementCount> shapes = queries.byShape();
+        boolean overBudget = queries.getCount() > queryCountInspector.getBudget();
+        boolean repeated = shapes.stream().anyMatch(shape ->
+                shape.select() && shape.count() > queryCountInspector.getRepeatThreshold());
+        if (!overBudget && !repeated) {
+            return;
+        }
+        String reason = overBudget ? "budget" : "repeated";
+        Counter.builder("ims.db.query-budget.exceeded")
+                .description("Requests over the SQL statement budget or repeating one statement")
+                .tag("method", method)
+                .tag("uri", uri)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.warn("SQL query budget exceeded: reason={} method={} uri={} queries={} budget={} top=[{}]",
+                reason, method, uri, queries.getCount(), queryCountInspector.getBudget(),
+                shapes.stream()
+                        .limit(REPORTED_STATEMENTS)
+                        .map(statement -> statement.count() + "x " + abbreviate(statement.shape()))
+                        .collect(Collectors.joining("; ")));
+    }
+
+    private boolean isExcluded(String path) {
+        for (String prefix : excludedPaths) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String abbreviate(String shape) {
+        return shape.length() <= MAX_SHAPE_LENGTH ? shape : shape.substring(0, MAX_SHAPE_LENGTH) + "...";
+    }
+}
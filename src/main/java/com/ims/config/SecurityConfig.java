@@ -3,12 +3,15 @@ package com.ims.config;
 import com.ims.security.JwtAccessDeniedHandler;
 import com.ims.security.JwtAuthenticationEntryPoint;
 import com.ims.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -16,9 +19,11 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -28,6 +33,8 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.springframework.security.config.Customizer.withDefaults;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
@@ -42,12 +49,58 @@ public class SecurityConfig {
     @Value("${CORS_ALLOWED_ORIGINS:http://localhost:3000}")
     private String allowedOrigins;
 
+    @Value("${app.metrics.scrape-username:prometheus}")
+    private String scrapeUsername;
+
+    @Value("${app.metrics.scrape-password:}")
+    private String scrapePassword;
+
+    /**
+     * The Prometheus scrape endpoint, for a scraper that cannot log in for a JWT: HTTP basic
+     * with the app.metrics.scrape-* credentials. Closed when no scrape password is set. The
+     * proxy only forwards /actuator/health, so the endpoint is reachable on the internal
+     * network only.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain prometheusFilterChain(HttpSecurity http) throws Exception {
+        boolean enabled = !scrapePassword.isBlank();
+        DaoAuthenticationProvider scraperProvider = new DaoAuthenticationProvider();
+        scraperProvider.setPasswordEncoder(passwordEncoder());
+        scraperProvider.setUserDetailsService(new InMemoryUserDetailsManager(enabled
+                ? List.of(User.withUsername(scrapeUsername)
+                        .password(passwordEncoder().encode(scrapePassword))
+                        .roles("METRICS")
+                        .build())
+                : List.of()));
+
+        http
+                .securityMatcher("/actuator/prometheus")
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(auth -> {
+                    if (enabled) {
+                        auth.anyRequest().hasRole("METRICS");
+                    } else {
+                        auth.anyRequest().denyAll();
+                    }
+                })
+                .sessionManagement(session -> session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                )
+                .authenticationManager(new ProviderManager(scraperProvider))
+                .httpBasic(withDefaults());
+
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        // Streamed downloads finish on an async dispatch; the request was authorized on entry
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/api/v1/auth/**",
                                 "/h2-console/**",
@@ -58,6 +111,7 @@ public class SecurityConfig {
                                 "/actuator/health"
                         ).permitAll()
                         .requestMatchers("/api/v1/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/api/v1/manager/**").hasAnyRole("ADMIN", "MANAGER")
                         .anyRequest().authenticated()
                 )
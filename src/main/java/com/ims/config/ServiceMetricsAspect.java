@@ -0,0 +1,73 @@
+package com.ims.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every service method into the ims.service timer, tagged by class, method and the
+ * exception it ended with ("none" on success). Histogram buckets are switched on in
+ * management.metrics.distribution. Timers are looked up once per method and outcome, so a
+ * successful call costs two clock reads and a map hit. Calls slower than app.metrics.slow-call-ms are
+ * still logged.
+ */
+@Slf4j
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final long slowCallNanos;
+    private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> failureTimers = new ConcurrentHashMap<>();
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry,
+                                @Value("${app.metrics.slow-call-ms:1000}") long slowCallMillis) {
+        this.meterRegistry = meterRegistry;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+    }
+
+    @Around("execution(* com.ims.service..*(..))")
+    public Object timeServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String exception = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long duration = System.nanoTime() - start;
+            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+            Timer timer = exception == null
+                    ? successTimers.computeIfAbsent(signature.getMethod(), method -> timer(signature, "none"))
+                    : failureTimers.computeIfAbsent(signature.toLongString() + '#' + exception,
+                            key -> timer(signature, key.substring(key.lastIndexOf('#') + 1)));
+            timer.record(duration, TimeUnit.NANOSECONDS);
+            if (duration >= slowCallNanos) {
+                log.warn("SLOW: {} took {} ms", joinPoint.getSignature().toShortString(),
+                        TimeUnit.NANOSECONDS.toMillis(duration));
+            }
+        }
+    }
+
+    private Timer timer(MethodSignature signature, String exception) {
+        return Timer.builder("ims.service")
+                .description("Service method calls")
+                .tag("class", signature.getDeclaringType().getSimpleName())
+                .tag("method", signature.getName())
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+}
@@ -3,6 +3,7 @@ package com.ims.controller;
 import com.ims.dto.analytics.*;
 import com.ims.dto.response.ApiResponse;
 import com.ims.service.AnalyticsService;
+import com.ims.service.DailySalesFactService;
 import com.ims.util.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -25,6 +27,7 @@ import java.util.List;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final DailySalesFactService dailySalesFactService;
     private final SecurityUtils securityUtils;
 
     @GetMapping("/sales-summary")
@@ -170,4 +173,18 @@ public class AnalyticsController {
         SalesSummaryDTO summary = analyticsService.getSalesSummary(startOfYear, now, branchId);
         return ResponseEntity.ok(ApiResponse.success(summary));
     }
+
+    @PostMapping("/facts/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Rebuild daily sales facts",
+            description = "Recompute the analytics rollup for a date range from the raw sales, returns and expenses")
+    public ResponseEntity<ApiResponse<Void>> rebuildDailySalesFacts(
+            @Parameter(description = "First day to rebuild", example = "2026-02-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "Last day to rebuild", example = "2026-02-28")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        dailySalesFactService.rebuild(startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success("Daily sales facts rebuilt", null));
+    }
 }
@@ -2,12 +2,14 @@ package com.ims.controller;
 
 import com.ims.dto.response.ApiResponse;
 import com.ims.dto.response.DashboardSummary;
-import com.ims.service.DashboardService;
+import com.ims.service.DashboardSnapshotService;
+import com.ims.service.DashboardSnapshotService.Snapshot;
 import com.ims.util.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -20,16 +22,22 @@ import org.springframework.web.bind.annotation.*;
 @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
 public class DashboardController {
 
-    private final DashboardService dashboardService;
+    private final DashboardSnapshotService dashboardSnapshotService;
     private final SecurityUtils securityUtils;
 
     @GetMapping("/summary")
-    @Operation(summary = "Get dashboard summary", description = "KPIs: revenue, sales, stock value, debts")
+    @Operation(summary = "Get dashboard summary",
+            description = "KPIs: revenue, sales, stock value, debts. Send the ETag back in If-None-Match " +
+                    "to get 304 Not Modified while the figures are unchanged")
     public ResponseEntity<ApiResponse<DashboardSummary>> getDashboardSummary(
             @RequestParam(required = false) Long branchId
     ) {
         Long effectiveBranchId = securityUtils.resolveBranchId(branchId);
-        DashboardSummary summary = dashboardService.getDashboardSummary(effectiveBranchId);
-        return ResponseEntity.ok(ApiResponse.success(summary));
+        Snapshot snapshot = dashboardSnapshotService.getSnapshot(effectiveBranchId);
+        // A GET whose If-None-Match matches the ETag is answered 304 without a body
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ApiResponse.success(snapshot.summary()));
     }
 }
@@ -0,0 +1,43 @@
+package com.ims.controller;
+
+import com.ims.entity.User;
+import com.ims.enums.Role;
+import com.ims.service.EventStreamService;
+import com.ims.util.SecurityUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/v1/events")
+@RequiredArgsConstructor
+@Tag(name = "Event Stream", description = "Server-sent events for notifications, stock and dashboard changes")
+@SecurityRequirement(name = "bearerAuth")
+public class EventStreamController {
+
+    private final EventStreamService eventStreamService;
+    private final SecurityUtils securityUtils;
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Open an event stream",
+            description = "Pushes 'notification' events for the caller's new notifications, 'stock' events with " +
+                    "the new stock levels of the branch, and 'dashboard' events (admins and managers) when the " +
+                    "branch's dashboard may have changed. Admins may omit branchId to follow every branch. " +
+                    "Reconnect when the stream closes and refetch what may have been missed.")
+    public SseEmitter stream(@RequestParam(required = false) Long branchId) {
+        User user = securityUtils.getCurrentUser();
+        Long effectiveBranchId = securityUtils.resolveBranchId(branchId);
+        boolean dashboards = user.getRole() == Role.ADMIN || user.getRole() == Role.MANAGER;
+        return eventStreamService.subscribe(user.getId(), effectiveBranchId,
+                securityUtils.isAdmin() && effectiveBranchId == null, dashboards);
+    }
+}
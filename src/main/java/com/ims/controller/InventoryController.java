@@ -2,6 +2,7 @@ package com.ims.controller;
 
 import com.ims.dto.request.StockAdjustmentRequest;
 import com.ims.dto.response.ApiResponse;
+import com.ims.dto.response.StockAvailability;
 import com.ims.entity.BranchInventory;
 import com.ims.entity.StockMovement;
 import com.ims.service.InventoryService;
@@ -43,6 +44,27 @@ public class InventoryController {
         return ResponseEntity.ok(ApiResponse.success(inventory));
     }
 
+    @GetMapping("/branch/{branchId}/products/{productId}")
+    @Operation(summary = "Get product stock", description = "Stock counts of one product in a branch (cached, for POS)")
+    public ResponseEntity<ApiResponse<StockAvailability>> getStockAvailability(
+            @PathVariable Long branchId,
+            @PathVariable Long productId
+    ) {
+        securityUtils.validateBranchAccess(branchId);
+        return ResponseEntity.ok(ApiResponse.success(inventoryService.getStockAvailability(branchId, productId)));
+    }
+
+    @GetMapping("/branch/{branchId}/barcode/{barcode}")
+    @Operation(summary = "Scan product", description = "Product and stock counts by barcode in a branch (cached, for POS)")
+    public ResponseEntity<ApiResponse<StockAvailability>> getStockAvailabilityByBarcode(
+            @PathVariable Long branchId,
+            @PathVariable String barcode
+    ) {
+        securityUtils.validateBranchAccess(branchId);
+        return ResponseEntity.ok(ApiResponse.success(
+                inventoryService.getStockAvailabilityByBarcode(branchId, barcode)));
+    }
+
     @PostMapping("/adjust")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     @Operation(summary = "Adjust stock", description = "Manual stock adjustment")
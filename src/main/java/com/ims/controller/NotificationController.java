@@ -8,6 +8,7 @@ import com.ims.entity.User;
 import com.ims.enums.NotificationPriority;
 import com.ims.enums.NotificationType;
 import com.ims.repository.UserRepository;
+import com.ims.security.AuthenticatedUser;
 import com.ims.service.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -140,6 +141,9 @@ public class NotificationController {
     }
 
     private Long getUserIdFromAuth(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal.getUserId();
+        }
         String username = authentication.getName();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
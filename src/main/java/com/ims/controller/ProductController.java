@@ -2,8 +2,11 @@ package com.ims.controller;
 
 import com.ims.dto.request.ProductRequest;
 import com.ims.dto.response.ApiResponse;
+import com.ims.dto.response.ProductLookup;
+import com.ims.dto.response.ProductSuggestion;
 import com.ims.entity.Product;
 import com.ims.service.ProductService;
+import com.ims.service.ProductTypeaheadService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -18,6 +21,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * Product Management Controller
  * 
@@ -36,6 +41,7 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductTypeaheadService productTypeaheadService;
 
     /**
      * Get All Products (Paginated)
@@ -94,6 +100,17 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
+    @GetMapping("/typeahead")
+    @Operation(summary = "Product typeahead",
+            description = "Suggestions for a POS product box, fastest sellers first, matching the start of a " +
+                    "word of the name, brand or SKU, or the start of the SKU or barcode. Served from memory.")
+    public ResponseEntity<ApiResponse<List<ProductSuggestion>>> typeahead(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(ApiResponse.success(productTypeaheadService.suggest(q, limit)));
+    }
+
     /**
      * Get Product by ID
      * 
@@ -136,8 +153,8 @@ public class ProductController {
      */
     @GetMapping("/barcode/{barcode}")
     @Operation(summary = "Get product by barcode", description = "Retrieve product by barcode (for scanning)")
-    public ResponseEntity<ApiResponse<Product>> getProductByBarcode(@PathVariable String barcode) {
-        Product product = productService.getProductByBarcode(barcode);
+    public ResponseEntity<ApiResponse<ProductLookup>> getProductByBarcode(@PathVariable String barcode) {
+        ProductLookup product = productService.getProductByBarcode(barcode);
         return ResponseEntity.ok(ApiResponse.success(product));
     }
 
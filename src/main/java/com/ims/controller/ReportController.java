@@ -1,16 +1,25 @@
 package com.ims.controller;
 
+import com.ims.dto.request.ReportJobRequest;
+import com.ims.dto.response.ApiResponse;
+import com.ims.dto.response.ReportJobResponse;
+import com.ims.enums.ReportFormat;
+import com.ims.service.ReportJobService;
+import com.ims.service.ReportJobService.ReportFile;
 import com.ims.service.ReportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 
@@ -22,6 +31,7 @@ import java.time.LocalDate;
 public class ReportController {
 
     private final ReportService reportService;
+    private final ReportJobService reportJobService;
 
     // ==========================================
     // SALES REPORTS
@@ -30,23 +40,23 @@ public class ReportController {
     @GetMapping("/sales/excel")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     @Operation(summary = "Download sales report as Excel")
-    public ResponseEntity<byte[]> salesReportExcel(
+    public ResponseEntity<StreamingResponseBody> salesReportExcel(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) Long branchId) {
-        byte[] data = reportService.generateSalesReportExcel(startDate, endDate, branchId);
-        return buildExcelResponse(data, "sales_report_" + startDate + "_" + endDate + ".xlsx");
+        return buildExcelResponse(out -> reportService.writeSalesReportExcel(startDate, endDate, branchId, out),
+                "sales_report_" + startDate + "_" + endDate + ".xlsx");
     }
 
     @GetMapping("/sales/pdf")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     @Operation(summary = "Download sales report as PDF")
-    public ResponseEntity<byte[]> salesReportPdf(
+    public ResponseEntity<StreamingResponseBody> salesReportPdf(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) Long branchId) {
-        byte[] data = reportService.generateSalesReportPdf(startDate, endDate, branchId);
-        return buildPdfResponse(data, "sales_report_" + startDate + "_" + endDate + ".pdf");
+        return buildPdfResponse(out -> reportService.writeSalesReportPdf(startDate, endDate, branchId, out),
+                "sales_report_" + startDate + "_" + endDate + ".pdf");
     }
 
     // ==========================================
@@ -56,17 +66,17 @@ public class ReportController {
     @GetMapping("/inventory/excel")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     @Operation(summary = "Download inventory report as Excel")
-    public ResponseEntity<byte[]> inventoryReportExcel(@RequestParam(required = false) Long branchId) {
-        byte[] data = reportService.generateInventoryReportExcel(branchId);
-        return buildExcelResponse(data, "inventory_report_" + LocalDate.now() + ".xlsx");
+    public ResponseEntity<StreamingResponseBody> inventoryReportExcel(@RequestParam(required = false) Long branchId) {
+        return buildExcelResponse(out -> reportService.writeInventoryReportExcel(branchId, out),
+                "inventory_report_" + LocalDate.now() + ".xlsx");
     }
 
     @GetMapping("/inventory/pdf")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     @Operation(summary = "Download inventory report as PDF")
-    public ResponseEntity<byte[]> inventoryReportPdf(@RequestParam(required = false) Long branchId) {
-        byte[] data = reportService.generateInventoryReportPdf(branchId);
-        return buildPdfResponse(data, "inventory_report_" + LocalDate.now() + ".pdf");
+    public ResponseEntity<StreamingResponseBody> inventoryReportPdf(@RequestParam(required = false) Long branchId) {
+        return buildPdfResponse(out -> reportService.writeInventoryReportPdf(branchId, out),
+                "inventory_report_" + LocalDate.now() + ".pdf");
     }
 
     // ==========================================
@@ -76,12 +86,12 @@ public class ReportController {
     @GetMapping("/profit-loss/excel")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     @Operation(summary = "Download profit & loss report as Excel")
-    public ResponseEntity<byte[]> profitLossReportExcel(
+    public ResponseEntity<StreamingResponseBody> profitLossReportExcel(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) Long branchId) {
-        byte[] data = reportService.generateProfitLossReportExcel(startDate, endDate, branchId);
-        return buildExcelResponse(data, "profit_loss_" + startDate + "_" + endDate + ".xlsx");
+        return buildExcelResponse(out -> reportService.writeProfitLossReportExcel(startDate, endDate, branchId, out),
+                "profit_loss_" + startDate + "_" + endDate + ".xlsx");
     }
 
     @GetMapping("/profit-loss/pdf")
@@ -102,23 +112,69 @@ public class ReportController {
     @GetMapping("/purchase-orders/excel")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     @Operation(summary = "Download purchase order report as Excel")
-    public ResponseEntity<byte[]> purchaseOrderReportExcel(
+    public ResponseEntity<StreamingResponseBody> purchaseOrderReportExcel(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        byte[] data = reportService.generatePurchaseOrderReportExcel(startDate, endDate);
-        return buildExcelResponse(data, "purchase_orders_" + startDate + "_" + endDate + ".xlsx");
+        return buildExcelResponse(out -> reportService.writePurchaseOrderReportExcel(startDate, endDate, out),
+                "purchase_orders_" + startDate + "_" + endDate + ".xlsx");
+    }
+
+    // ==========================================
+    // REPORT JOBS
+    // ==========================================
+
+    @PostMapping("/jobs")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Queue a report",
+            description = "Render a report in the background; the same report requested again while cached returns the existing job")
+    public ResponseEntity<ApiResponse<ReportJobResponse>> submitReportJob(@Valid @RequestBody ReportJobRequest request) {
+        ReportJobResponse job = reportJobService.submit(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success("Report queued", job));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Get report job status")
+    public ResponseEntity<ApiResponse<ReportJobResponse>> getReportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(ApiResponse.success(reportJobService.getJob(jobId)));
+    }
+
+    @GetMapping("/jobs/{jobId}/download")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Download a finished report")
+    public ResponseEntity<StreamingResponseBody> downloadReportJob(@PathVariable String jobId) {
+        ReportFile file = reportJobService.getReportFile(jobId);
+        MediaType contentType = file.format() == ReportFormat.EXCEL
+                ? MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                : MediaType.APPLICATION_PDF;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + file.filename())
+                .contentType(contentType)
+                .contentLength(file.size())
+                .body(out -> reportJobService.transfer(file, out));
     }
 
     // ==========================================
     // HELPERS
     // ==========================================
 
-    private ResponseEntity<byte[]> buildExcelResponse(byte[] data, String filename) {
+    /**
+     * Streamed reports are written straight to the response as they are generated, on an MVC
+     * async thread, so no copy of the file is held in memory.
+     */
+    private ResponseEntity<StreamingResponseBody> buildExcelResponse(StreamingResponseBody body, String filename) {
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
                 .contentType(MediaType.parseMediaType(
                         "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .body(data);
+                .body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> buildPdfResponse(StreamingResponseBody body, String filename) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
     }
 
     private ResponseEntity<byte[]> buildPdfResponse(byte[] data, String filename) {
@@ -0,0 +1,62 @@
+package com.ims.controller;
+
+import com.ims.dto.request.ReservationRequest;
+import com.ims.dto.response.ApiResponse;
+import com.ims.entity.StockReservation;
+import com.ims.service.StockReservationService;
+import com.ims.util.SecurityUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/reservations")
+@RequiredArgsConstructor
+@Tag(name = "Stock Reservations", description = "Hold stock for a cart until checkout")
+@SecurityRequirement(name = "bearerAuth")
+public class ReservationController {
+
+    private final StockReservationService stockReservationService;
+    private final SecurityUtils securityUtils;
+
+    @PutMapping
+    @PreAuthorize("hasAnyRole('SELLER', 'MANAGER', 'ADMIN')")
+    @Operation(summary = "Hold stock for a cart",
+            description = "Set the cart's held quantities (0 releases a product) and refresh its expiry")
+    public ResponseEntity<ApiResponse<List<StockReservation>>> reserve(@Valid @RequestBody ReservationRequest request) {
+        securityUtils.validateBranchAccess(request.getBranchId());
+        List<StockReservation> holds = stockReservationService.reserve(request);
+        return ResponseEntity.ok(ApiResponse.success("Stock reserved", holds));
+    }
+
+    @GetMapping("/{reservationKey}")
+    @PreAuthorize("hasAnyRole('SELLER', 'MANAGER', 'ADMIN')")
+    @Operation(summary = "Get cart holds", description = "Active stock holds of a cart in a branch")
+    public ResponseEntity<ApiResponse<List<StockReservation>>> getReservations(
+            @PathVariable String reservationKey,
+            @RequestParam Long branchId
+    ) {
+        securityUtils.validateBranchAccess(branchId);
+        return ResponseEntity.ok(ApiResponse.success(
+                stockReservationService.getReservations(reservationKey, branchId)));
+    }
+
+    @DeleteMapping("/{reservationKey}")
+    @PreAuthorize("hasAnyRole('SELLER', 'MANAGER', 'ADMIN')")
+    @Operation(summary = "Release cart holds", description = "Give all of a cart's held stock back to the branch")
+    public ResponseEntity<ApiResponse<Integer>> release(
+            @PathVariable String reservationKey,
+            @RequestParam Long branchId
+    ) {
+        securityUtils.validateBranchAccess(branchId);
+        int released = stockReservationService.release(reservationKey, branchId);
+        return ResponseEntity.ok(ApiResponse.success("Released " + released + " holds", released));
+    }
+}
@@ -1,7 +1,9 @@
 package com.ims.controller;
 
+import com.ims.dto.request.BulkSaleRequest;
 import com.ims.dto.request.SaleRequest;
 import com.ims.dto.response.ApiResponse;
+import com.ims.dto.response.BulkSaleResult;
 import com.ims.entity.Sale;
 import com.ims.service.SaleService;
 import com.ims.util.SecurityUtils;
@@ -19,6 +21,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/sales")
 @RequiredArgsConstructor
@@ -39,6 +43,17 @@ public class SaleController {
                 .body(ApiResponse.success("Sale created successfully", sale));
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('SELLER', 'MANAGER', 'ADMIN')")
+    @Operation(summary = "Create sales in bulk",
+            description = "Replay sales queued offline. Every sale must carry an idempotencyKey; sales are matched " +
+                    "by it so a retried batch is safe, and a batch with a keyless sale is rejected")
+    public ResponseEntity<ApiResponse<List<BulkSaleResult>>> createSales(@Valid @RequestBody BulkSaleRequest request) {
+        request.getSales().forEach(sale -> securityUtils.validateBranchAccess(sale.getBranchId()));
+        List<BulkSaleResult> results = saleService.createSales(request.getSales());
+        return ResponseEntity.ok(ApiResponse.success("Processed " + results.size() + " sales", results));
+    }
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     @Operation(summary = "Get all sales", description = "List sales with filters")
@@ -1,12 +1,15 @@
 package com.ims.controller;
 
 import com.ims.dto.response.ApiResponse;
-import com.ims.entity.Customer;
-import com.ims.entity.Product;
+import com.ims.dto.sync.SyncChangesResponse;
+import com.ims.dto.sync.SyncSnapshotChunk;
+import com.ims.dto.sync.SyncSnapshotManifest;
+import com.ims.enums.SyncSnapshotSection;
 import com.ims.repository.BranchInventoryRepository;
 import com.ims.repository.CategoryRepository;
 import com.ims.repository.CustomerRepository;
 import com.ims.repository.ProductRepository;
+import com.ims.service.SyncService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -29,16 +32,21 @@ public class SyncController {
     private final CustomerRepository customerRepository;
     private final BranchInventoryRepository branchInventoryRepository;
     private final CategoryRepository categoryRepository;
+    private final SyncService syncService;
 
     @GetMapping("/snapshot")
     @Operation(summary = "Get data snapshot for offline use",
-            description = "Returns essential data (products, customers, categories, inventory) for offline caching")
+            description = "Returns essential data (products, customers, categories, inventory) for offline caching. " +
+                    "Capped at 10,000 products and customers; new tills should use /snapshot/manifest " +
+                    "and /snapshot/chunks instead.")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getDataSnapshot(
             @RequestParam Long branchId) {
         Map<String, Object> snapshot = new LinkedHashMap<>();
 
         snapshot.put("generatedAt", LocalDateTime.now());
         snapshot.put("branchId", branchId);
+        // Taken before the data, so changes made while it is read are replayed by the change feed
+        snapshot.put("cursor", syncService.getLatestCursor());
         snapshot.put("products", productRepository.findByIsDeletedFalse(PageRequest.of(0, 10000)).getContent());
         snapshot.put("categories", categoryRepository.findByIsDeletedFalse());
         snapshot.put("customers", customerRepository.findByBranchId(branchId, PageRequest.of(0, 10000)).getContent());
@@ -47,32 +55,45 @@ public class SyncController {
         return ResponseEntity.ok(ApiResponse.success(snapshot));
     }
 
-    @GetMapping("/changes")
-    @Operation(summary = "Get changes since timestamp",
-            description = "Returns entities modified after the given timestamp for incremental sync")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> getChangesSince(
-            @RequestParam String since,
-            @RequestParam Long branchId) {
-        LocalDateTime sinceDate = LocalDateTime.parse(since);
-        Map<String, Object> changes = new LinkedHashMap<>();
-
-        changes.put("since", sinceDate);
-        changes.put("generatedAt", LocalDateTime.now());
-
-        List<Product> allProducts = productRepository.findAll();
-        List<Product> updatedProducts = allProducts.stream()
-                .filter(p -> p.getUpdatedAt() != null && p.getUpdatedAt().isAfter(sinceDate))
-                .toList();
-        changes.put("products", updatedProducts);
-
-        List<Customer> branchCustomers = customerRepository.findByBranchId(branchId, PageRequest.of(0, 10000)).getContent();
-        List<Customer> updatedCustomers = branchCustomers.stream()
-                .filter(c -> c.getUpdatedAt() != null && c.getUpdatedAt().isAfter(sinceDate))
-                .toList();
-        changes.put("customers", updatedCustomers);
+    @GetMapping("/snapshot/manifest")
+    @Operation(summary = "Start a chunked snapshot",
+            description = "Returns the change-feed cursor to continue from once the snapshot is downloaded, " +
+                    "the chunk size and the row count of each section")
+    public ResponseEntity<ApiResponse<SyncSnapshotManifest>> getSnapshotManifest(@RequestParam Long branchId) {
+        return ResponseEntity.ok(ApiResponse.success(syncService.getSnapshotManifest(branchId)));
+    }
 
-        changes.put("inventory", branchInventoryRepository.findByBranchId(branchId));
+    @GetMapping("/snapshot/chunks")
+    @Operation(summary = "Get one chunk of a snapshot section",
+            description = "Returns the rows of a section after the given id as compact positional rows. " +
+                    "Pass the returned 'next' as 'after' while hasMore; an interrupted download resumes " +
+                    "from the last 'next' received. Also available as application/cbor.")
+    public ResponseEntity<ApiResponse<SyncSnapshotChunk>> getSnapshotChunk(
+            @RequestParam Long branchId,
+            @RequestParam SyncSnapshotSection section,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ApiResponse.success(syncService.getSnapshotChunk(branchId, section, after, limit)));
+    }
 
-        return ResponseEntity.ok(ApiResponse.success(changes));
+    @GetMapping("/changes")
+    @Operation(summary = "Get changes since a cursor",
+            description = "Returns the products, customers and stock levels changed after the cursor, " +
+                    "with deleted records as tombstones. Pass the returned cursor on the next call and " +
+                    "keep calling while hasMore. A timestamp in 'since' is still accepted instead of a cursor.")
+    public ResponseEntity<ApiResponse<SyncChangesResponse>> getChangesSince(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam Long branchId) {
+        long from;
+        if (cursor != null) {
+            from = cursor;
+        } else if (since != null) {
+            from = syncService.getCursorAt(LocalDateTime.parse(since));
+        } else {
+            from = 0L;
+        }
+        return ResponseEntity.ok(ApiResponse.success(syncService.getChanges(branchId, from, limit)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.ims.dto.event;
+
+import lombok.*;
+
+/**
+ * The dashboard figures of a branch may have changed; refetch the summary with If-None-Match.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardChangeEvent {
+    private Long branchId;
+}
@@ -0,0 +1,18 @@
+package com.ims.dto.event;
+
+import com.ims.dto.sync.SyncInventoryDTO;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Stock levels of a branch changed by one committed transaction.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockChangeEvent {
+    private Long branchId;
+    private List<SyncInventoryDTO> levels;
+}
@@ -0,0 +1,31 @@
+package com.ims.dto.outbox;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleCommittedEvent {
+
+    private Long saleId;
+    private String invoiceNumber;
+    private BigDecimal totalAmount;
+    private String paymentMethod;
+    private String status;
+    private Long sellerId;
+    private String ipAddress;
+    private List<Line> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private Long productId;
+        private BigDecimal unitPrice;
+    }
+}
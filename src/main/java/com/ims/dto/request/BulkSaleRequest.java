@@ -0,0 +1,22 @@
+package com.ims.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import jakarta.validation.groups.ConvertGroup;
+import jakarta.validation.groups.Default;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkSaleRequest {
+
+    @NotEmpty(message = "Sales are required")
+    @Size(max = 500, message = "A batch may contain at most 500 sales")
+    private List<@Valid @ConvertGroup(from = Default.class, to = SaleRequest.Batch.class) SaleRequest> sales;
+}
@@ -0,0 +1,34 @@
+package com.ims.dto.request;
+
+import com.ims.enums.ReportFormat;
+import com.ims.enums.ReportType;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobRequest {
+
+    @NotNull(message = "Report type is required")
+    private ReportType type;
+
+    @NotNull(message = "Report format is required")
+    private ReportFormat format;
+
+    /**
+     * Required for every report except INVENTORY, which is a snapshot of current stock
+     */
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    /**
+     * Null for all branches; ignored by PURCHASE_ORDERS
+     */
+    private Long branchId;
+}
@@ -0,0 +1,23 @@
+package com.ims.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationItemRequest {
+
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+
+    /**
+     * Units the cart should hold; 0 releases the hold
+     */
+    @NotNull(message = "Quantity is required")
+    @Min(value = 0, message = "Quantity cannot be negative")
+    private Integer quantity;
+}
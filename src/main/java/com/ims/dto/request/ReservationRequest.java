@@ -0,0 +1,33 @@
+package com.ims.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationRequest {
+
+    @NotBlank(message = "Reservation key is required")
+    @Size(max = 100, message = "Reservation key must not exceed 100 characters")
+    private String reservationKey;
+
+    @NotNull(message = "Branch ID is required")
+    private Long branchId;
+
+    @NotEmpty(message = "Reservation items are required")
+    private List<@Valid ReservationItemRequest> items;
+
+    /**
+     * Hold lifetime; defaults to app.reservations.default-ttl-seconds
+     */
+    private Integer ttlSeconds;
+}
@@ -1,7 +1,10 @@
 package com.ims.dto.request;
 
 import com.ims.enums.PaymentMethod;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import jakarta.validation.groups.Default;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,6 +16,13 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class SaleRequest {
+
+    /**
+     * Validation group for sales replayed through the batch endpoint, where the idempotency
+     * key is required
+     */
+    public interface Batch extends Default {
+    }
     
     @NotNull(message = "Branch ID is required")
     private Long branchId;
@@ -43,4 +53,18 @@ public class SaleRequest {
     // For credit sales
     private Long creditAccountId;
     private String dueDate; // LocalDate as string
+
+    /**
+     * Client-generated key; resubmitting a sale with the same key returns the recorded sale.
+     * Required for batch sales
+     */
+    @NotBlank(groups = Batch.class, message = "Idempotency key is required for batch sales")
+    @Size(max = 100, message = "Idempotency key must not exceed 100 characters")
+    private String idempotencyKey;
+
+    /**
+     * Cart whose stock holds this sale consumes
+     */
+    @Size(max = 100, message = "Reservation key must not exceed 100 characters")
+    private String reservationKey;
 }
@@ -0,0 +1,51 @@
+package com.ims.dto.response;
+
+import com.ims.entity.Sale;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one sale in a bulk submission, in the same position as the request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkSaleResult {
+
+    public enum Status { CREATED, DUPLICATE, FAILED }
+
+    private String idempotencyKey;
+    private Status status;
+    private Long saleId;
+    private String invoiceNumber;
+    private String message;
+
+    public static BulkSaleResult created(String idempotencyKey, Sale sale) {
+        return of(idempotencyKey, Status.CREATED, sale, null);
+    }
+
+    public static BulkSaleResult duplicate(String idempotencyKey, Sale sale) {
+        return of(idempotencyKey, Status.DUPLICATE, sale, "Sale already recorded");
+    }
+
+    public static BulkSaleResult failed(String idempotencyKey, String message) {
+        return BulkSaleResult.builder()
+                .idempotencyKey(idempotencyKey)
+                .status(Status.FAILED)
+                .message(message)
+                .build();
+    }
+
+    private static BulkSaleResult of(String idempotencyKey, Status status, Sale sale, String message) {
+        return BulkSaleResult.builder()
+                .idempotencyKey(idempotencyKey)
+                .status(status)
+                .saleId(sale.getId())
+                .invoiceNumber(sale.getInvoiceNumber())
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.ims.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A product found by a barcode scan: what a POS needs to show it and add it to a sale.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductLookup {
+
+    private Long id;
+    private String sku;
+    private String name;
+    private String barcode;
+    private BigDecimal unitPrice;
+    private Long categoryId;
+    private String categoryName;
+}
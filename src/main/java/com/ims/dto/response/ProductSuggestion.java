@@ -0,0 +1,25 @@
+package com.ims.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A typeahead suggestion: enough of a product for a POS to show it and add it to a sale.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestion {
+
+    private Long productId;
+    private String sku;
+    private String name;
+    private String barcode;
+    private String brand;
+    private BigDecimal unitPrice;
+}
@@ -0,0 +1,39 @@
+package com.ims.dto.response;
+
+import com.ims.enums.ReportFormat;
+import com.ims.enums.ReportJobStatus;
+import com.ims.enums.ReportType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * State of a report job. bytesWritten grows while the report renders; PDF output grows row by
+ * row, Excel output is written in one go once every row has been read.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobResponse {
+
+    private String jobId;
+    private ReportType type;
+    private ReportFormat format;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Long branchId;
+    private ReportJobStatus status;
+    private String filename;
+    private long bytesWritten;
+    private String error;
+    private String requestedBy;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,28 @@
+package com.ims.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * What a POS scan needs: the product and its stock counts in one branch.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAvailability {
+
+    private Long branchId;
+    private Long productId;
+    private String sku;
+    private String name;
+    private String barcode;
+    private BigDecimal unitPrice;
+    private Integer quantityOnHand;
+    private Integer quantityReserved;
+    private Integer quantityAvailable;
+}
@@ -0,0 +1,24 @@
+package com.ims.dto.sync;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Everything that changed after a till's cursor, in current state. Pass {@code cursor} back
+ * on the next call; keep calling while {@code hasMore}. When {@code resetRequired} is set the
+ * till's cursor is older than the retained change log and it must take a fresh snapshot.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncChangesResponse {
+    private Long cursor;
+    private boolean hasMore;
+    private boolean resetRequired;
+    private List<SyncProductDTO> products;
+    private List<SyncCustomerDTO> customers;
+    private List<SyncInventoryDTO> inventory;
+    private List<SyncTombstone> deleted;
+}
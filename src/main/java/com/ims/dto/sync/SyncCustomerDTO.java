@@ -0,0 +1,22 @@
+package com.ims.dto.sync;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncCustomerDTO {
+    private Long id;
+    private String customerId;
+    private String name;
+    private String phone;
+    private String email;
+    private String customerType;
+    private String status;
+    private BigDecimal creditLimit;
+    private BigDecimal currentDebt;
+    private Long branchId;
+}
@@ -0,0 +1,14 @@
+package com.ims.dto.sync;
+
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncInventoryDTO {
+    private Long productId;
+    private Integer quantityOnHand;
+    private Integer quantityReserved;
+    private Integer quantityAvailable;
+}
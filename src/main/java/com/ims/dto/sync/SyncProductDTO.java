@@ -0,0 +1,24 @@
+package com.ims.dto.sync;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncProductDTO {
+    private Long id;
+    private String sku;
+    private String name;
+    private String barcode;
+    private Long categoryId;
+    private String brand;
+    private String model;
+    private String unit;
+    private BigDecimal unitPrice;
+    private BigDecimal costPrice;
+    private Integer reorderLevel;
+    private Boolean isActive;
+}
@@ -0,0 +1,26 @@
+package com.ims.dto.sync;
+
+import com.ims.enums.SyncSnapshotSection;
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a snapshot section, as positional rows under a single column header. Values of
+ * the columns listed in {@code dictionaries} are indexes into that column's list. Request the
+ * next chunk with {@code after = next} while {@code hasMore}; a broken download resumes from
+ * the last {@code next} received.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncSnapshotChunk {
+    private SyncSnapshotSection section;
+    private List<String> columns;
+    private Map<String, List<String>> dictionaries;
+    private List<List<Object>> rows;
+    private Long next;
+    private boolean hasMore;
+}
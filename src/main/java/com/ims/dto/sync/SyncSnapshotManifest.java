@@ -0,0 +1,23 @@
+package com.ims.dto.sync;
+
+import com.ims.enums.SyncSnapshotSection;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Starting point of a chunked snapshot: the change-feed cursor to resume from once every
+ * section is downloaded, and the row count of each section for progress display.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncSnapshotManifest {
+    private Long branchId;
+    private LocalDateTime generatedAt;
+    private Long cursor;
+    private Integer chunkSize;
+    private Map<SyncSnapshotSection, Long> rowCounts;
+}
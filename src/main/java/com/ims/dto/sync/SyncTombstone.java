@@ -0,0 +1,16 @@
+package com.ims.dto.sync;
+
+import com.ims.enums.SyncEntityType;
+import lombok.*;
+
+/**
+ * A record the till should drop. Inventory tombstones carry the product id.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncTombstone {
+    private SyncEntityType type;
+    private Long id;
+}
@@ -1,12 +1,14 @@
 package com.ims.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.ims.service.SearchIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.math.BigDecimal;
 
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "credit_accounts")
 @Getter
 @Setter
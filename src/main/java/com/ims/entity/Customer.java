@@ -2,6 +2,7 @@ package com.ims.entity;
 
 import com.ims.enums.CustomerStatus;
 import com.ims.enums.CustomerType;
+import com.ims.service.SearchIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
@@ -10,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "customers")
 @Getter
 @Setter
@@ -0,0 +1,95 @@
+package com.ims.entity;
+
+import com.ims.enums.PaymentMethod;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Daily rollup of sales, returns and expenses per branch, product and payment method, kept up
+ * to date by DailySalesFactService as those records commit. Analytics sum these rows instead of
+ * walking the raw sales.
+ *
+ * Sale-level discount and tax are spread over the sale's lines, so revenue and tax add up to
+ * the sale totals in any grouping; saleCount is carried by the first line of each sale.
+ * Expense rows have no product and no payment method.
+ */
+@Entity
+@Table(name = "daily_sales_fact", indexes = {
+        @Index(name = "idx_daily_sales_fact_date_branch", columnList = "fact_date, branch_id"),
+        @Index(name = "idx_daily_sales_fact_date_product", columnList = "fact_date, product_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailySalesFact {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // date|branch|product|payment method, so rows without a product stay unique
+    @Column(name = "row_key", nullable = false, unique = true, length = 100)
+    private String rowKey;
+
+    @Column(name = "fact_date", nullable = false)
+    private LocalDate factDate;
+
+    @Column(name = "branch_id", nullable = false)
+    private Long branchId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", length = 20)
+    private PaymentMethod paymentMethod;
+
+    @Column(name = "sale_count", nullable = false)
+    @Builder.Default
+    private Long saleCount = 0L;
+
+    @Column(name = "line_count", nullable = false)
+    @Builder.Default
+    private Long lineCount = 0L;
+
+    @Column(name = "quantity_sold", nullable = false)
+    @Builder.Default
+    private Long quantitySold = 0L;
+
+    @Column(name = "revenue", nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "cost", nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal cost = BigDecimal.ZERO;
+
+    @Column(name = "tax", nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal tax = BigDecimal.ZERO;
+
+    @Column(name = "quantity_returned", nullable = false)
+    @Builder.Default
+    private Long quantityReturned = 0L;
+
+    @Column(name = "returns_amount", nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal returnsAmount = BigDecimal.ZERO;
+
+    @Column(name = "returned_cost", nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal returnedCost = BigDecimal.ZERO;
+
+    @Column(name = "expenses", nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal expenses = BigDecimal.ZERO;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
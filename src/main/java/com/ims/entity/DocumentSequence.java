@@ -0,0 +1,25 @@
+package com.ims.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Counter row backing one document number series (e.g. invoices of a branch for a year).
+ * nextValue is the first number not yet handed out to any application instance.
+ */
+@Entity
+@Table(name = "document_sequences")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DocumentSequence {
+
+    @Id
+    @Column(name = "sequence_key", length = 100)
+    private String sequenceKey;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
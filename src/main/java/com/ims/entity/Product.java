@@ -1,5 +1,6 @@
 package com.ims.entity;
 
+import com.ims.service.SearchIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -8,6 +9,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "products")
 @Getter
 @Setter
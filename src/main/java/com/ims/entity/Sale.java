@@ -29,6 +29,12 @@ public class Sale extends BaseEntity {
     @Column(name = "invoice_number", nullable = false, unique = true, length = 50)
     private String invoiceNumber;
 
+    /**
+     * Client-generated key identifying the till's submission, so a replayed sale is recorded once.
+     */
+    @Column(name = "idempotency_key", unique = true, length = 100)
+    private String idempotencyKey;
+
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "branch_id", nullable = false)
     private Branch branch;
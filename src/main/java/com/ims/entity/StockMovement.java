@@ -16,7 +16,8 @@ import lombok.*;
 public class StockMovement extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movements_seq")
+    @SequenceGenerator(name = "stock_movements_seq", sequenceName = "stock_movements_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.EAGER)
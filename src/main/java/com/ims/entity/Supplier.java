@@ -2,10 +2,12 @@ package com.ims.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.ims.enums.SupplierPaymentTerms;
+import com.ims.service.SearchIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "suppliers")
 @Getter
 @Setter
@@ -0,0 +1,45 @@
+package com.ims.entity;
+
+import com.ims.enums.SyncEntityType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the offline-sync change log. The id is the change sequence tills keep as their
+ * cursor. Branch-specific rows (customers, inventory) carry their branch; catalog rows have none
+ * and go to every branch. Inventory rows are keyed by product id within their branch.
+ */
+@Entity
+@Table(name = "sync_changes", indexes = {
+        @Index(name = "idx_sync_changes_branch_id", columnList = "branch_id, id"),
+        @Index(name = "idx_sync_changes_recorded_at", columnList = "recorded_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private SyncEntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "branch_id")
+    private Long branchId;
+
+    @Column(nullable = false)
+    private Boolean deleted;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+}
@@ -14,7 +14,8 @@ import lombok.*;
 public class TransferItem extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfer_items_seq")
+    @SequenceGenerator(name = "transfer_items_seq", sequenceName = "transfer_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
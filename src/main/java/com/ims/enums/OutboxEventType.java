@@ -0,0 +1,8 @@
+package com.ims.enums;
+
+public enum OutboxEventType {
+    SALE_COMMITTED,
+    RETURN_COMPLETED,
+    EXPENSE_RECORDED,
+    EXPENSE_DELETED
+}
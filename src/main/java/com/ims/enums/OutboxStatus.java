@@ -0,0 +1,8 @@
+package com.ims.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    PROCESSING,
+    PROCESSED,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.ims.enums;
+
+public enum ReportFormat {
+    EXCEL,
+    PDF
+}
@@ -0,0 +1,8 @@
+package com.ims.enums;
+
+public enum ReportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.ims.enums;
+
+public enum ReportType {
+    SALES,
+    INVENTORY,
+    PROFIT_LOSS,
+    PURCHASE_ORDERS
+}
@@ -0,0 +1,8 @@
+package com.ims.enums;
+
+public enum ReservationStatus {
+    ACTIVE,
+    CONSUMED,
+    RELEASED,
+    EXPIRED
+}
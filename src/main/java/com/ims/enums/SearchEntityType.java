@@ -0,0 +1,8 @@
+package com.ims.enums;
+
+public enum SearchEntityType {
+    PRODUCT,
+    CUSTOMER,
+    SUPPLIER,
+    CREDIT_ACCOUNT
+}
@@ -0,0 +1,7 @@
+package com.ims.enums;
+
+public enum SyncEntityType {
+    PRODUCT,
+    CUSTOMER,
+    INVENTORY
+}
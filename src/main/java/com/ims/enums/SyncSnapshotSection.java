@@ -0,0 +1,8 @@
+package com.ims.enums;
+
+public enum SyncSnapshotSection {
+    CATEGORIES,
+    PRODUCTS,
+    CUSTOMERS,
+    INVENTORY
+}
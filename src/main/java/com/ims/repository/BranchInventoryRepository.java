@@ -4,16 +4,24 @@ import com.ims.entity.Branch;
 import com.ims.entity.BranchInventory;
 import com.ims.entity.Product;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BranchInventoryRepository extends JpaRepository<BranchInventory, Long> {
@@ -44,6 +52,190 @@ public interface BranchInventoryRepository extends JpaRepository<BranchInventory
 
     boolean existsByBranchIdAndProductId(Long branchId, Long productId);
 
+    // ==========================================
+    // GUARDED STOCK UPDATES
+    // Single-statement changes that never load the entity graph; the guard in the
+    // WHERE clause decides success, reported as the affected-row count.
+    // ==========================================
+
+    /**
+     * Take units off the shelf, first releasing units the caller held in quantityReserved.
+     * Matches no row unless enough stock is available.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE BranchInventory bi SET
+            bi.quantityOnHand = bi.quantityOnHand - :quantity,
+            bi.quantityReserved = bi.quantityReserved - :released,
+            bi.quantityAvailable = bi.quantityAvailable + :released - :quantity,
+            bi.version = bi.version + 1,
+            bi.updatedAt = :now
+        WHERE bi.branch.id = :branchId AND bi.product.id = :productId
+        AND bi.quantityReserved >= :released
+        AND bi.quantityAvailable + :released >= :quantity
+        """)
+    int takeStock(@Param("branchId") Long branchId, @Param("productId") Long productId,
+                  @Param("quantity") int quantity, @Param("released") int released,
+                  @Param("now") LocalDateTime now);
+
+    /**
+     * Add (or with a negative delta remove) units on hand. Matches no row if on hand would go negative.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE BranchInventory bi SET
+            bi.quantityOnHand = bi.quantityOnHand + :delta,
+            bi.quantityAvailable = bi.quantityAvailable + :delta,
+            bi.version = bi.version + 1,
+            bi.updatedAt = :now
+        WHERE bi.branch.id = :branchId AND bi.product.id = :productId
+        AND bi.quantityOnHand + :delta >= 0
+        """)
+    int adjustStock(@Param("branchId") Long branchId, @Param("productId") Long productId,
+                    @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE BranchInventory bi SET
+            bi.quantityOnHand = bi.quantityOnHand + :quantity,
+            bi.quantityAvailable = bi.quantityAvailable + :quantity,
+            bi.lastRestockDate = :now,
+            bi.version = bi.version + 1,
+            bi.updatedAt = :now
+        WHERE bi.branch.id = :branchId AND bi.product.id = :productId
+        """)
+    int restock(@Param("branchId") Long branchId, @Param("productId") Long productId,
+                @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    /**
+     * Overwrite the on-hand count, provided on hand and reserved are still the values the caller read.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE BranchInventory bi SET
+            bi.quantityOnHand = :quantity,
+            bi.quantityAvailable = :quantity - bi.quantityReserved,
+            bi.version = bi.version + 1,
+            bi.updatedAt = :now
+        WHERE bi.branch.id = :branchId AND bi.product.id = :productId
+        AND bi.quantityOnHand = :expected
+        AND bi.quantityReserved = :reserved
+        """)
+    int replaceStock(@Param("branchId") Long branchId, @Param("productId") Long productId,
+                     @Param("expected") int expected, @Param("reserved") int reserved,
+                     @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    /**
+     * Move units between available and reserved; a negative delta releases them.
+     * Matches no row if not enough is available, or not enough is reserved to release.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE BranchInventory bi SET
+            bi.quantityReserved = bi.quantityReserved + :delta,
+            bi.quantityAvailable = bi.quantityAvailable - :delta,
+            bi.version = bi.version + 1,
+            bi.updatedAt = :now
+        WHERE bi.branch.id = :branchId AND bi.product.id = :productId
+        AND bi.quantityAvailable >= :delta
+        AND bi.quantityReserved + :delta >= 0
+        """)
+    int reserveStock(@Param("branchId") Long branchId, @Param("productId") Long productId,
+                     @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    @Query("SELECT bi.quantityOnHand FROM BranchInventory bi WHERE bi.branch.id = :branchId AND bi.product.id = :productId")
+    Optional<Integer> findQuantityOnHand(@Param("branchId") Long branchId, @Param("productId") Long productId);
+
+    @Query("SELECT bi.quantityAvailable FROM BranchInventory bi WHERE bi.branch.id = :branchId AND bi.product.id = :productId")
+    Optional<Integer> findQuantityAvailable(@Param("branchId") Long branchId, @Param("productId") Long productId);
+
+    /**
+     * Stock counts of one inventory row, read without loading the row's branch and product.
+     */
+    interface StockLevelView {
+        Integer getQuantityOnHand();
+        Integer getQuantityReserved();
+        Integer getQuantityAvailable();
+    }
+
+    @Query("SELECT bi.quantityOnHand AS quantityOnHand, bi.quantityReserved AS quantityReserved, " +
+           "bi.quantityAvailable AS quantityAvailable FROM BranchInventory bi " +
+           "WHERE bi.branch.id = :branchId AND bi.product.id = :productId")
+    Optional<StockLevelView> findStockLevel(@Param("branchId") Long branchId, @Param("productId") Long productId);
+
+    /**
+     * Id and stock counts of one inventory row.
+     */
+    interface StockRowView extends StockLevelView {
+        Long getId();
+    }
+
+    @Query("SELECT bi.id AS id, bi.quantityOnHand AS quantityOnHand, bi.quantityReserved AS quantityReserved, " +
+           "bi.quantityAvailable AS quantityAvailable FROM BranchInventory bi " +
+           "WHERE bi.branch.id = :branchId AND bi.product.id = :productId")
+    Optional<StockRowView> findStockRow(@Param("branchId") Long branchId, @Param("productId") Long productId);
+
+    /**
+     * Stock counts of one product in a branch, for offline sync.
+     */
+    interface ProductStockLevelView extends StockLevelView {
+        Long getProductId();
+    }
+
+    @Query("SELECT bi.product.id AS productId, bi.quantityOnHand AS quantityOnHand, " +
+           "bi.quantityReserved AS quantityReserved, bi.quantityAvailable AS quantityAvailable " +
+           "FROM BranchInventory bi WHERE bi.branch.id = :branchId AND bi.product.id IN :productIds")
+    List<ProductStockLevelView> findStockLevels(@Param("branchId") Long branchId,
+                                                @Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT bi.product.id AS productId, bi.quantityOnHand AS quantityOnHand, " +
+           "bi.quantityReserved AS quantityReserved, bi.quantityAvailable AS quantityAvailable " +
+           "FROM BranchInventory bi WHERE bi.branch.id = :branchId AND bi.product.id > :afterProductId " +
+           "ORDER BY bi.product.id")
+    List<ProductStockLevelView> findStockLevelPage(@Param("branchId") Long branchId,
+                                                   @Param("afterProductId") long afterProductId,
+                                                   Pageable pageable);
+
+    long countByBranchId(Long branchId);
+
+    // ==========================================
+    // REPORT STREAMS
+    // ==========================================
+
+    /**
+     * One inventory row with its product, category and branch names, for reports.
+     */
+    interface InventoryReportRow {
+        String getSku();
+        String getProductName();
+        String getCategoryName();
+        String getBranchName();
+        BigDecimal getUnitPrice();
+        BigDecimal getCostPrice();
+        Integer getReorderLevel();
+        Integer getQuantityOnHand();
+        Integer getQuantityReserved();
+        Integer getQuantityAvailable();
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.sku AS sku, p.name AS productName, c.name AS categoryName, b.name AS branchName, " +
+           "p.unitPrice AS unitPrice, p.costPrice AS costPrice, p.reorderLevel AS reorderLevel, " +
+           "bi.quantityOnHand AS quantityOnHand, bi.quantityReserved AS quantityReserved, " +
+           "bi.quantityAvailable AS quantityAvailable " +
+           "FROM BranchInventory bi JOIN bi.product p JOIN bi.branch b LEFT JOIN p.category c " +
+           "WHERE b.id = :branchId ORDER BY p.sku")
+    Stream<InventoryReportRow> streamReportRowsForBranch(@Param("branchId") Long branchId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.sku AS sku, p.name AS productName, c.name AS categoryName, b.name AS branchName, " +
+           "p.unitPrice AS unitPrice, p.costPrice AS costPrice, p.reorderLevel AS reorderLevel, " +
+           "bi.quantityOnHand AS quantityOnHand, bi.quantityReserved AS quantityReserved, " +
+           "bi.quantityAvailable AS quantityAvailable " +
+           "FROM BranchInventory bi JOIN bi.product p JOIN bi.branch b LEFT JOIN p.category c " +
+           "ORDER BY b.name, p.sku")
+    Stream<InventoryReportRow> streamReportRowsAllBranches();
+
     // ==========================================
     // STOCK CALCULATIONS
     // ==========================================
@@ -51,6 +243,17 @@ public interface BranchInventoryRepository extends JpaRepository<BranchInventory
     @Query("SELECT SUM(bi.quantityOnHand) FROM BranchInventory bi WHERE bi.product.id = :productId")
     Integer getTotalStockForProduct(@Param("productId") Long productId);
 
+    /**
+     * Number of inventory rows one branch holds.
+     */
+    interface BranchRowCount {
+        Long getBranchId();
+        Long getRowCount();
+    }
+
+    @Query("SELECT bi.branch.id AS branchId, COUNT(bi) AS rowCount FROM BranchInventory bi GROUP BY bi.branch.id")
+    List<BranchRowCount> countRowsPerBranch();
+
     // ==========================================
     // SEARCH & FILTER
     // ==========================================
@@ -62,6 +265,15 @@ public interface BranchInventoryRepository extends JpaRepository<BranchInventory
                                           @Param("searchTerm") String searchTerm,
                                           Pageable pageable);
 
+    @Query("SELECT bi.product.id FROM BranchInventory bi " +
+           "WHERE bi.branch.id = :branchId AND bi.product.id IN :productIds")
+    List<Long> findProductIdsInBranch(@Param("branchId") Long branchId,
+                                      @Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT bi FROM BranchInventory bi WHERE bi.branch.id = :branchId AND bi.product.id IN :productIds")
+    List<BranchInventory> findByBranchIdAndProductIds(@Param("branchId") Long branchId,
+                                                      @Param("productIds") Collection<Long> productIds);
+
     @Query("SELECT bi FROM BranchInventory bi WHERE bi.branch.id = :branchId AND " +
             "bi.product.category.id = :categoryId")
     Page<BranchInventory> findByBranchIdAndCategoryId(@Param("branchId") Long branchId,
@@ -77,6 +289,10 @@ public interface BranchInventoryRepository extends JpaRepository<BranchInventory
             "bi.quantityOnHand < bi.product.reorderLevel AND bi.quantityOnHand > 0")
     List<BranchInventory> findLowStockItems(@Param("branchId") Long branchId);
 
+    @Query("SELECT COUNT(bi) FROM BranchInventory bi WHERE bi.branch.id = :branchId AND " +
+            "bi.quantityOnHand < bi.product.reorderLevel AND bi.quantityOnHand > 0")
+    long countLowStockItems(@Param("branchId") Long branchId);
+
     // Out of stock items - Paginated (for specific branch)
     @Query("SELECT bi FROM BranchInventory bi WHERE bi.branch.id = :branchId AND " +
             "bi.quantityOnHand = 0")
@@ -100,6 +316,10 @@ public interface BranchInventoryRepository extends JpaRepository<BranchInventory
             "bi.quantityOnHand < bi.product.reorderLevel AND bi.quantityOnHand > 0")
     List<BranchInventory> findAllLowStockItems();
 
+    @Query("SELECT COUNT(bi) FROM BranchInventory bi WHERE " +
+            "bi.quantityOnHand < bi.product.reorderLevel AND bi.quantityOnHand > 0")
+    long countAllLowStockItems();
+
     // Total stock value across all branches (quantity * cost price)
     @Query("SELECT COALESCE(SUM(bi.quantityOnHand * bi.product.costPrice), 0) FROM BranchInventory bi")
     java.math.BigDecimal getTotalStockValue();
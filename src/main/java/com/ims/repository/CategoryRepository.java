@@ -1,7 +1,10 @@
 package com.ims.repository;
 
 import com.ims.entity.Category;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,5 +21,13 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     
     List<Category> findByIsDeletedFalse();
 
+    /**
+     * Live categories after an id, in id order, for paging through the offline snapshot.
+     */
+    @Query("SELECT c FROM Category c WHERE c.isDeleted = false AND c.id > :afterId ORDER BY c.id")
+    List<Category> findSnapshotPage(@Param("afterId") long afterId, Pageable pageable);
+
+    long countByIsDeletedFalse();
+
     Optional<Category> findByNameIgnoreCase(String name);
 }
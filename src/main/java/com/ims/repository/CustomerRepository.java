@@ -20,6 +20,17 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Page<Customer> findByBranchId(Long branchId, Pageable pageable);
     
     Page<Customer> findByStatus(CustomerStatus status, Pageable pageable);
+
+    /**
+     * Live customers of a branch after an id, in id order, for paging through the offline snapshot.
+     */
+    @Query("SELECT c FROM Customer c WHERE c.branch.id = :branchId AND c.isDeleted = false " +
+           "AND c.id > :afterId ORDER BY c.id")
+    List<Customer> findSnapshotPage(@Param("branchId") Long branchId,
+                                    @Param("afterId") long afterId,
+                                    Pageable pageable);
+
+    long countByBranchIdAndIsDeletedFalse(Long branchId);
     
     @Query("SELECT c FROM Customer c WHERE " +
            "LOWER(c.name) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
@@ -41,6 +52,18 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     @Query("SELECT COUNT(c) FROM Customer c WHERE c.branch.id = :branchId AND c.status = :status")
     Long countByBranchAndStatus(@Param("branchId") Long branchId, @Param("status") CustomerStatus status);
 
+    /**
+     * Number of customers with some status whose primary branch is one branch.
+     */
+    interface BranchCustomerCount {
+        Long getBranchId();
+        Long getCustomerCount();
+    }
+
+    @Query("SELECT c.branch.id AS branchId, COUNT(c) AS customerCount FROM Customer c " +
+           "WHERE c.status = :status GROUP BY c.branch.id")
+    List<BranchCustomerCount> countByStatusPerBranch(@Param("status") CustomerStatus status);
+
     @Query("SELECT c FROM Customer c WHERE c.branch.id = :branchId AND (" +
            "LOWER(c.name) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(c.email) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
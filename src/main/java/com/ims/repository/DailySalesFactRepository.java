@@ -0,0 +1,192 @@
+package com.ims.repository;
+
+import com.ims.entity.DailySalesFact;
+import com.ims.enums.PaymentMethod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailySalesFactRepository extends JpaRepository<DailySalesFact, Long> {
+
+    /**
+     * Sums of fact rows over one grouping. Only the key getters of the grouping a query
+     * selects may be called.
+     */
+    interface FactTotals {
+        LocalDate getFactDate();
+        Long getBranchId();
+        Long getProductId();
+        PaymentMethod getPaymentMethod();
+        Long getSaleCount();
+        Long getLineCount();
+        Long getQuantitySold();
+        BigDecimal getRevenue();
+        BigDecimal getCost();
+        BigDecimal getTax();
+        Long getQuantityReturned();
+        BigDecimal getReturnsAmount();
+        BigDecimal getReturnedCost();
+        BigDecimal getExpenses();
+    }
+
+    // ==========================================
+    // INCREMENTAL UPDATES
+    // ==========================================
+
+    @Modifying
+    @Query("""
+        UPDATE DailySalesFact f SET
+            f.saleCount = f.saleCount + :saleCount,
+            f.lineCount = f.lineCount + :lineCount,
+            f.quantitySold = f.quantitySold + :quantitySold,
+            f.revenue = f.revenue + :revenue,
+            f.cost = f.cost + :cost,
+            f.tax = f.tax + :tax,
+            f.quantityReturned = f.quantityReturned + :quantityReturned,
+            f.returnsAmount = f.returnsAmount + :returnsAmount,
+            f.returnedCost = f.returnedCost + :returnedCost,
+            f.expenses = f.expenses + :expenses,
+            f.updatedAt = :now
+        WHERE f.rowKey = :rowKey
+        """)
+    int increment(@Param("rowKey") String rowKey,
+                  @Param("saleCount") long saleCount,
+                  @Param("lineCount") long lineCount,
+                  @Param("quantitySold") long quantitySold,
+                  @Param("revenue") BigDecimal revenue,
+                  @Param("cost") BigDecimal cost,
+                  @Param("tax") BigDecimal tax,
+                  @Param("quantityReturned") long quantityReturned,
+                  @Param("returnsAmount") BigDecimal returnsAmount,
+                  @Param("returnedCost") BigDecimal returnedCost,
+                  @Param("expenses") BigDecimal expenses,
+                  @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM DailySalesFact f WHERE f.factDate BETWEEN :start AND :end")
+    int deleteByFactDateBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    // ==========================================
+    // AGGREGATIONS
+    // ==========================================
+
+    @Query("""
+        SELECT SUM(f.saleCount) AS saleCount, SUM(f.lineCount) AS lineCount,
+               SUM(f.quantitySold) AS quantitySold, SUM(f.revenue) AS revenue, SUM(f.cost) AS cost,
+               SUM(f.tax) AS tax, SUM(f.quantityReturned) AS quantityReturned,
+               SUM(f.returnsAmount) AS returnsAmount, SUM(f.returnedCost) AS returnedCost,
+               SUM(f.expenses) AS expenses
+        FROM DailySalesFact f
+        WHERE f.branchId = :branchId AND f.factDate BETWEEN :start AND :end
+        """)
+    FactTotals getTotalsForBranch(@Param("branchId") Long branchId,
+                                  @Param("start") LocalDate start,
+                                  @Param("end") LocalDate end);
+
+    @Query("""
+        SELECT SUM(f.saleCount) AS saleCount, SUM(f.lineCount) AS lineCount,
+               SUM(f.quantitySold) AS quantitySold, SUM(f.revenue) AS revenue, SUM(f.cost) AS cost,
+               SUM(f.tax) AS tax, SUM(f.quantityReturned) AS quantityReturned,
+               SUM(f.returnsAmount) AS returnsAmount, SUM(f.returnedCost) AS returnedCost,
+               SUM(f.expenses) AS expenses
+        FROM DailySalesFact f
+        WHERE f.factDate BETWEEN :start AND :end
+        """)
+    FactTotals getTotalsAllBranches(@Param("start") LocalDate start,
+                                    @Param("end") LocalDate end);
+
+    @Query("""
+        SELECT f.paymentMethod AS paymentMethod, SUM(f.revenue) AS revenue
+        FROM DailySalesFact f
+        WHERE f.branchId = :branchId AND f.factDate BETWEEN :start AND :end
+        AND f.paymentMethod IS NOT NULL
+        GROUP BY f.paymentMethod
+        """)
+    List<FactTotals> getRevenueByPaymentMethodForBranch(@Param("branchId") Long branchId,
+                                                        @Param("start") LocalDate start,
+                                                        @Param("end") LocalDate end);
+
+    @Query("""
+        SELECT f.paymentMethod AS paymentMethod, SUM(f.revenue) AS revenue
+        FROM DailySalesFact f
+        WHERE f.factDate BETWEEN :start AND :end
+        AND f.paymentMethod IS NOT NULL
+        GROUP BY f.paymentMethod
+        """)
+    List<FactTotals> getRevenueByPaymentMethodAllBranches(@Param("start") LocalDate start,
+                                                          @Param("end") LocalDate end);
+
+    @Query("""
+        SELECT f.factDate AS factDate, SUM(f.saleCount) AS saleCount,
+               SUM(f.quantitySold) AS quantitySold, SUM(f.revenue) AS revenue, SUM(f.cost) AS cost,
+               SUM(f.quantityReturned) AS quantityReturned, SUM(f.returnsAmount) AS returnsAmount,
+               SUM(f.returnedCost) AS returnedCost, SUM(f.expenses) AS expenses
+        FROM DailySalesFact f
+        WHERE f.branchId = :branchId AND f.factDate BETWEEN :start AND :end
+        GROUP BY f.factDate
+        ORDER BY f.factDate
+        """)
+    List<FactTotals> getDailyTotalsForBranch(@Param("branchId") Long branchId,
+                                             @Param("start") LocalDate start,
+                                             @Param("end") LocalDate end);
+
+    @Query("""
+        SELECT f.factDate AS factDate, SUM(f.saleCount) AS saleCount,
+               SUM(f.quantitySold) AS quantitySold, SUM(f.revenue) AS revenue, SUM(f.cost) AS cost,
+               SUM(f.quantityReturned) AS quantityReturned, SUM(f.returnsAmount) AS returnsAmount,
+               SUM(f.returnedCost) AS returnedCost, SUM(f.expenses) AS expenses
+        FROM DailySalesFact f
+        WHERE f.factDate BETWEEN :start AND :end
+        GROUP BY f.factDate
+        ORDER BY f.factDate
+        """)
+    List<FactTotals> getDailyTotalsAllBranches(@Param("start") LocalDate start,
+                                               @Param("end") LocalDate end);
+
+    @Query("""
+        SELECT f.productId AS productId, SUM(f.lineCount) AS lineCount,
+               SUM(f.quantitySold) AS quantitySold, SUM(f.revenue) AS revenue, SUM(f.cost) AS cost,
+               SUM(f.quantityReturned) AS quantityReturned, SUM(f.returnsAmount) AS returnsAmount,
+               SUM(f.returnedCost) AS returnedCost
+        FROM DailySalesFact f
+        WHERE f.branchId = :branchId AND f.factDate BETWEEN :start AND :end
+        AND f.productId IS NOT NULL
+        GROUP BY f.productId
+        """)
+    List<FactTotals> getProductTotalsForBranch(@Param("branchId") Long branchId,
+                                               @Param("start") LocalDate start,
+                                               @Param("end") LocalDate end);
+
+    @Query("""
+        SELECT f.productId AS productId, SUM(f.lineCount) AS lineCount,
+               SUM(f.quantitySold) AS quantitySold, SUM(f.revenue) AS revenue, SUM(f.cost) AS cost,
+               SUM(f.quantityReturned) AS quantityReturned, SUM(f.returnsAmount) AS returnsAmount,
+               SUM(f.returnedCost) AS returnedCost
+        FROM DailySalesFact f
+        WHERE f.factDate BETWEEN :start AND :end
+        AND f.productId IS NOT NULL
+        GROUP BY f.productId
+        """)
+    List<FactTotals> getProductTotalsAllBranches(@Param("start") LocalDate start,
+                                                 @Param("end") LocalDate end);
+
+    @Query("""
+        SELECT f.branchId AS branchId, SUM(f.saleCount) AS saleCount,
+               SUM(f.revenue) AS revenue, SUM(f.cost) AS cost,
+               SUM(f.returnsAmount) AS returnsAmount, SUM(f.returnedCost) AS returnedCost,
+               SUM(f.expenses) AS expenses
+        FROM DailySalesFact f
+        WHERE f.factDate BETWEEN :start AND :end
+        GROUP BY f.branchId
+        """)
+    List<FactTotals> getBranchTotals(@Param("start") LocalDate start,
+                                     @Param("end") LocalDate end);
+}
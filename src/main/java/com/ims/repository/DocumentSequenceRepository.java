@@ -0,0 +1,21 @@
+package com.ims.repository;
+
+import com.ims.entity.DocumentSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface DocumentSequenceRepository extends JpaRepository<DocumentSequence, String> {
+
+    @Modifying
+    @Query("UPDATE DocumentSequence s SET s.nextValue = s.nextValue + :blockSize WHERE s.sequenceKey = :key")
+    int advance(@Param("key") String key, @Param("blockSize") long blockSize);
+
+    @Query("SELECT s.nextValue FROM DocumentSequence s WHERE s.sequenceKey = :key")
+    Optional<Long> findNextValue(@Param("key") String key);
+}
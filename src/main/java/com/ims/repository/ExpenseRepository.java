@@ -16,6 +16,14 @@ import java.util.List;
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
 
+    /**
+     * Non-deleted expenses of one category summed over a period.
+     */
+    interface CategoryTotal {
+        ExpenseCategory getCategory();
+        BigDecimal getAmount();
+    }
+
     Page<Expense> findByBranchIdAndIsDeletedFalseOrderByExpenseDateDesc(Long branchId, Pageable pageable);
 
     @Query("SELECT e FROM Expense e WHERE e.branch.id = :branchId " +
@@ -26,7 +34,28 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
 
+    @Query("SELECT e FROM Expense e JOIN FETCH e.branch WHERE e.expenseDate BETWEEN :startDate AND :endDate " +
+            "AND e.isDeleted = false")
+    List<Expense> findByDateRange(@Param("startDate") LocalDate startDate,
+                                  @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT MIN(e.expenseDate) FROM Expense e")
+    LocalDate findEarliestExpenseDate();
+
     @Query("SELECT SUM(e.amount) FROM Expense e WHERE e.branch.id = :branchId " +
             "AND e.expenseDate = :date AND e.isDeleted = false")
     BigDecimal getTotalExpensesForDate(@Param("branchId") Long branchId, @Param("date") LocalDate date);
-}
\ No newline at end of file
+
+    @Query("SELECT e.category AS category, SUM(e.amount) AS amount FROM Expense e " +
+            "WHERE e.branch.id = :branchId AND e.expenseDate BETWEEN :startDate AND :endDate " +
+            "AND e.isDeleted = false GROUP BY e.category ORDER BY e.category")
+    List<CategoryTotal> getTotalsByCategoryForBranch(@Param("branchId") Long branchId,
+                                                     @Param("startDate") LocalDate startDate,
+                                                     @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT e.category AS category, SUM(e.amount) AS amount FROM Expense e " +
+            "WHERE e.expenseDate BETWEEN :startDate AND :endDate " +
+            "AND e.isDeleted = false GROUP BY e.category ORDER BY e.category")
+    List<CategoryTotal> getTotalsByCategoryAllBranches(@Param("startDate") LocalDate startDate,
+                                                       @Param("endDate") LocalDate endDate);
+}
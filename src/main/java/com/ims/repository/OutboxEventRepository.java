@@ -0,0 +1,64 @@
+package com.ims.repository;
+
+import com.ims.entity.OutboxEvent;
+import com.ims.enums.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Take ownership of an event for processing. Succeeds for pending events and for
+     * events whose previous processing lease has run out (e.g. the worker died).
+     */
+    @Modifying
+    @Query("""
+        UPDATE OutboxEvent e
+        SET e.status = :processing, e.nextAttemptAt = :leaseUntil
+        WHERE e.id = :id
+        AND (e.status = :pending OR (e.status = :processing AND e.nextAttemptAt <= :now))
+        """)
+    int claim(@Param("id") Long id,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("pending") OutboxStatus pending,
+              @Param("processing") OutboxStatus processing);
+
+    /**
+     * Mark an event processed, provided the caller still holds it: the event is still
+     * PROCESSING under the lease the caller claimed it with, so no other worker took it over.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE OutboxEvent e
+        SET e.status = :processed, e.processedAt = :now, e.lastError = NULL
+        WHERE e.id = :id AND e.status = :processing AND e.nextAttemptAt = :leaseUntil
+        """)
+    int complete(@Param("id") Long id,
+                 @Param("leaseUntil") LocalDateTime leaseUntil,
+                 @Param("now") LocalDateTime now,
+                 @Param("processing") OutboxStatus processing,
+                 @Param("processed") OutboxStatus processed);
+
+    @Query("""
+        SELECT e.id FROM OutboxEvent e
+        WHERE e.status IN :statuses
+        AND e.nextAttemptAt <= :now
+        ORDER BY e.id
+        """)
+    List<Long> findDueIds(@Param("statuses") List<OutboxStatus> statuses,
+                          @Param("now") LocalDateTime now,
+                          Pageable pageable);
+
+    long countByStatus(OutboxStatus status);
+
+    List<OutboxEvent> findByStatusIn(List<OutboxStatus> statuses);
+}
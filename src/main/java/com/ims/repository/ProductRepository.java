@@ -33,6 +33,15 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
            "LOWER(p.barcode) LIKE LOWER(CONCAT('%', :search, '%')))")
     Page<Product> searchProducts(@Param("search") String search, Pageable pageable);
 
+    /**
+     * Live products after an id, in id order, for paging through the offline snapshot.
+     */
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category " +
+           "WHERE p.isDeleted = false AND p.id > :afterId ORDER BY p.id")
+    List<Product> findSnapshotPage(@Param("afterId") long afterId, Pageable pageable);
+
+    long countByIsDeletedFalse();
+
     @Query("SELECT p FROM Product p WHERE p.isDeleted = false AND p.expiryDate IS NOT NULL AND p.expiryDate <= :date")
     List<Product> findProductsExpiringBefore(@Param("date") LocalDate date);
 
@@ -2,16 +2,21 @@ package com.ims.repository;
 
 import com.ims.entity.PurchaseOrder;
 import com.ims.enums.PurchaseOrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Long> {
@@ -64,4 +69,31 @@ public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Lo
             "JOIN po.items i WHERE po.branch.id = :branchId AND i.product.id = :productId " +
             "AND po.status IN ('DRAFT', 'SUBMITTED', 'APPROVED', 'SHIPPED')")
     boolean existsPendingOrderForProduct(@Param("branchId") Long branchId, @Param("productId") Long productId);
+
+    /**
+     * One purchase order with its supplier and branch names, for reports.
+     */
+    interface PurchaseOrderReportRow {
+        String getPoNumber();
+        String getSupplierName();
+        String getBranchName();
+        LocalDateTime getOrderDate();
+        LocalDate getExpectedDeliveryDate();
+        PurchaseOrderStatus getStatus();
+        BigDecimal getSubtotal();
+        BigDecimal getTaxAmount();
+        BigDecimal getShippingCost();
+        BigDecimal getTotalAmount();
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT po.poNumber AS poNumber, s.name AS supplierName, b.name AS branchName, " +
+            "po.orderDate AS orderDate, po.expectedDeliveryDate AS expectedDeliveryDate, po.status AS status, " +
+            "po.subtotal AS subtotal, po.taxAmount AS taxAmount, po.shippingCost AS shippingCost, " +
+            "po.totalAmount AS totalAmount " +
+            "FROM PurchaseOrder po JOIN po.supplier s JOIN po.branch b " +
+            "WHERE po.orderDate BETWEEN :start AND :end ORDER BY po.orderDate")
+    Stream<PurchaseOrderReportRow> streamReportRows(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
 }
@@ -6,11 +6,21 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface SaleItemRepository extends JpaRepository<SaleItem, Long> {
+
+    /**
+     * Line item sums over the non-deleted sales of a period. Cost is at the products' current cost price.
+     */
+    interface SaleItemTotals {
+        Long getLineCount();
+        Long getQuantitySold();
+        BigDecimal getCostOfGoodsSold();
+    }
     
     List<SaleItem> findBySaleId(Long saleId);
     
@@ -19,4 +29,19 @@ public interface SaleItemRepository extends JpaRepository<SaleItem, Long> {
     List<SaleItem> findByProductAndDateRange(@Param("productId") Long productId, 
                                              @Param("start") LocalDateTime start, 
                                              @Param("end") LocalDateTime end);
+
+    @Query("SELECT COUNT(si) AS lineCount, COALESCE(SUM(si.quantity), 0) AS quantitySold, " +
+           "COALESCE(SUM(si.quantity * COALESCE(p.costPrice, 0)), 0) AS costOfGoodsSold " +
+           "FROM SaleItem si JOIN si.sale s JOIN si.product p " +
+           "WHERE s.branch.id = :branchId AND s.saleDate BETWEEN :start AND :end AND s.isDeleted = false")
+    SaleItemTotals getItemTotalsForBranch(@Param("branchId") Long branchId,
+                                          @Param("start") LocalDateTime start,
+                                          @Param("end") LocalDateTime end);
+
+    @Query("SELECT COUNT(si) AS lineCount, COALESCE(SUM(si.quantity), 0) AS quantitySold, " +
+           "COALESCE(SUM(si.quantity * COALESCE(p.costPrice, 0)), 0) AS costOfGoodsSold " +
+           "FROM SaleItem si JOIN si.sale s JOIN si.product p " +
+           "WHERE s.saleDate BETWEEN :start AND :end AND s.isDeleted = false")
+    SaleItemTotals getItemTotalsAllBranches(@Param("start") LocalDateTime start,
+                                            @Param("end") LocalDateTime end);
 }
@@ -2,22 +2,32 @@ package com.ims.repository;
 
 import com.ims.entity.Customer;
 import com.ims.entity.Sale;
+import com.ims.enums.PaymentMethod;
 import com.ims.enums.SaleStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SaleRepository extends JpaRepository<Sale, Long> {
 
+    Optional<Sale> findByIdempotencyKey(String idempotencyKey);
+
+    List<Sale> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
+
     // ==========================================
     // EAGER LOADING QUERIES (Prevent Lazy Init)
     // ==========================================
@@ -127,6 +137,58 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
 
     Page<Sale> findByStatusAndIsDeletedFalse(SaleStatus status, Pageable pageable);
 
+    // ==========================================
+    // REPORT STREAMS
+    // ==========================================
+
+    /**
+     * One sale as a report row, read straight from the cursor without loading the entity.
+     */
+    interface SaleReportRow {
+        String getInvoiceNumber();
+        LocalDateTime getSaleDate();
+        String getCustomerName();
+        String getBranchName();
+        String getSellerName();
+        BigDecimal getSubtotal();
+        BigDecimal getTaxAmount();
+        BigDecimal getDiscountAmount();
+        BigDecimal getTotalAmount();
+        BigDecimal getAmountPaid();
+        PaymentMethod getPaymentMethod();
+        SaleStatus getStatus();
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+        SELECT s.invoiceNumber AS invoiceNumber, s.saleDate AS saleDate, s.customerName AS customerName,
+               b.name AS branchName, u.fullName AS sellerName, s.subtotal AS subtotal,
+               s.taxAmount AS taxAmount, s.discountAmount AS discountAmount, s.totalAmount AS totalAmount,
+               s.amountPaid AS amountPaid, s.paymentMethod AS paymentMethod, s.status AS status
+        FROM Sale s JOIN s.branch b JOIN s.seller u
+        WHERE b.id = :branchId
+        AND s.saleDate BETWEEN :start AND :end
+        AND s.isDeleted = false
+        ORDER BY s.saleDate
+        """)
+    Stream<SaleReportRow> streamReportRowsForBranch(@Param("branchId") Long branchId,
+                                                    @Param("start") LocalDateTime start,
+                                                    @Param("end") LocalDateTime end);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+        SELECT s.invoiceNumber AS invoiceNumber, s.saleDate AS saleDate, s.customerName AS customerName,
+               b.name AS branchName, u.fullName AS sellerName, s.subtotal AS subtotal,
+               s.taxAmount AS taxAmount, s.discountAmount AS discountAmount, s.totalAmount AS totalAmount,
+               s.amountPaid AS amountPaid, s.paymentMethod AS paymentMethod, s.status AS status
+        FROM Sale s JOIN s.branch b JOIN s.seller u
+        WHERE s.saleDate BETWEEN :start AND :end
+        AND s.isDeleted = false
+        ORDER BY s.saleDate
+        """)
+    Stream<SaleReportRow> streamReportRowsAllBranches(@Param("start") LocalDateTime start,
+                                                      @Param("end") LocalDateTime end);
+
     // ==========================================
     // AGGREGATION QUERIES
     // ==========================================
@@ -238,6 +300,47 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
             @Param("since") LocalDateTime since
     );
 
+    @Query("""
+        SELECT COUNT(DISTINCT s.customer.id) FROM Sale s
+        WHERE s.branch.id = :branchId
+        AND s.saleDate BETWEEN :start AND :end
+        AND s.isDeleted = false
+        """)
+    Long countDistinctCustomersForBranch(
+            @Param("branchId") Long branchId,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
+
+    @Query("""
+        SELECT COUNT(DISTINCT s.customer.id) FROM Sale s
+        WHERE s.saleDate BETWEEN :start AND :end
+        AND s.isDeleted = false
+        """)
+    Long countDistinctCustomersAllBranches(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
+
+    // ==========================================
+    // DAILY SALES FACT REBUILD
+    // ==========================================
+
+    @Query("""
+        SELECT DISTINCT s FROM Sale s
+        LEFT JOIN FETCH s.saleItems si
+        LEFT JOIN FETCH si.product
+        WHERE s.saleDate BETWEEN :start AND :end
+        AND s.isDeleted = false
+        """)
+    List<Sale> findBySaleDateBetweenWithItems(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
+
+    @Query("SELECT MIN(s.saleDate) FROM Sale s")
+    LocalDateTime findEarliestSaleDate();
+
     // ==========================================
     // CUSTOMER-RELATED QUERIES
     // ==========================================
@@ -19,6 +19,18 @@ public interface SaleReturnRepository extends JpaRepository<SaleReturn, Long> {
 
     Optional<SaleReturn> findByReturnNumber(String returnNumber);
 
+    @Query("""
+        SELECT DISTINCT sr FROM SaleReturn sr
+        LEFT JOIN FETCH sr.items i
+        LEFT JOIN FETCH i.product
+        JOIN FETCH sr.sale
+        JOIN FETCH sr.branch
+        WHERE sr.returnDate BETWEEN :start AND :end
+        AND sr.status = 'COMPLETED'
+        """)
+    List<SaleReturn> findCompletedWithItems(@Param("start") LocalDateTime start,
+                                            @Param("end") LocalDateTime end);
+
     Page<SaleReturn> findByBranchIdOrderByCreatedAtDesc(Long branchId, Pageable pageable);
 
     Page<SaleReturn> findByStatusOrderByCreatedAtDesc(ReturnStatus status, Pageable pageable);
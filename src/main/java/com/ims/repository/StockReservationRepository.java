@@ -0,0 +1,99 @@
+package com.ims.repository;
+
+import com.ims.entity.StockReservation;
+import com.ims.enums.ReservationStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    @Query("""
+        SELECT r FROM StockReservation r JOIN FETCH r.product JOIN FETCH r.branch
+        WHERE r.reservationKey = :reservationKey AND r.branch.id = :branchId AND r.status = :status
+        ORDER BY r.product.id
+        """)
+    List<StockReservation> findByKeyAndBranch(@Param("reservationKey") String reservationKey,
+                                              @Param("branchId") Long branchId,
+                                              @Param("status") ReservationStatus status);
+
+    // ==========================================
+    // HOLD STATE CHANGES
+    // Read as projections and changed with updates conditional on the status and
+    // quantity that were read, so a hold is consumed, released or expired exactly
+    // once, for the units it actually held, without locking it first. Callers
+    // update the hold's inventory row before the hold itself, and go through
+    // products in id order, so no two of them wait on each other's rows.
+    // ==========================================
+
+    @Query("""
+        SELECT r.id AS id, r.branch.id AS branchId, r.product.id AS productId, r.quantity AS quantity
+        FROM StockReservation r
+        WHERE r.reservationKey = :reservationKey AND r.branch.id = :branchId AND r.status = :status
+        ORDER BY r.product.id
+        """)
+    List<HeldStock> findHeldStock(@Param("reservationKey") String reservationKey,
+                                  @Param("branchId") Long branchId,
+                                  @Param("status") ReservationStatus status);
+
+    @Query("""
+        SELECT r.id AS id, r.branch.id AS branchId, r.product.id AS productId, r.quantity AS quantity
+        FROM StockReservation r
+        WHERE r.status = :status AND r.expiresAt < :now
+        ORDER BY r.branch.id, r.product.id, r.id
+        """)
+    List<HeldStock> findExpiredStock(@Param("status") ReservationStatus status,
+                                     @Param("now") LocalDateTime now,
+                                     Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE StockReservation r SET r.status = :to, r.updatedAt = :now
+        WHERE r.id = :id AND r.status = :from AND r.quantity = :quantity
+        """)
+    int transition(@Param("id") Long id,
+                   @Param("quantity") int quantity,
+                   @Param("from") ReservationStatus from,
+                   @Param("to") ReservationStatus to,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE StockReservation r SET r.status = :expired, r.updatedAt = :now
+        WHERE r.id = :id AND r.status = :active AND r.quantity = :quantity AND r.expiresAt < :now
+        """)
+    int expire(@Param("id") Long id,
+               @Param("quantity") int quantity,
+               @Param("active") ReservationStatus active,
+               @Param("expired") ReservationStatus expired,
+               @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE StockReservation r SET r.quantity = :quantity, r.expiresAt = :expiresAt, r.updatedAt = :now
+        WHERE r.id = :id AND r.status = :status AND r.quantity = :expected
+        """)
+    int resize(@Param("id") Long id,
+               @Param("status") ReservationStatus status,
+               @Param("expected") int expected,
+               @Param("quantity") int quantity,
+               @Param("expiresAt") LocalDateTime expiresAt,
+               @Param("now") LocalDateTime now);
+
+    interface HeldStock {
+        Long getId();
+
+        Long getBranchId();
+
+        Long getProductId();
+
+        Integer getQuantity();
+    }
+}
@@ -0,0 +1,41 @@
+package com.ims.repository;
+
+import com.ims.entity.SyncChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SyncChangeRepository extends JpaRepository<SyncChange, Long> {
+
+    @Query("""
+        SELECT c FROM SyncChange c
+        WHERE c.id > :cursor
+        AND (c.branchId IS NULL OR c.branchId = :branchId)
+        AND c.recordedAt <= :horizon
+        ORDER BY c.id
+        """)
+    List<SyncChange> findChangesAfter(@Param("cursor") long cursor,
+                                      @Param("branchId") Long branchId,
+                                      @Param("horizon") LocalDateTime horizon,
+                                      Pageable pageable);
+
+    @Query("SELECT MIN(c.id) FROM SyncChange c")
+    Long findOldestSeq();
+
+    @Query("SELECT MAX(c.id) FROM SyncChange c")
+    Long findLatestSeq();
+
+    @Query("SELECT MIN(c.id) FROM SyncChange c WHERE c.recordedAt > :since")
+    Long findFirstSeqAfter(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM SyncChange c WHERE c.recordedAt < :cutoff AND c.id < :latestSeq")
+    int deleteRecordedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("latestSeq") long latestSeq);
+}
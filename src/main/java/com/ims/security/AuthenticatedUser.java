@@ -0,0 +1,44 @@
+package com.ims.security;
+
+import com.ims.enums.Role;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.io.Serial;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * The principal of an authenticated request: Spring's user plus the id, role and branch
+ * the application scopes requests by.
+ */
+@Getter
+public class AuthenticatedUser extends User {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Long userId;
+    private final Role role;
+    private final Long branchId;
+
+    public AuthenticatedUser(Long userId, String username, String password, Role role, Long branchId,
+                             boolean enabled, Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.userId = userId;
+        this.role = role;
+        this.branchId = branchId;
+    }
+
+    /**
+     * Whether the role and branch claims of a token still describe this user. Tokens issued
+     * before the claims existed carry no role claim and are not checked.
+     */
+    public boolean matchesClaims(String roleClaim, Long branchClaim) {
+        if (roleClaim == null) {
+            return true;
+        }
+        return roleClaim.equals(role.name()) && Objects.equals(branchClaim, branchId);
+    }
+}
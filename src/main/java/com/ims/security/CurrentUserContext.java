@@ -0,0 +1,99 @@
+package com.ims.security;
+
+import com.ims.entity.User;
+import com.ims.enums.Role;
+import com.ims.exception.ResourceNotFoundException;
+import com.ims.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * The user a request is running for. Id, role and branch come from the principal that
+ * {@link JwtAuthenticationFilter} put in the security context, so reading them costs no query.
+ * The User entity is loaded on first use and kept for the rest of the request; outside a
+ * request it is loaded on every call.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserContext {
+
+    private static final String USER_ATTRIBUTE = CurrentUserContext.class.getName() + ".user";
+
+    private final UserRepository userRepository;
+
+    /**
+     * The username of the authenticated user, if there is one.
+     */
+    public Optional<String> getUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() ||
+                "anonymousUser".equals(authentication.getPrincipal())) {
+            return Optional.empty();
+        }
+        return Optional.of(authentication.getName());
+    }
+
+    public Long getUserId() {
+        AuthenticatedUser principal = getPrincipal();
+        return principal != null ? principal.getUserId() : getUser().getId();
+    }
+
+    public Long getBranchId() {
+        AuthenticatedUser principal = getPrincipal();
+        if (principal != null) {
+            return principal.getBranchId();
+        }
+        User user = getUser();
+        return user.getBranch() != null ? user.getBranch().getId() : null;
+    }
+
+    public Role getRole() {
+        AuthenticatedUser principal = getPrincipal();
+        return principal != null ? principal.getRole() : getUser().getRole();
+    }
+
+    /**
+     * The authenticated user's entity.
+     */
+    public User getUser() {
+        String username = getUsername()
+                .orElseThrow(() -> new ResourceNotFoundException("User", "username", "anonymous"));
+        return findUser().orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
+    }
+
+    /**
+     * The authenticated user's entity, or empty when the request is anonymous or runs for
+     * no user, as in scheduled work.
+     */
+    public Optional<User> findUser() {
+        Optional<String> username = getUsername();
+        if (username.isEmpty()) {
+            return Optional.empty();
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && request.getAttribute(USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User user) {
+            return Optional.of(user);
+        }
+        AuthenticatedUser principal = getPrincipal();
+        Optional<User> user = principal != null
+                ? userRepository.findById(principal.getUserId())
+                : userRepository.findByUsername(username.get());
+        if (request != null) {
+            user.ifPresent(found -> request.setAttribute(USER_ATTRIBUTE, found, RequestAttributes.SCOPE_REQUEST));
+        }
+        return user;
+    }
+
+    private AuthenticatedUser getPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser principal
+                ? principal
+                : null;
+    }
+}
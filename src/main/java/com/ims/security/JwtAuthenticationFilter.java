@@ -1,6 +1,7 @@
 package com.ims.security;
 
 import com.ims.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
@@ -14,20 +15,35 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authenticates requests carrying a bearer token. The token is parsed and verified once, and
+ * its user's principal comes from {@link PrincipalCache}, so most requests reach their
+ * controller without a user query. A token whose role or branch claims no longer match the
+ * user is rejected, and the client has to log in again.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    /**
+     * Request attribute holding the authenticated username, for filters that run outside the security context.
+     */
+    public static final String USERNAME_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".username";
+
+    /**
+     * Request attribute holding the authenticated user's branch id, when the user has a branch.
+     */
+    public static final String BRANCH_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".branchId";
+
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(
@@ -45,12 +61,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             final String jwt = authHeader.substring(7);
-            final String username = jwtUtil.extractUsername(jwt);
+            final Claims claims = jwtUtil.parseClaims(jwt);
+            final String username = claims.getSubject();
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = principalCache.get(username);
 
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                if (matchesClaims(userDetails, claims)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -58,6 +75,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    request.setAttribute(USERNAME_ATTRIBUTE, username);
+                    if (userDetails instanceof AuthenticatedUser user && user.getBranchId() != null) {
+                        request.setAttribute(BRANCH_ATTRIBUTE, user.getBranchId());
+                    }
+                } else {
+                    log.warn("JWT claims no longer match user {}", username);
+                    request.setAttribute("invalid", true);
                 }
             }
         } catch (ExpiredJwtException e) {
@@ -76,4 +100,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private static boolean matchesClaims(UserDetails userDetails, Claims claims) {
+        if (!(userDetails instanceof AuthenticatedUser user)) {
+            return true;
+        }
+        Number branchClaim = claims.get(JwtUtil.BRANCH_CLAIM, Number.class);
+        return user.matchesClaims(claims.get(JwtUtil.ROLE_CLAIM, String.class),
+                branchClaim != null ? branchClaim.longValue() : null);
+    }
 }
@@ -0,0 +1,83 @@
+package com.ims.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ims.util.TransactionScopedBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The principals of recently authenticated users, so a request carrying a valid token does not
+ * load its user from the database. Entries hold no password hash. User updates and deletions
+ * evict the user once their transaction commits; the short TTL bounds how long a change made
+ * outside this application goes unnoticed.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserDetailsService userDetailsService;
+    private final Cache<String, UserDetails> principals;
+
+    public PrincipalCache(UserDetailsService userDetailsService,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.auth.principal-cache.max-size:1000}") long maxSize,
+                          @Value("${app.auth.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userDetailsService = userDetailsService;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize).expireAfterWrite(Duration.ofSeconds(ttlSeconds)).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "auth.principals");
+    }
+
+    /**
+     * The principal of an active user. Unknown and inactive users are not cached; their
+     * UsernameNotFoundException propagates.
+     */
+    public UserDetails get(String username) {
+        return principals.get(username, this::load);
+    }
+
+    /**
+     * Cache a principal that was just authenticated, such as on login.
+     */
+    public void put(UserDetails userDetails) {
+        eraseCredentials(userDetails);
+        principals.put(userDetails.getUsername(), userDetails);
+    }
+
+    /**
+     * Drop a user's principal once the current transaction commits.
+     */
+    public void evictAfterCommit(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            principals.invalidate(username);
+            return;
+        }
+        pendingEvictions().add(username);
+    }
+
+    private UserDetails load(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        eraseCredentials(userDetails);
+        return userDetails;
+    }
+
+    private static void eraseCredentials(UserDetails userDetails) {
+        if (userDetails instanceof CredentialsContainer container) {
+            container.eraseCredentials();
+        }
+    }
+
+    private Set<String> pendingEvictions() {
+        return TransactionScopedBuffer.get(this, HashSet::new, principals::invalidateAll);
+    }
+}
@@ -2,11 +2,15 @@ package com.ims.service;
 
 import com.ims.dto.analytics.*;
 import com.ims.entity.*;
-import com.ims.enums.ReturnStatus;
-import com.ims.enums.SaleStatus;
+import com.ims.enums.CustomerStatus;
+import com.ims.enums.PaymentMethod;
 import com.ims.repository.*;
+import com.ims.repository.BranchInventoryRepository.BranchRowCount;
+import com.ims.repository.CustomerRepository.BranchCustomerCount;
+import com.ims.repository.DailySalesFactRepository.FactTotals;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,22 +20,29 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Sales, product, trend, branch and profit figures are summed from the daily_sales_fact
+ * rollup (see DailySalesFactService), so they cost the same however many sales the range
+ * holds. The rollup is per day: a range covers every full day from its start date to its
+ * end date.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @Transactional(readOnly = true)
 public class AnalyticsService {
 
+    private static final Set<PaymentMethod> CARD_PAYMENTS = EnumSet.of(PaymentMethod.CREDIT_CARD, PaymentMethod.DEBIT_CARD);
+
     private final SaleRepository saleRepository;
     private final ProductRepository productRepository;
     private final BranchRepository branchRepository;
     private final BranchInventoryRepository inventoryRepository;
     private final CustomerRepository customerRepository;
-    private final SaleItemRepository saleItemRepository;
-    private final SaleReturnRepository saleReturnRepository;
-    private final ExpenseRepository expenseRepository; // ADD THIS
+    private final DailySalesFactRepository dailySalesFactRepository;
 
     /**
      * Get sales summary for a date range (accounting for returns AND expenses)
@@ -39,125 +50,55 @@ public class AnalyticsService {
     public SalesSummaryDTO getSalesSummary(LocalDateTime startDate, LocalDateTime endDate, Long branchId) {
         log.info("Generating sales summary from {} to {}", startDate, endDate);
 
-        List<Sale> sales;
-        List<SaleReturn> returns;
-        List<Expense> expenses;
+        LocalDate start = startDate.toLocalDate();
+        LocalDate end = endDate.toLocalDate();
 
+        FactTotals totals;
+        List<FactTotals> byPaymentMethod;
+        Long uniqueCustomers;
         if (branchId != null) {
-            sales = saleRepository.findByBranchIdAndSaleDateBetween(branchId, startDate, endDate);
-            returns = saleReturnRepository.findByBranchIdAndReturnDateBetween(branchId, startDate, endDate);
-            expenses = expenseRepository.findByBranchAndDateRange(
-                    branchId,
-                    startDate.toLocalDate(),
-                    endDate.toLocalDate()
-            );
+            totals = dailySalesFactRepository.getTotalsForBranch(branchId, start, end);
+            byPaymentMethod = dailySalesFactRepository.getRevenueByPaymentMethodForBranch(branchId, start, end);
+            uniqueCustomers = saleRepository.countDistinctCustomersForBranch(branchId, startDate, endDate);
         } else {
-            sales = saleRepository.findAll().stream()
-                    .filter(s -> !s.getSaleDate().isBefore(startDate) && !s.getSaleDate().isAfter(endDate))
-                    .filter(s -> s.getStatus() == SaleStatus.COMPLETED)
-                    .collect(Collectors.toList());
-
-            returns = saleReturnRepository.findAll().stream()
-                    .filter(r -> !r.getReturnDate().isBefore(startDate) && !r.getReturnDate().isAfter(endDate))
-                    .filter(r -> r.getStatus() == ReturnStatus.COMPLETED)
-                    .collect(Collectors.toList());
-
-            expenses = expenseRepository.findByBranchAndDateRange(
-                    null,
-                    startDate.toLocalDate(),
-                    endDate.toLocalDate()
-            );
+            totals = dailySalesFactRepository.getTotalsAllBranches(start, end);
+            byPaymentMethod = dailySalesFactRepository.getRevenueByPaymentMethodAllBranches(start, end);
+            uniqueCustomers = saleRepository.countDistinctCustomersAllBranches(startDate, endDate);
         }
 
-        // Calculate gross sales (excluding tax — tax is collected on behalf of government, not revenue)
-        BigDecimal grossRevenue = sales.stream()
-                .map(sale -> sale.getTotalAmount().subtract(sale.getTaxAmount() != null ? sale.getTaxAmount() : BigDecimal.ZERO))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalCost = sales.stream()
-                .flatMap(sale -> sale.getSaleItems().stream())
-                .map(item -> item.getProduct().getCostPrice()
-                        .multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Calculate returns
-        BigDecimal totalReturns = returns.stream()
-                .map(SaleReturn::getRefundAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal returnedCost = returns.stream()
-                .flatMap(ret -> ret.getItems().stream())
-                .map(item -> item.getProduct().getCostPrice()
-                        .multiply(BigDecimal.valueOf(item.getQuantityReturned())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Calculate expenses
-        BigDecimal totalExpenses = expenses.stream()
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Net calculations (after returns and expenses)
-        BigDecimal netRevenue = grossRevenue.subtract(totalReturns);
-        BigDecimal netCost = totalCost.subtract(returnedCost);
-        BigDecimal grossProfit = netRevenue.subtract(netCost);
-        BigDecimal netProfit = grossProfit.subtract(totalExpenses); // TRUE PROFIT after expenses
-
-        int totalItemsSold = sales.stream()
-                .flatMap(sale -> sale.getSaleItems().stream())
-                .mapToInt(SaleItem::getQuantity)
-                .sum();
-
-        int totalItemsReturned = returns.stream()
-                .flatMap(ret -> ret.getItems().stream())
-                .mapToInt(SaleReturnItem::getQuantityReturned)
-                .sum();
-
-        int netItemsSold = totalItemsSold - totalItemsReturned;
-
-        Long uniqueCustomers = sales.stream()
-                .map(Sale::getCustomer)
-                .filter(Objects::nonNull)
-                .map(customer -> customer.getId())
-                .distinct()
-                .count();
-
-        BigDecimal cashSales = sales.stream()
-                .filter(s -> "CASH".equals(s.getPaymentMethod().name()))
-                .map(sale -> sale.getTotalAmount().subtract(sale.getTaxAmount() != null ? sale.getTaxAmount() : BigDecimal.ZERO))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Revenue is net of tax (collected on behalf of government) and of returns
+        BigDecimal netRevenue = orZero(totals.getRevenue()).subtract(orZero(totals.getReturnsAmount()));
+        BigDecimal netCost = orZero(totals.getCost()).subtract(orZero(totals.getReturnedCost()));
+        BigDecimal totalExpenses = orZero(totals.getExpenses());
+        BigDecimal netProfit = netRevenue.subtract(netCost).subtract(totalExpenses); // TRUE PROFIT after expenses
 
-        BigDecimal creditSales = sales.stream()
-                .filter(s -> "CREDIT".equals(s.getPaymentMethod().name()))
-                .map(sale -> sale.getTotalAmount().subtract(sale.getTaxAmount() != null ? sale.getTaxAmount() : BigDecimal.ZERO))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long saleCount = orZero(totals.getSaleCount());
+        int netItemsSold = (int) (orZero(totals.getQuantitySold()) - orZero(totals.getQuantityReturned()));
 
-        BigDecimal cardSales = sales.stream()
-                .filter(s -> "CARD".equals(s.getPaymentMethod().name()))
-                .map(sale -> sale.getTotalAmount().subtract(sale.getTaxAmount() != null ? sale.getTaxAmount() : BigDecimal.ZERO))
+        Map<PaymentMethod, BigDecimal> revenueByMethod = byPaymentMethod.stream()
+                .collect(Collectors.toMap(FactTotals::getPaymentMethod, row -> orZero(row.getRevenue())));
+        BigDecimal cardSales = CARD_PAYMENTS.stream()
+                .map(method -> revenueByMethod.getOrDefault(method, BigDecimal.ZERO))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        BigDecimal avgSaleValue = sales.isEmpty() ? BigDecimal.ZERO :
-                netRevenue.divide(BigDecimal.valueOf(sales.size()), 2, RoundingMode.HALF_UP);
-
-        double profitMargin = netRevenue.compareTo(BigDecimal.ZERO) > 0 ?
-                netProfit.divide(netRevenue, 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100)).doubleValue() : 0.0;
+        BigDecimal avgSaleValue = saleCount == 0 ? BigDecimal.ZERO :
+                netRevenue.divide(BigDecimal.valueOf(saleCount), 2, RoundingMode.HALF_UP);
 
         return SalesSummaryDTO.builder()
                 .periodStart(startDate)
                 .periodEnd(endDate)
-                .totalSales((long) sales.size())
+                .totalSales(saleCount)
                 .totalRevenue(netRevenue) // NET revenue (after returns)
                 .totalCost(netCost) // NET cost (after returns)
-                .totalExpenses(totalExpenses) // NEW: Total expenses
-                .totalProfit(netProfit) // NEW: TRUE NET profit (Revenue - COGS - Expenses)
+                .totalExpenses(totalExpenses)
+                .totalProfit(netProfit) // TRUE NET profit (Revenue - COGS - Expenses)
                 .averageSaleValue(avgSaleValue)
                 .totalItemsSold(netItemsSold) // NET items sold (after returns)
-                .uniqueCustomers(uniqueCustomers)
-                .cashSales(cashSales)
-                .creditSales(creditSales)
+                .uniqueCustomers(uniqueCustomers != null ? uniqueCustomers : 0L)
+                .cashSales(revenueByMethod.getOrDefault(PaymentMethod.CASH, BigDecimal.ZERO))
+                .creditSales(revenueByMethod.getOrDefault(PaymentMethod.CREDIT, BigDecimal.ZERO))
                 .cardSales(cardSales)
-                .profitMargin(profitMargin)
+                .profitMargin(percentage(netProfit, netRevenue))
                 .build();
     }
 
@@ -238,92 +179,61 @@ public class AnalyticsService {
     public List<ProductPerformanceDTO> getTopProducts(LocalDateTime startDate, LocalDateTime endDate, int limit, Long branchId) {
         log.info("Getting top {} products from {} to {} (branchId={})", limit, startDate, endDate, branchId);
 
-        List<Sale> sales;
-        List<SaleReturn> returns;
-        if (branchId != null) {
-            sales = saleRepository.findByBranchIdAndSaleDateBetween(branchId, startDate, endDate).stream()
-                    .filter(s -> s.getStatus() == SaleStatus.COMPLETED)
-                    .collect(Collectors.toList());
-            returns = saleReturnRepository.findByBranchIdAndReturnDateBetween(branchId, startDate, endDate).stream()
-                    .filter(r -> r.getStatus() == ReturnStatus.COMPLETED)
-                    .collect(Collectors.toList());
-        } else {
-            sales = saleRepository.findAll().stream()
-                    .filter(s -> !s.getSaleDate().isBefore(startDate) && !s.getSaleDate().isAfter(endDate))
-                    .filter(s -> s.getStatus() == SaleStatus.COMPLETED)
-                    .collect(Collectors.toList());
-            returns = saleReturnRepository.findAll().stream()
-                    .filter(r -> !r.getReturnDate().isBefore(startDate) && !r.getReturnDate().isAfter(endDate))
-                    .filter(r -> r.getStatus() == ReturnStatus.COMPLETED)
-                    .collect(Collectors.toList());
-        }
-
-        Map<Long, ProductPerformanceDTO> productStats = new HashMap<>();
-
-        // Process sales
-        for (Sale sale : sales) {
-            for (SaleItem item : sale.getSaleItems()) {
-                Product product = item.getProduct();
-                Long productId = product.getId();
-
-                ProductPerformanceDTO stats = productStats.getOrDefault(productId,
-                        ProductPerformanceDTO.builder()
-                                .productId(productId)
-                                .productName(product.getName())
-                                .categoryName(product.getCategory().getName())
-                                .quantitySold(0)
-                                .totalRevenue(BigDecimal.ZERO)
-                                .totalProfit(BigDecimal.ZERO)
-                                .numberOfSales(0L)
-                                .build());
-
-                stats.setQuantitySold(stats.getQuantitySold() + item.getQuantity());
-                stats.setTotalRevenue(stats.getTotalRevenue().add(item.getLineTotal()));
-                stats.setNumberOfSales(stats.getNumberOfSales() + 1);
-
-                BigDecimal itemCost = product.getCostPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-                stats.setTotalProfit(stats.getTotalProfit().add(item.getLineTotal().subtract(itemCost)));
-
-                productStats.put(productId, stats);
-            }
-        }
+        List<ProductPerformanceDTO> ranked = rankProducts(startDate, endDate, limit, branchId);
+        nameProducts(ranked);
+        return ranked;
+    }
 
-        // Subtract returns
-        for (SaleReturn saleReturn : returns) {
-            for (SaleReturnItem item : saleReturn.getItems()) {
-                Product product = item.getProduct();
-                Long productId = product.getId();
-
-                ProductPerformanceDTO stats = productStats.get(productId);
-                if (stats != null) {
-                    stats.setQuantitySold(stats.getQuantitySold() - item.getQuantityReturned());
-                    stats.setTotalRevenue(stats.getTotalRevenue().subtract(item.getSubtotal()));
-
-                    BigDecimal returnedCost = product.getCostPrice()
-                            .multiply(BigDecimal.valueOf(item.getQuantityReturned()));
-                    stats.setTotalProfit(stats.getTotalProfit().subtract(item.getSubtotal().subtract(returnedCost)));
-                }
-            }
-        }
+    /**
+     * Products ranked by net revenue on the rollup, without their names.
+     */
+    private List<ProductPerformanceDTO> rankProducts(LocalDateTime startDate, LocalDateTime endDate, int limit, Long branchId) {
+        LocalDate start = startDate.toLocalDate();
+        LocalDate end = endDate.toLocalDate();
+        List<FactTotals> productTotals = branchId != null
+                ? dailySalesFactRepository.getProductTotalsForBranch(branchId, start, end)
+                : dailySalesFactRepository.getProductTotalsAllBranches(start, end);
+
+        return productTotals.stream()
+                .filter(row -> orZero(row.getLineCount()) > 0)
+                .map(this::toProductPerformance)
+                .sorted(Comparator.comparing(ProductPerformanceDTO::getTotalRevenue).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
 
-        // Calculate averages and margins
-        productStats.values().forEach(stats -> {
-            if (stats.getQuantitySold() > 0) {
-                stats.setAverageSellingPrice(
-                        stats.getTotalRevenue().divide(
-                                BigDecimal.valueOf(stats.getQuantitySold()), 2, RoundingMode.HALF_UP));
-            }
-            if (stats.getTotalRevenue().compareTo(BigDecimal.ZERO) > 0) {
-                stats.setProfitMargin(
-                        stats.getTotalProfit().divide(stats.getTotalRevenue(), 4, RoundingMode.HALF_UP)
-                                .multiply(BigDecimal.valueOf(100)).doubleValue());
+    /**
+     * Fill in product and category names, loading the products in one query.
+     */
+    private void nameProducts(List<ProductPerformanceDTO> ranked) {
+        Map<Long, Product> products = productRepository.findAllById(
+                        ranked.stream().map(ProductPerformanceDTO::getProductId).distinct().toList()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        ranked.forEach(stats -> {
+            Product product = products.get(stats.getProductId());
+            if (product != null) {
+                stats.setProductName(product.getName());
+                stats.setCategoryName(product.getCategory() != null ? product.getCategory().getName() : null);
             }
         });
+    }
 
-        return productStats.values().stream()
-                .sorted(Comparator.comparing(ProductPerformanceDTO::getTotalRevenue).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+    private ProductPerformanceDTO toProductPerformance(FactTotals row) {
+        int quantitySold = (int) (orZero(row.getQuantitySold()) - orZero(row.getQuantityReturned()));
+        BigDecimal revenue = orZero(row.getRevenue()).subtract(orZero(row.getReturnsAmount()));
+        BigDecimal cost = orZero(row.getCost()).subtract(orZero(row.getReturnedCost()));
+        BigDecimal profit = revenue.subtract(cost);
+
+        return ProductPerformanceDTO.builder()
+                .productId(row.getProductId())
+                .quantitySold(quantitySold)
+                .totalRevenue(revenue)
+                .totalProfit(profit)
+                .numberOfSales(orZero(row.getLineCount()))
+                .averageSellingPrice(quantitySold > 0
+                        ? revenue.divide(BigDecimal.valueOf(quantitySold), 2, RoundingMode.HALF_UP) : null)
+                .profitMargin(revenue.compareTo(BigDecimal.ZERO) > 0 ? percentage(profit, revenue) : null)
+                .build();
     }
 
     /**
@@ -332,183 +242,66 @@ public class AnalyticsService {
     public List<SalesTrendDTO> getSalesTrends(LocalDateTime startDate, LocalDateTime endDate, Long branchId) {
         log.info("Getting sales trends from {} to {} (branchId={})", startDate, endDate, branchId);
 
-        List<Sale> sales;
-        List<SaleReturn> returns;
-        List<Expense> expenses;
-        if (branchId != null) {
-            sales = saleRepository.findByBranchIdAndSaleDateBetween(branchId, startDate, endDate).stream()
-                    .filter(s -> s.getStatus() == SaleStatus.COMPLETED)
-                    .collect(Collectors.toList());
-            returns = saleReturnRepository.findByBranchIdAndReturnDateBetween(branchId, startDate, endDate).stream()
-                    .filter(r -> r.getStatus() == ReturnStatus.COMPLETED)
-                    .collect(Collectors.toList());
-            expenses = expenseRepository.findByBranchAndDateRange(branchId, startDate.toLocalDate(), endDate.toLocalDate());
-        } else {
-            sales = saleRepository.findAll().stream()
-                    .filter(s -> !s.getSaleDate().isBefore(startDate) && !s.getSaleDate().isAfter(endDate))
-                    .filter(s -> s.getStatus() == SaleStatus.COMPLETED)
-                    .collect(Collectors.toList());
-            returns = saleReturnRepository.findAll().stream()
-                    .filter(r -> !r.getReturnDate().isBefore(startDate) && !r.getReturnDate().isAfter(endDate))
-                    .filter(r -> r.getStatus() == ReturnStatus.COMPLETED)
-                    .collect(Collectors.toList());
-            expenses = Collections.emptyList();
-        }
-
-        Map<LocalDate, List<Sale>> salesByDate = sales.stream()
-                .collect(Collectors.groupingBy(s -> s.getSaleDate().toLocalDate()));
-
-        Map<LocalDate, List<SaleReturn>> returnsByDate = returns.stream()
-                .collect(Collectors.groupingBy(r -> r.getReturnDate().toLocalDate()));
-
-        Map<LocalDate, List<Expense>> expensesByDate = expenses.stream()
-                .collect(Collectors.groupingBy(Expense::getExpenseDate));
-
-        // Get all dates in range
-        Set<LocalDate> allDates = new HashSet<>();
-        allDates.addAll(salesByDate.keySet());
-        allDates.addAll(returnsByDate.keySet());
-        allDates.addAll(expensesByDate.keySet());
-
-        return allDates.stream()
-                .map(date -> {
-                    List<Sale> daySales = salesByDate.getOrDefault(date, Collections.emptyList());
-                    List<SaleReturn> dayReturns = returnsByDate.getOrDefault(date, Collections.emptyList());
-                    List<Expense> dayExpenses = expensesByDate.getOrDefault(date, Collections.emptyList());
-
-                    BigDecimal dayGrossRevenue = daySales.stream()
-                            .map(sale -> sale.getTotalAmount().subtract(sale.getTaxAmount() != null ? sale.getTaxAmount() : BigDecimal.ZERO))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    BigDecimal dayReturnsAmount = dayReturns.stream()
-                            .map(SaleReturn::getRefundAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    BigDecimal dayNetRevenue = dayGrossRevenue.subtract(dayReturnsAmount);
-
-                    BigDecimal dayCost = daySales.stream()
-                            .flatMap(sale -> sale.getSaleItems().stream())
-                            .map(item -> item.getProduct().getCostPrice()
-                                    .multiply(BigDecimal.valueOf(item.getQuantity())))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    BigDecimal dayReturnedCost = dayReturns.stream()
-                            .flatMap(ret -> ret.getItems().stream())
-                            .map(item -> item.getProduct().getCostPrice()
-                                    .multiply(BigDecimal.valueOf(item.getQuantityReturned())))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    BigDecimal dayNetCost = dayCost.subtract(dayReturnedCost);
+        LocalDate start = startDate.toLocalDate();
+        LocalDate end = endDate.toLocalDate();
+        List<FactTotals> days = branchId != null
+                ? dailySalesFactRepository.getDailyTotalsForBranch(branchId, start, end)
+                : dailySalesFactRepository.getDailyTotalsAllBranches(start, end);
 
-                    // NEW: Calculate day expenses
-                    BigDecimal dayTotalExpenses = dayExpenses.stream()
-                            .map(Expense::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return days.stream()
+                .map(day -> {
+                    BigDecimal dayNetRevenue = orZero(day.getRevenue()).subtract(orZero(day.getReturnsAmount()));
+                    BigDecimal dayNetCost = orZero(day.getCost()).subtract(orZero(day.getReturnedCost()));
+                    BigDecimal dayNetProfit = dayNetRevenue.subtract(dayNetCost).subtract(orZero(day.getExpenses()));
+                    long daySales = orZero(day.getSaleCount());
 
-                    int itemsSold = daySales.stream()
-                            .flatMap(sale -> sale.getSaleItems().stream())
-                            .mapToInt(SaleItem::getQuantity)
-                            .sum();
-
-                    int itemsReturned = dayReturns.stream()
-                            .flatMap(ret -> ret.getItems().stream())
-                            .mapToInt(SaleReturnItem::getQuantityReturned)
-                            .sum();
-
-                    BigDecimal avgSaleValue = daySales.isEmpty() ? BigDecimal.ZERO :
-                            dayNetRevenue.divide(BigDecimal.valueOf(daySales.size()), 2, RoundingMode.HALF_UP);
-
-                    // NEW: Net profit includes expenses
-                    BigDecimal dayNetProfit = dayNetRevenue.subtract(dayNetCost).subtract(dayTotalExpenses);
+                    BigDecimal avgSaleValue = daySales == 0 ? BigDecimal.ZERO :
+                            dayNetRevenue.divide(BigDecimal.valueOf(daySales), 2, RoundingMode.HALF_UP);
 
                     return SalesTrendDTO.builder()
-                            .date(date)
-                            .numberOfSales((long) daySales.size())
+                            .date(day.getFactDate())
+                            .numberOfSales(daySales)
                             .totalRevenue(dayNetRevenue)
-                            .totalProfit(dayNetProfit) // NOW includes expenses
-                            .itemsSold(itemsSold - itemsReturned)
+                            .totalProfit(dayNetProfit) // includes expenses
+                            .itemsSold((int) (orZero(day.getQuantitySold()) - orZero(day.getQuantityReturned())))
                             .averageSaleValue(avgSaleValue)
                             .build();
                 })
-                .sorted(Comparator.comparing(SalesTrendDTO::getDate))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Get branch performance comparison (accounting for returns AND expenses)
+     * Get branch performance comparison (accounting for returns AND expenses).
+     * Every figure comes from one grouped query, however many branches there are.
      */
     public List<BranchPerformanceDTO> getBranchPerformance(LocalDateTime startDate, LocalDateTime endDate) {
         log.info("Generating branch performance report");
 
+        Map<Long, BranchFigures> figures = loadBranchFigures(startDate, endDate);
+        Map<Long, Long> inventoryRows = inventoryRepository.countRowsPerBranch().stream()
+                .collect(Collectors.toMap(BranchRowCount::getBranchId, BranchRowCount::getRowCount));
+        Map<Long, Long> activeCustomers = customerRepository.countByStatusPerBranch(CustomerStatus.ACTIVE).stream()
+                .collect(Collectors.toMap(BranchCustomerCount::getBranchId, BranchCustomerCount::getCustomerCount));
+
         return branchRepository.findAll().stream()
                 .map(branch -> {
-                    List<Sale> branchSales = saleRepository.findByBranchIdAndSaleDateBetween(
-                            branch.getId(), startDate, endDate);
-
-                    List<SaleReturn> branchReturns = saleReturnRepository.findByBranchIdAndReturnDateBetween(
-                            branch.getId(), startDate, endDate);
-
-                    List<Expense> branchExpenses = expenseRepository.findByBranchAndDateRange(
-                            branch.getId(),
-                            startDate.toLocalDate(),
-                            endDate.toLocalDate()
-                    );
-
-                    BigDecimal grossRevenue = branchSales.stream()
-                            .map(sale -> sale.getTotalAmount().subtract(sale.getTaxAmount() != null ? sale.getTaxAmount() : BigDecimal.ZERO))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    BigDecimal returnsAmount = branchReturns.stream()
-                            .map(SaleReturn::getRefundAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    BigDecimal netRevenue = grossRevenue.subtract(returnsAmount);
-
-                    BigDecimal totalCost = branchSales.stream()
-                            .flatMap(sale -> sale.getSaleItems().stream())
-                            .map(item -> item.getProduct().getCostPrice()
-                                    .multiply(BigDecimal.valueOf(item.getQuantity())))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    BigDecimal returnedCost = branchReturns.stream()
-                            .flatMap(ret -> ret.getItems().stream())
-                            .map(item -> item.getProduct().getCostPrice()
-                                    .multiply(BigDecimal.valueOf(item.getQuantityReturned())))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    BigDecimal netCost = totalCost.subtract(returnedCost);
-
-                    // NEW: Calculate branch expenses
-                    BigDecimal totalExpenses = branchExpenses.stream()
-                            .map(Expense::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    // NEW: True profit includes expenses
-                    BigDecimal totalProfit = netRevenue.subtract(netCost).subtract(totalExpenses);
-
-                    int inventoryCount = inventoryRepository.findByBranchId(branch.getId()).size();
+                    BranchFigures branchFigures = figures.getOrDefault(branch.getId(), BranchFigures.NONE);
+                    BigDecimal netRevenue = branchFigures.netRevenue();
+                    BigDecimal totalProfit = branchFigures.netProfit(); // true profit includes expenses
 
-                    Long activeCustomers = customerRepository.countByBranchAndStatus(
-                            branch.getId(),
-                            com.ims.enums.CustomerStatus.ACTIVE);
-
-                    BigDecimal avgSaleValue = branchSales.isEmpty() ? BigDecimal.ZERO :
-                            netRevenue.divide(BigDecimal.valueOf(branchSales.size()), 2, RoundingMode.HALF_UP);
-
-                    double profitMargin = netRevenue.compareTo(BigDecimal.ZERO) > 0 ?
-                            totalProfit.divide(netRevenue, 4, RoundingMode.HALF_UP)
-                                    .multiply(BigDecimal.valueOf(100)).doubleValue() : 0.0;
+                    BigDecimal avgSaleValue = branchFigures.saleCount() == 0 ? BigDecimal.ZERO :
+                            netRevenue.divide(BigDecimal.valueOf(branchFigures.saleCount()), 2, RoundingMode.HALF_UP);
 
                     return BranchPerformanceDTO.builder()
                             .branchId(branch.getId())
                             .branchName(branch.getName())
-                            .totalSales((long) branchSales.size())
+                            .totalSales(branchFigures.saleCount())
                             .totalRevenue(netRevenue)
-                            .totalProfit(totalProfit) // NOW includes expenses
-                            .totalProducts(inventoryCount)
-                            .activeCustomers(activeCustomers)
+                            .totalProfit(totalProfit)
+                            .totalProducts(inventoryRows.getOrDefault(branch.getId(), 0L).intValue())
+                            .activeCustomers(activeCustomers.getOrDefault(branch.getId(), 0L))
                             .averageSaleValue(avgSaleValue)
-                            .profitMargin(profitMargin)
+                            .profitMargin(percentage(totalProfit, netRevenue))
                             .build();
                 })
                 .sorted(Comparator.comparing(BranchPerformanceDTO::getTotalRevenue).reversed())
@@ -521,64 +314,23 @@ public class AnalyticsService {
     public ProfitAnalysisDTO getProfitAnalysis(LocalDateTime startDate, LocalDateTime endDate) {
         log.info("Generating profit analysis from {} to {}", startDate, endDate);
 
-        List<Sale> sales = saleRepository.findAll().stream()
-                .filter(s -> !s.getSaleDate().isBefore(startDate) && !s.getSaleDate().isAfter(endDate))
-                .filter(s -> s.getStatus() == SaleStatus.COMPLETED)
-                .collect(Collectors.toList());
-
-        List<SaleReturn> returns = saleReturnRepository.findAll().stream()
-                .filter(r -> !r.getReturnDate().isBefore(startDate) && !r.getReturnDate().isAfter(endDate))
-                .filter(r -> r.getStatus() == ReturnStatus.COMPLETED)
-                .collect(Collectors.toList());
-
-        List<Expense> expenses = expenseRepository.findByBranchAndDateRange(
-                null,
-                startDate.toLocalDate(),
-                endDate.toLocalDate()
-        );
-
-        BigDecimal grossRevenue = sales.stream()
-                .map(sale -> sale.getTotalAmount().subtract(sale.getTaxAmount() != null ? sale.getTaxAmount() : BigDecimal.ZERO))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal returnsAmount = returns.stream()
-                .map(SaleReturn::getRefundAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalRevenue = grossRevenue.subtract(returnsAmount);
-
-        BigDecimal totalCost = sales.stream()
-                .flatMap(sale -> sale.getSaleItems().stream())
-                .map(item -> item.getProduct().getCostPrice()
-                        .multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal returnedCost = returns.stream()
-                .flatMap(ret -> ret.getItems().stream())
-                .map(item -> item.getProduct().getCostPrice()
-                        .multiply(BigDecimal.valueOf(item.getQuantityReturned())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal netCost = totalCost.subtract(returnedCost);
+        // The company totals are the sum of the branch rows, so one grouped query serves both
+        Map<Long, BranchFigures> figures = loadBranchFigures(startDate, endDate);
+        BranchFigures company = figures.values().stream().reduce(BranchFigures.NONE, BranchFigures::plus);
 
+        BigDecimal totalRevenue = company.netRevenue();
+        BigDecimal netCost = company.netCost();
         BigDecimal grossProfit = totalRevenue.subtract(netCost);
 
-        // NEW: Operating expenses from expense records
-        BigDecimal operatingExpenses = expenses.stream()
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal netProfit = grossProfit.subtract(operatingExpenses);
+        // Operating expenses from expense records
+        BigDecimal operatingExpenses = company.expenses();
+        BigDecimal netProfit = company.netProfit();
 
-        double grossMargin = totalRevenue.compareTo(BigDecimal.ZERO) > 0 ?
-                grossProfit.divide(totalRevenue, 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100)).doubleValue() : 0.0;
-
-        double netMargin = totalRevenue.compareTo(BigDecimal.ZERO) > 0 ?
-                netProfit.divide(totalRevenue, 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100)).doubleValue() : 0.0;
-
-        List<ProductPerformanceDTO> products = getTopProducts(startDate, endDate, 100, null);
+        // Only the first and last of the ranked products are shown, so only they are named
+        List<ProductPerformanceDTO> products = rankProducts(startDate, endDate, 100, null);
+        if (!products.isEmpty()) {
+            nameProducts(List.of(products.get(0), products.get(products.size() - 1)));
+        }
 
         String mostProfitableProduct = products.isEmpty() ? "N/A" : products.get(0).getProductName();
         BigDecimal mostProfitableProductProfit = products.isEmpty() ? BigDecimal.ZERO :
@@ -589,19 +341,23 @@ public class AnalyticsService {
         BigDecimal leastProfitableProductProfit = products.size() < 2 ? BigDecimal.ZERO :
                 products.get(products.size() - 1).getTotalProfit();
 
-        List<BranchPerformanceDTO> branches = getBranchPerformance(startDate, endDate);
-        String mostProfitableBranch = branches.isEmpty() ? "N/A" : branches.get(0).getBranchName();
-        BigDecimal mostProfitableBranchProfit = branches.isEmpty() ? BigDecimal.ZERO :
-                branches.get(0).getTotalProfit();
+        // Ranked by revenue like the branch performance report
+        Optional<Branch> topBranch = branchRepository.findAll().stream()
+                .max(Comparator.comparing(branch ->
+                        figures.getOrDefault(branch.getId(), BranchFigures.NONE).netRevenue()));
+        String mostProfitableBranch = topBranch.map(Branch::getName).orElse("N/A");
+        BigDecimal mostProfitableBranchProfit = topBranch
+                .map(branch -> figures.getOrDefault(branch.getId(), BranchFigures.NONE).netProfit())
+                .orElse(BigDecimal.ZERO);
 
         return ProfitAnalysisDTO.builder()
                 .totalRevenue(totalRevenue)
                 .totalCost(netCost)
                 .grossProfit(grossProfit)
-                .netProfit(netProfit) // NOW includes operating expenses
-                .grossProfitMargin(grossMargin)
-                .netProfitMargin(netMargin)
-                .operatingExpenses(operatingExpenses) // NOW calculated from expense records
+                .netProfit(netProfit) // includes operating expenses
+                .grossProfitMargin(percentage(grossProfit, totalRevenue))
+                .netProfitMargin(percentage(netProfit, totalRevenue))
+                .operatingExpenses(operatingExpenses)
                 .mostProfitableProduct(mostProfitableProduct)
                 .mostProfitableProductProfit(mostProfitableProductProfit)
                 .leastProfitableProduct(leastProfitableProduct)
@@ -611,15 +367,50 @@ public class AnalyticsService {
                 .build();
     }
 
+    private Map<Long, BranchFigures> loadBranchFigures(LocalDateTime startDate, LocalDateTime endDate) {
+        return dailySalesFactRepository.getBranchTotals(startDate.toLocalDate(), endDate.toLocalDate()).stream()
+                .collect(Collectors.toMap(FactTotals::getBranchId, BranchFigures::of));
+    }
+
+    /**
+     * Sale count, revenue and cost net of returns, and expenses, of one branch or several.
+     */
+    private record BranchFigures(long saleCount, BigDecimal netRevenue, BigDecimal netCost, BigDecimal expenses) {
+
+        static final BranchFigures NONE = new BranchFigures(0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+
+        static BranchFigures of(FactTotals totals) {
+            return new BranchFigures(
+                    orZero(totals.getSaleCount()),
+                    orZero(totals.getRevenue()).subtract(orZero(totals.getReturnsAmount())),
+                    orZero(totals.getCost()).subtract(orZero(totals.getReturnedCost())),
+                    orZero(totals.getExpenses()));
+        }
+
+        BranchFigures plus(BranchFigures other) {
+            return new BranchFigures(saleCount + other.saleCount, netRevenue.add(other.netRevenue),
+                    netCost.add(other.netCost), expenses.add(other.expenses));
+        }
+
+        BigDecimal netProfit() {
+            return netRevenue.subtract(netCost).subtract(expenses);
+        }
+    }
+
     /**
      * Get customer insights
      */
     public List<CustomerInsightDTO> getCustomerInsights(int limit, Long branchId) {
         log.info("Getting customer insights (branchId={})", branchId);
 
+        if (limit <= 0) {
+            return List.of();
+        }
+        // Top customers by lifetime value, ranked and cut by the database
+        PageRequest top = PageRequest.of(0, limit);
         List<Customer> customers = branchId != null
-                ? customerRepository.findByBranchId(branchId, org.springframework.data.domain.Pageable.unpaged()).getContent()
-                : customerRepository.findAll();
+                ? customerRepository.findTopCustomersByBranch(branchId, top)
+                : customerRepository.findTopCustomers(top);
 
         return customers.stream()
                 .map(customer -> {
@@ -643,8 +434,19 @@ public class AnalyticsService {
                             .daysSinceLastPurchase(daysSinceLastPurchase)
                             .build();
                 })
-                .sorted(Comparator.comparing(CustomerInsightDTO::getLifetimeValue).reversed())
-                .limit(limit)
                 .collect(Collectors.toList());
     }
+
+    private static double percentage(BigDecimal part, BigDecimal whole) {
+        return whole.compareTo(BigDecimal.ZERO) > 0 ?
+                part.divide(whole, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)).doubleValue() : 0.0;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
 }
@@ -5,11 +5,10 @@ import com.ims.entity.AuditLog;
 import com.ims.entity.User;
 import com.ims.repository.AuditLogRepository;
 import com.ims.repository.UserRepository;
+import com.ims.security.CurrentUserContext;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +25,7 @@ public class AuditLogService {
 
     private final AuditLogRepository auditLogRepository;
     private final UserRepository userRepository;
+    private final CurrentUserContext currentUserContext;
     private final ObjectMapper objectMapper;
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -33,6 +33,17 @@ public class AuditLogService {
         saveLog(entityType, entityId, "CREATE", null, toJson(newEntity));
     }
 
+    /**
+     * Create entry for work done outside the originating request (e.g. outbox processing),
+     * where the acting user and client address were captured up front. Written in the
+     * caller's transaction, so the entry commits or rolls back with that work.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void logCreate(String entityType, Long entityId, Object newEntity, Long userId, String ipAddress) {
+        User user = userId != null ? userRepository.getReferenceById(userId) : null;
+        saveLog(entityType, entityId, "CREATE", null, toJson(newEntity), user, ipAddress);
+    }
+
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void logUpdate(String entityType, Long entityId, Object oldValues, Object newValues) {
         saveLog(entityType, entityId, "UPDATE", toJson(oldValues), toJson(newValues));
@@ -49,10 +60,12 @@ public class AuditLogService {
     }
 
     private void saveLog(String entityType, Long entityId, String action, String oldValues, String newValues) {
-        try {
-            User currentUser = getCurrentUser();
-            String ipAddress = getClientIpAddress();
+        saveLog(entityType, entityId, action, oldValues, newValues, getCurrentUser(), getClientIpAddress());
+    }
 
+    private void saveLog(String entityType, Long entityId, String action, String oldValues, String newValues,
+                         User currentUser, String ipAddress) {
+        try {
             AuditLog auditLog = AuditLog.builder()
                     .entityType(entityType)
                     .entityId(entityId)
@@ -66,7 +79,7 @@ public class AuditLogService {
 
             auditLogRepository.save(auditLog);
             log.debug("Audit log: {} {} {} by {}", action, entityType, entityId,
-                    currentUser != null ? currentUser.getUsername() : "SYSTEM");
+                    currentUser != null ? "user " + currentUser.getId() : "SYSTEM");
         } catch (Exception e) {
             log.error("Failed to save audit log for {} {} {}: {}", action, entityType, entityId, e.getMessage());
         }
@@ -74,9 +87,9 @@ public class AuditLogService {
 
     private User getCurrentUser() {
         try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getName())) {
-                return userRepository.findByUsername(auth.getName()).orElse(null);
+            // Only the key is written, so a reference will do
+            if (currentUserContext.getUsername().isPresent()) {
+                return userRepository.getReferenceById(currentUserContext.getUserId());
             }
         } catch (Exception e) {
             log.debug("Could not resolve current user for audit log");
@@ -84,7 +97,7 @@ public class AuditLogService {
         return null;
     }
 
-    private String getClientIpAddress() {
+    public String getClientIpAddress() {
         try {
             ServletRequestAttributes attrs = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
             if (attrs != null) {
@@ -4,12 +4,13 @@ import com.ims.dto.request.LoginRequest;
 import com.ims.dto.response.AuthResponse;
 import com.ims.entity.User;
 import com.ims.repository.UserRepository;
+import com.ims.security.PrincipalCache;
 import com.ims.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,24 +19,24 @@ import org.springframework.transaction.annotation.Transactional;
 public class AuthService {
 
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
 
     @Transactional(readOnly = true)
     public AuthResponse login(LoginRequest request) {
-        authenticationManager.authenticate(
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getUsername(),
                         request.getPassword()
                 )
         );
-
-        final UserDetails userDetails = userDetailsService.loadUserByUsername(request.getUsername());
-        final String accessToken = jwtUtil.generateAccessToken(userDetails);
+        // The requests that follow with the new token find their principal already cached
+        principalCache.put((UserDetails) authentication.getPrincipal());
 
         User user = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        final String accessToken = jwtUtil.generateAccessToken(user);
 
         return AuthResponse.builder()
                 .accessToken(accessToken)
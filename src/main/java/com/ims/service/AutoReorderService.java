@@ -25,6 +25,7 @@ public class AutoReorderService {
     private final BranchRepository branchRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final DocumentNumberService documentNumberService;
 
     @Scheduled(cron = "0 0 6 * * ?")
     @Transactional
@@ -66,7 +67,7 @@ public class AutoReorderService {
             if (reorderQty <= 0) reorderQty = product.getReorderLevel();
 
             PurchaseOrder po = PurchaseOrder.builder()
-                    .poNumber(generateAutoPoNumber())
+                    .poNumber(documentNumberService.nextAutoPoNumber())
                     .supplier(supplier)
                     .branch(branch)
                     .orderedBy(systemUser)
@@ -104,9 +105,4 @@ public class AutoReorderService {
 
         log.info("Auto-reorder check complete. {} draft POs created.", poCreated);
     }
-
-    private String generateAutoPoNumber() {
-        long count = purchaseOrderRepository.count() + 1;
-        return String.format("AUTO-PO-%06d", count);
-    }
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ public class BulkImportService {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final SyncService syncService;
 
     @Transactional
     public Map<String, Object> importProductsFromExcel(MultipartFile file) {
@@ -47,7 +48,9 @@ public class BulkImportService {
                 try {
                     Product product = parseProductRow(row);
                     if (product != null) {
-                        imported.add(productRepository.save(product));
+                        Product saved = productRepository.save(product);
+                        syncService.productChanged(saved.getId(), false);
+                        imported.add(saved);
                     }
                 } catch (Exception e) {
                     errors.add("Row " + rowNum + ": " + e.getMessage());
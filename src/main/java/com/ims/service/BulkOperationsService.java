@@ -19,6 +19,7 @@ import java.util.*;
 public class BulkOperationsService {
 
     private final ProductRepository productRepository;
+    private final SyncService syncService;
 
     public Map<String, Object> bulkUpdatePrices(List<Map<String, Object>> updates) {
         List<String> errors = new ArrayList<>();
@@ -38,6 +39,7 @@ public class BulkOperationsService {
                 if (newUnitPrice != null) product.setUnitPrice(newUnitPrice);
                 if (newCostPrice != null) product.setCostPrice(newCostPrice);
                 productRepository.save(product);
+                syncService.productChanged(productId, false);
                 successCount++;
             } catch (Exception e) {
                 errors.add("Product " + update.get("productId") + ": " + e.getMessage());
@@ -57,6 +59,7 @@ public class BulkOperationsService {
                         .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
                 product.setIsActive(isActive);
                 productRepository.save(product);
+                syncService.productChanged(productId, false);
                 successCount++;
             } catch (Exception e) {
                 errors.add("Product " + productId + ": " + e.getMessage());
@@ -76,6 +79,7 @@ public class BulkOperationsService {
                         .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
                 product.setIsDeleted(true);
                 productRepository.save(product);
+                syncService.productChanged(productId, true);
                 successCount++;
             } catch (Exception e) {
                 errors.add("Product " + productId + ": " + e.getMessage());
@@ -98,6 +102,7 @@ public class BulkOperationsService {
                     product.setUnitPrice(product.getUnitPrice().multiply(multiplier).setScale(2, RoundingMode.HALF_UP));
                 }
                 productRepository.save(product);
+                syncService.productChanged(productId, false);
                 successCount++;
             } catch (Exception e) {
                 errors.add("Product " + productId + ": " + e.getMessage());
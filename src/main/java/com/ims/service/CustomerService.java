@@ -12,6 +12,7 @@ import com.ims.enums.CustomerType;
 import com.ims.enums.NotificationPriority;
 import com.ims.enums.NotificationType;
 import com.ims.enums.Role;
+import com.ims.enums.SearchEntityType;
 import com.ims.exception.ResourceNotFoundException;
 import com.ims.repository.BranchRepository;
 import com.ims.repository.CustomerRepository;
@@ -42,6 +43,8 @@ public class CustomerService {
     private final NotificationService notificationService;
     private final UserRepository userRepository;
     private final AuditLogService auditLogService;
+    private final SyncService syncService;
+    private final SearchIndexService searchIndexService;
 
     public CustomerDTO createCustomer(CustomerRequest request) {
         log.info("Creating new customer: {}", request.getName());
@@ -82,6 +85,7 @@ public class CustomerService {
                 .build();
 
         Customer saved = customerRepository.save(customer);
+        syncService.customerChanged(saved, false);
         log.info("Customer created successfully: {}", saved.getCustomerId());
 
         auditLogService.logCreate("Customer", saved.getId(),
@@ -106,7 +110,11 @@ public class CustomerService {
 
     @Transactional(readOnly = true)
     public Page<CustomerDTO> searchCustomers(String query, Pageable pageable) {
-        return customerRepository.searchCustomers(query, pageable).map(this::mapToDTO);
+        if (!searchIndexService.isReady()) {
+            return customerRepository.searchCustomers(query, pageable).map(this::mapToDTO);
+        }
+        return searchIndexService.page(searchIndexService.search(SearchEntityType.CUSTOMER, query, null, false),
+                pageable, customerRepository::findAllById, Customer::getId).map(this::mapToDTO);
     }
 
     @Transactional(readOnly = true)
@@ -121,7 +129,11 @@ public class CustomerService {
 
     @Transactional(readOnly = true)
     public Page<CustomerDTO> searchCustomersByBranch(Long branchId, String query, Pageable pageable) {
-        return customerRepository.searchCustomersByBranch(branchId, query, pageable).map(this::mapToDTO);
+        if (!searchIndexService.isReady()) {
+            return customerRepository.searchCustomersByBranch(branchId, query, pageable).map(this::mapToDTO);
+        }
+        return searchIndexService.page(searchIndexService.search(SearchEntityType.CUSTOMER, query, branchId, false),
+                pageable, customerRepository::findAllById, Customer::getId).map(this::mapToDTO);
     }
 
     @Transactional(readOnly = true)
@@ -176,10 +188,13 @@ public class CustomerService {
         if (!customer.getBranch().getId().equals(request.getBranchId())) {
             Branch branch = branchRepository.findById(request.getBranchId())
                     .orElseThrow(() -> new ResourceNotFoundException("Branch not found"));
+            // Tills of the old branch drop the customer
+            syncService.customerChanged(customer, true);
             customer.setBranch(branch);
         }
 
         Customer updated = customerRepository.save(customer);
+        syncService.customerChanged(updated, false);
         log.info("Customer updated successfully: {}", updated.getCustomerId());
 
         auditLogService.logUpdate("Customer", updated.getId(),
@@ -195,6 +210,7 @@ public class CustomerService {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
 
+        syncService.customerChanged(customer, true);
         customerRepository.delete(customer);
         log.info("Customer deleted successfully: {}", customer.getCustomerId());
 
@@ -207,6 +223,7 @@ public class CustomerService {
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
         customer.setStatus(CustomerStatus.ACTIVE);
         customerRepository.save(customer);
+        syncService.customerChanged(customer, false);
     }
 
     public void suspendCustomer(Long id) {
@@ -214,6 +231,7 @@ public class CustomerService {
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
         customer.setStatus(CustomerStatus.SUSPENDED);
         customerRepository.save(customer);
+        syncService.customerChanged(customer, false);
     }
 
     public void blacklistCustomer(Long id) {
@@ -221,6 +239,7 @@ public class CustomerService {
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
         customer.setStatus(CustomerStatus.BLACKLISTED);
         customerRepository.save(customer);
+        syncService.customerChanged(customer, false);
     }
 
     // Check credit limits when customer makes purchase
@@ -0,0 +1,295 @@
+package com.ims.service;
+
+import com.ims.entity.DailySalesFact;
+import com.ims.entity.Expense;
+import com.ims.entity.OutboxEvent;
+import com.ims.entity.Product;
+import com.ims.entity.Sale;
+import com.ims.entity.SaleItem;
+import com.ims.entity.SaleReturn;
+import com.ims.entity.SaleReturnItem;
+import com.ims.enums.PaymentMethod;
+import com.ims.exception.ResourceNotFoundException;
+import com.ims.repository.DailySalesFactRepository;
+import com.ims.repository.ExpenseRepository;
+import com.ims.repository.SaleRepository;
+import com.ims.repository.SaleReturnRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the daily_sales_fact rollup. Sales, completed returns and expenses are folded in
+ * by the outbox worker after they commit, in the same transaction that marks their outbox
+ * event processed, so each one is counted once. {@link #rebuild} recomputes a date range from
+ * the raw records, for backfills and repairs.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DailySalesFactService {
+
+    private final DailySalesFactRepository dailySalesFactRepository;
+    private final SaleRepository saleRepository;
+    private final SaleReturnRepository saleReturnRepository;
+    private final ExpenseRepository expenseRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSale(Long saleId) {
+        Sale sale = saleRepository.findByIdWithItems(saleId)
+                .orElseThrow(() -> new ResourceNotFoundException("Sale", "id", saleId));
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        addSale(deltas, sale, 1);
+        apply(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordReturn(Long returnId) {
+        SaleReturn saleReturn = saleReturnRepository.findById(returnId)
+                .orElseThrow(() -> new ResourceNotFoundException("SaleReturn", "id", returnId));
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        addReturn(deltas, saleReturn, 1);
+        apply(deltas);
+    }
+
+    /**
+     * Add a recorded expense, or take a deleted one back out.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordExpense(Long expenseId, boolean deleted) {
+        Expense expense = expenseRepository.findById(expenseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Expense", "id", expenseId));
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        addExpense(deltas, expense, deleted ? -1 : 1);
+        apply(deltas);
+    }
+
+    /**
+     * Recompute the facts of every day from start to end (inclusive) from the raw records.
+     * Sales, returns or expenses committed in that range while this runs may be counted twice
+     * or missed, so run it when the range is quiet.
+     */
+    @Transactional
+    public void rebuild(LocalDate start, LocalDate end) {
+        int deleted = dailySalesFactRepository.deleteByFactDateBetween(start, end);
+        log.info("Rebuilding daily sales facts from {} to {} ({} rows removed)", start, end, deleted);
+        rebuildDays(start, end);
+    }
+
+    /**
+     * Recompute the facts of one day in a transaction of its own, for backfills that
+     * commit as they go.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void rebuildDay(LocalDate day) {
+        dailySalesFactRepository.deleteByFactDateBetween(day, day);
+        rebuildDays(day, day);
+    }
+
+    /**
+     * Take back out of the facts what the given outbox events will add once processed.
+     * For a backfill that has already counted the records of events still outstanding.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void subtractOutstanding(List<OutboxEvent> events) {
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            Long id = event.getAggregateId();
+            switch (event.getEventType()) {
+                case SALE_COMMITTED -> saleRepository.findByIdWithItems(id)
+                        .ifPresent(sale -> addSale(deltas, sale, -1));
+                case RETURN_COMPLETED -> saleReturnRepository.findById(id)
+                        .ifPresent(saleReturn -> addReturn(deltas, saleReturn, -1));
+                case EXPENSE_RECORDED -> expenseRepository.findById(id)
+                        .ifPresent(expense -> addExpense(deltas, expense, -1));
+                case EXPENSE_DELETED -> expenseRepository.findById(id)
+                        .ifPresent(expense -> addExpense(deltas, expense, 1));
+            }
+        }
+        apply(deltas);
+    }
+
+    private void rebuildDays(LocalDate start, LocalDate end) {
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            LocalDateTime dayStart = day.atStartOfDay();
+            LocalDateTime dayEnd = day.atTime(LocalTime.MAX);
+            Map<String, Delta> deltas = new LinkedHashMap<>();
+
+            for (Sale sale : saleRepository.findBySaleDateBetweenWithItems(dayStart, dayEnd)) {
+                addSale(deltas, sale, 1);
+            }
+            for (SaleReturn saleReturn : saleReturnRepository.findCompletedWithItems(dayStart, dayEnd)) {
+                addReturn(deltas, saleReturn, 1);
+            }
+            for (Expense expense : expenseRepository.findByDateRange(day, day)) {
+                addExpense(deltas, expense, 1);
+            }
+
+            apply(deltas);
+            // One day of sales at a time in the persistence context
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+
+    private void addSale(Map<String, Delta> deltas, Sale sale, int sign) {
+        List<SaleItem> items = sale.getSaleItems();
+        if (items.isEmpty()) {
+            return;
+        }
+        LocalDate date = sale.getSaleDate().toLocalDate();
+        Long branchId = sale.getBranch().getId();
+
+        BigDecimal subtotal = items.stream()
+                .map(SaleItem::getLineTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal discount = orZero(sale.getDiscountAmount());
+        BigDecimal revenueLeft = subtotal.subtract(discount);
+        BigDecimal taxLeft = orZero(sale.getTaxAmount());
+        BigDecimal saleRevenue = revenueLeft;
+        BigDecimal saleTax = taxLeft;
+
+        for (int i = 0; i < items.size(); i++) {
+            SaleItem item = items.get(i);
+            boolean last = i == items.size() - 1;
+
+            // Spread the sale's discount and tax by line value; the last line takes the rounding
+            BigDecimal revenue = last ? revenueLeft : share(saleRevenue, item.getLineTotal(), subtotal);
+            BigDecimal tax = last ? taxLeft : share(saleTax, item.getLineTotal(), subtotal);
+            revenueLeft = revenueLeft.subtract(revenue);
+            taxLeft = taxLeft.subtract(tax);
+
+            Delta delta = delta(deltas, date, branchId, item.getProduct().getId(), sale.getPaymentMethod());
+            BigDecimal factor = BigDecimal.valueOf(sign);
+            delta.saleCount += i == 0 ? sign : 0;
+            delta.lineCount += sign;
+            delta.quantitySold += (long) sign * item.getQuantity();
+            delta.revenue = delta.revenue.add(revenue.multiply(factor));
+            delta.cost = delta.cost.add(costOf(item.getProduct(), item.getQuantity()).multiply(factor));
+            delta.tax = delta.tax.add(tax.multiply(factor));
+        }
+    }
+
+    private void addReturn(Map<String, Delta> deltas, SaleReturn saleReturn, int sign) {
+        LocalDate date = saleReturn.getReturnDate().toLocalDate();
+        Long branchId = saleReturn.getBranch().getId();
+        PaymentMethod paymentMethod = saleReturn.getSale().getPaymentMethod();
+        BigDecimal factor = BigDecimal.valueOf(sign);
+
+        for (SaleReturnItem item : saleReturn.getItems()) {
+            Delta delta = delta(deltas, date, branchId, item.getProduct().getId(), paymentMethod);
+            delta.quantityReturned += (long) sign * item.getQuantityReturned();
+            delta.returnsAmount = delta.returnsAmount.add(orZero(item.getRefundAmount()).multiply(factor));
+            delta.returnedCost = delta.returnedCost.add(
+                    costOf(item.getProduct(), item.getQuantityReturned()).multiply(factor));
+        }
+    }
+
+    private void addExpense(Map<String, Delta> deltas, Expense expense, int sign) {
+        Delta delta = delta(deltas, expense.getExpenseDate(), expense.getBranch().getId(), null, null);
+        delta.expenses = delta.expenses.add(expense.getAmount().multiply(BigDecimal.valueOf(sign)));
+    }
+
+    /**
+     * Add each delta to its fact row, creating the row the first time its key is seen.
+     * Two workers creating the same row at once fail on the unique row key; the outbox
+     * retries the loser, which then finds the row.
+     */
+    private void apply(Map<String, Delta> deltas) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Delta delta : deltas.values()) {
+            int updated = dailySalesFactRepository.increment(delta.rowKey,
+                    delta.saleCount, delta.lineCount, delta.quantitySold,
+                    delta.revenue, delta.cost, delta.tax,
+                    delta.quantityReturned, delta.returnsAmount, delta.returnedCost,
+                    delta.expenses, now);
+            if (updated == 0) {
+                dailySalesFactRepository.save(DailySalesFact.builder()
+                        .rowKey(delta.rowKey)
+                        .factDate(delta.date)
+                        .branchId(delta.branchId)
+                        .productId(delta.productId)
+                        .paymentMethod(delta.paymentMethod)
+                        .saleCount(delta.saleCount)
+                        .lineCount(delta.lineCount)
+                        .quantitySold(delta.quantitySold)
+                        .revenue(delta.revenue)
+                        .cost(delta.cost)
+                        .tax(delta.tax)
+                        .quantityReturned(delta.quantityReturned)
+                        .returnsAmount(delta.returnsAmount)
+                        .returnedCost(delta.returnedCost)
+                        .expenses(delta.expenses)
+                        .updatedAt(now)
+                        .build());
+            }
+        }
+    }
+
+    private static Delta delta(Map<String, Delta> deltas, LocalDate date, Long branchId,
+                               Long productId, PaymentMethod paymentMethod) {
+        String rowKey = date + "|" + branchId + "|" + (productId != null ? productId : "-") +
+                "|" + (paymentMethod != null ? paymentMethod.name() : "-");
+        return deltas.computeIfAbsent(rowKey, key -> new Delta(key, date, branchId, productId, paymentMethod));
+    }
+
+    private static BigDecimal share(BigDecimal amount, BigDecimal lineTotal, BigDecimal subtotal) {
+        if (subtotal.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return amount.multiply(lineTotal).divide(subtotal, 2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal costOf(Product product, int quantity) {
+        return orZero(product.getCostPrice()).multiply(BigDecimal.valueOf(quantity));
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    /**
+     * Changes to one fact row collected from one or more records.
+     */
+    private static final class Delta {
+        private final String rowKey;
+        private final LocalDate date;
+        private final Long branchId;
+        private final Long productId;
+        private final PaymentMethod paymentMethod;
+        private long saleCount;
+        private long lineCount;
+        private long quantitySold;
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private BigDecimal cost = BigDecimal.ZERO;
+        private BigDecimal tax = BigDecimal.ZERO;
+        private long quantityReturned;
+        private BigDecimal returnsAmount = BigDecimal.ZERO;
+        private BigDecimal returnedCost = BigDecimal.ZERO;
+        private BigDecimal expenses = BigDecimal.ZERO;
+
+        private Delta(String rowKey, LocalDate date, Long branchId, Long productId, PaymentMethod paymentMethod) {
+            this.rowKey = rowKey;
+            this.date = date;
+            this.branchId = branchId;
+            this.productId = productId;
+            this.paymentMethod = paymentMethod;
+        }
+    }
+}
@@ -20,6 +20,9 @@ public class DashboardService {
     private final DebtRepository debtRepository;
     private final BranchInventoryRepository branchInventoryRepository;
 
+    /**
+     * Load the summary from the database. Dashboards are served from DashboardSnapshotService.
+     */
     @Transactional(readOnly = true)
     public DashboardSummary getDashboardSummary(Long branchId) {
         LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0);
@@ -50,7 +53,7 @@ public class DashboardService {
 
             totalSales = saleRepository.getSalesCountSince(branchId, startOfMonth);
             stockValue = branchInventoryRepository.getTotalStockValueForBranch(branchId);
-            lowStockCount = branchInventoryRepository.findLowStockItems(branchId).size();
+            lowStockCount = (int) branchInventoryRepository.countLowStockItems(branchId);
         } else {
             // All branches aggregated data
             BigDecimal gross = saleRepository.getTotalSalesAllBranches(startOfMonth, now);
@@ -69,7 +72,7 @@ public class DashboardService {
 
             totalSales = saleRepository.getSalesCountSinceAllBranches(startOfMonth);
             stockValue = branchInventoryRepository.getTotalStockValue();
-            lowStockCount = branchInventoryRepository.findAllLowStockItems().size();
+            lowStockCount = (int) branchInventoryRepository.countAllLowStockItems();
         }
 
         Long returnsCount;
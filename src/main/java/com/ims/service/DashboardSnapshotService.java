@@ -0,0 +1,137 @@
+package com.ims.service;
+
+import com.ims.dto.response.DashboardSummary;
+import com.ims.util.TransactionScopedBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dashboard summaries held in memory, one per branch and one for all branches, so polling
+ * dashboards do not rerun the summary queries. Stock, return and debt changes mark the
+ * snapshots they touch stale once their transaction commits, and the next poll reloads a
+ * stale snapshot, at most once per min-refresh interval. Every snapshot is also marked stale
+ * on a fixed schedule, to reconcile changes that raise no event (price edits, a new month).
+ * Dashboards with an open event stream are told when a change marks their branch stale.
+ *
+ * Each snapshot carries an ETag that only changes when its figures do.
+ */
+@Service
+@Slf4j
+public class DashboardSnapshotService {
+
+    /**
+     * A summary and the ETag it is served under.
+     */
+    public record Snapshot(DashboardSummary summary, String etag) {
+    }
+
+    private static final String ALL_BRANCHES = "all";
+
+    private final DashboardService dashboardService;
+    private final EventStreamService eventStreamService;
+    private final long minRefreshMillis;
+
+    // Keeps ETags handed out before a restart from matching the versions of this run
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public DashboardSnapshotService(DashboardService dashboardService,
+                                    EventStreamService eventStreamService,
+                                    @Value("${app.dashboard.min-refresh-ms:500}") long minRefreshMillis) {
+        this.dashboardService = dashboardService;
+        this.eventStreamService = eventStreamService;
+        this.minRefreshMillis = minRefreshMillis;
+    }
+
+    /**
+     * The summary of one branch, or of all branches when branchId is null.
+     */
+    public Snapshot getSnapshot(Long branchId) {
+        Entry entry = entries.computeIfAbsent(key(branchId), Entry::new);
+        if (!entry.isDue(minRefreshMillis)) {
+            return entry.snapshot;
+        }
+        // One poller reloads; the others wait for its result instead of running the queries too
+        synchronized (entry) {
+            if (!entry.isDue(minRefreshMillis)) {
+                return entry.snapshot;
+            }
+            // Cleared before loading, so a change that commits meanwhile marks it stale again
+            entry.stale = false;
+            DashboardSummary summary;
+            try {
+                summary = dashboardService.getDashboardSummary(branchId);
+            } catch (RuntimeException e) {
+                entry.stale = true;
+                throw e;
+            }
+            if (entry.snapshot == null || !summary.equals(entry.snapshot.summary())) {
+                entry.version++;
+                log.debug("Dashboard snapshot {} changed, now version {}", entry.key, entry.version);
+            }
+            entry.loadedAt = System.currentTimeMillis();
+            entry.snapshot = new Snapshot(summary, epoch + "-" + entry.key + "-" + entry.version);
+            return entry.snapshot;
+        }
+    }
+
+    /**
+     * Mark the snapshots of a branch and of all branches stale once the current transaction commits.
+     */
+    public void markStaleAfterCommit(Long branchId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markStale(branchId);
+            return;
+        }
+        pendingBranches().add(branchId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.reconcile-interval-ms:30000}", initialDelay = 30000)
+    public void reconcile() {
+        entries.values().forEach(entry -> entry.stale = true);
+    }
+
+    private void markStale(Long branchId) {
+        Entry entry = entries.get(key(branchId));
+        if (entry != null) {
+            entry.stale = true;
+        }
+        Entry all = entries.get(ALL_BRANCHES);
+        if (all != null) {
+            all.stale = true;
+        }
+        eventStreamService.publishDashboardChange(branchId);
+    }
+
+    private Set<Long> pendingBranches() {
+        return TransactionScopedBuffer.get(this, HashSet::new, branchIds -> branchIds.forEach(this::markStale));
+    }
+
+    private static String key(Long branchId) {
+        return branchId != null ? "branch" + branchId : ALL_BRANCHES;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private volatile Snapshot snapshot;
+        private volatile boolean stale = true;
+        private volatile long loadedAt;
+        private long version;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        private boolean isDue(long minRefreshMillis) {
+            return snapshot == null || (stale && System.currentTimeMillis() - loadedAt >= minRefreshMillis);
+        }
+    }
+}
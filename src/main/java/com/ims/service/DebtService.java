@@ -9,11 +9,11 @@ import com.ims.enums.Role;
 import com.ims.exception.BadRequestException;
 import com.ims.exception.ResourceNotFoundException;
 import com.ims.repository.*;
+import com.ims.security.CurrentUserContext;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -34,7 +34,10 @@ public class DebtService {
     private final CreditAccountRepository creditAccountRepository;
     private final CustomerRepository customerRepository;
     private final UserRepository userRepository;
+    private final CurrentUserContext currentUserContext;
     private final NotificationService notificationService;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final SyncService syncService;
 
     @Transactional(readOnly = true)
     public Page<Debt> getAllDebts(Pageable pageable) {
@@ -65,9 +68,7 @@ public class DebtService {
             throw new BadRequestException("Payment amount exceeds balance due");
         }
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User receivedBy = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
+        User receivedBy = currentUserContext.getUser();
 
         DebtPayment payment = DebtPayment.builder()
                 .debt(debt)
@@ -90,6 +91,7 @@ public class DebtService {
         }
 
         debtRepository.save(debt);
+        dashboardSnapshotService.markStaleAfterCommit(debt.getSale().getBranch().getId());
 
         // Update credit account
         CreditAccount creditAccount = debt.getCreditAccount();
@@ -104,6 +106,7 @@ public class DebtService {
         if (customer != null) {
             customer.reduceDebt(request.getAmount());
             customerRepository.save(customer);
+            syncService.customerChanged(customer, false);
         }
 
         // Notify managers that payment was received
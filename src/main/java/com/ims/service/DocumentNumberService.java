@@ -0,0 +1,96 @@
+package com.ims.service;
+
+import com.ims.entity.Branch;
+import com.ims.repository.PurchaseOrderRepository;
+import com.ims.repository.SaleRepository;
+import com.ims.repository.SaleReturnRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out invoice, return, transfer and auto-PO numbers from per-series counters.
+ * Each series reserves a block of numbers from the document_sequences table and serves
+ * it from memory, so a number costs no database round trip until the block runs out.
+ * Numbers left in a block when the application stops are skipped; use a block size
+ * of 1 where a dense series matters more than throughput.
+ */
+@Service
+@Slf4j
+public class DocumentNumberService {
+
+    private final DocumentSequenceService documentSequenceService;
+    private final SaleRepository saleRepository;
+    private final SaleReturnRepository saleReturnRepository;
+    private final PurchaseOrderRepository purchaseOrderRepository;
+    private final int blockSize;
+
+    private final Map<String, SequenceBlock> blocks = new ConcurrentHashMap<>();
+
+    public DocumentNumberService(DocumentSequenceService documentSequenceService,
+                                 SaleRepository saleRepository,
+                                 SaleReturnRepository saleReturnRepository,
+                                 PurchaseOrderRepository purchaseOrderRepository,
+                                 @Value("${app.sequences.block-size:10}") int blockSize) {
+        this.documentSequenceService = documentSequenceService;
+        this.saleRepository = saleRepository;
+        this.saleReturnRepository = saleReturnRepository;
+        this.purchaseOrderRepository = purchaseOrderRepository;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public String nextInvoiceNumber(Branch branch) {
+        int year = LocalDate.now().getYear();
+        long sequence = next("INV-" + branch.getId() + "-" + year,
+                () -> saleRepository.getYearlySalesCount(branch.getId(),
+                        LocalDate.of(year, 1, 1).atStartOfDay()));
+        return String.format("%s-INV-%d-%05d", branch.getCode(), year, sequence);
+    }
+
+    public String nextReturnNumber() {
+        return String.format("RTN-%05d", next("RTN", saleReturnRepository::count));
+    }
+
+    public String nextTransferNumber(Branch source, Branch destination) {
+        int year = LocalDate.now().getYear();
+        long sequence = next("TRF-" + source.getId() + "-" + year, () -> 0L);
+        return String.format("TRF-%s-%s-%d-%05d", source.getCode(), destination.getCode(), year, sequence);
+    }
+
+    public String nextAutoPoNumber() {
+        return String.format("AUTO-PO-%06d", next("AUTO-PO", purchaseOrderRepository::count));
+    }
+
+    private long next(String key, LongSupplier lastIssued) {
+        SequenceBlock block = blocks.computeIfAbsent(key, k -> new SequenceBlock());
+        synchronized (block) {
+            if (block.next >= block.end) {
+                long start = reserve(key, lastIssued);
+                block.next = start;
+                block.end = start + blockSize;
+            }
+            return block.next++;
+        }
+    }
+
+    private long reserve(String key, LongSupplier lastIssued) {
+        try {
+            return documentSequenceService.reserveBlock(key, blockSize, lastIssued);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the series first; its row is there now
+            log.debug("Sequence {} initialised concurrently, retrying reservation", key);
+            return documentSequenceService.reserveBlock(key, blockSize, lastIssued);
+        }
+    }
+
+    private static final class SequenceBlock {
+        private long next;
+        private long end;
+    }
+}
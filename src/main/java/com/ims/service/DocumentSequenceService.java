@@ -0,0 +1,38 @@
+package com.ims.service;
+
+import com.ims.entity.DocumentSequence;
+import com.ims.repository.DocumentSequenceRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.LongSupplier;
+
+@Service
+@RequiredArgsConstructor
+public class DocumentSequenceService {
+
+    private final DocumentSequenceRepository documentSequenceRepository;
+
+    /**
+     * Reserve the next blockSize numbers of a series and return the first one.
+     * Runs in its own short transaction so the counter row lock is released
+     * immediately instead of being held until the caller's business transaction commits.
+     * The first reservation of a series starts after the value returned by lastIssued.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long reserveBlock(String key, int blockSize, LongSupplier lastIssued) {
+        if (documentSequenceRepository.advance(key, blockSize) > 0) {
+            long end = documentSequenceRepository.findNextValue(key).orElseThrow();
+            return end - blockSize;
+        }
+
+        long start = lastIssued.getAsLong() + 1;
+        documentSequenceRepository.saveAndFlush(DocumentSequence.builder()
+                .sequenceKey(key)
+                .nextValue(start + blockSize)
+                .build());
+        return start;
+    }
+}
@@ -0,0 +1,278 @@
+package com.ims.service;
+
+import com.ims.dto.event.DashboardChangeEvent;
+import com.ims.dto.event.StockChangeEvent;
+import com.ims.dto.notification.NotificationDTO;
+import com.ims.dto.sync.SyncInventoryDTO;
+import com.ims.repository.BranchInventoryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Server-sent event streams that push changes to clients instead of having them poll: a user's
+ * new notifications, the stock levels of a branch changed by a committed transaction, and a
+ * signal that a branch's dashboard may have changed. Stock and dashboard events reach the
+ * streams of that branch, and admin streams opened without a branch; dashboard events reach
+ * admins and managers only.
+ *
+ * Publishers never write to a connection. Each stream has a bounded buffer of pending events,
+ * drained by the event-stream executor one stream at a time, and a client too slow to keep its
+ * buffer from filling up, or to take a drain within the drain deadline, is disconnected, to
+ * reconnect and refetch. A write that blocks outright holds its worker until the connection's
+ * write timeout; the stream is dropped as soon as it passes the deadline, so nothing more is
+ * queued for it meanwhile.
+ */
+@Service
+@Slf4j
+public class EventStreamService {
+
+    private final BranchInventoryRepository branchInventoryRepository;
+    private final ThreadPoolTaskExecutor eventStreamExecutor;
+    private final ThreadPoolTaskExecutor eventQueryExecutor;
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final long drainDeadlineNanos;
+
+    private final AtomicLong streamIds = new AtomicLong();
+    private final Map<Long, Stream> streams = new ConcurrentHashMap<>();
+
+    public EventStreamService(BranchInventoryRepository branchInventoryRepository,
+                              @Qualifier("eventStreamExecutor") ThreadPoolTaskExecutor eventStreamExecutor,
+                              @Qualifier("eventQueryExecutor") ThreadPoolTaskExecutor eventQueryExecutor,
+                              @Value("${app.events.timeout-ms:1800000}") long timeoutMillis,
+                              @Value("${app.events.buffer-size:64}") int bufferSize,
+                              @Value("${app.events.drain-deadline-ms:10000}") long drainDeadlineMillis) {
+        this.branchInventoryRepository = branchInventoryRepository;
+        this.eventStreamExecutor = eventStreamExecutor;
+        this.eventQueryExecutor = eventQueryExecutor;
+        this.timeoutMillis = timeoutMillis;
+        this.bufferSize = bufferSize;
+        this.drainDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(drainDeadlineMillis);
+    }
+
+    /**
+     * Open a stream for a user. allBranches is for admins who picked no branch.
+     */
+    public SseEmitter subscribe(Long userId, Long branchId, boolean allBranches, boolean dashboards) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Stream stream = new Stream(streamIds.incrementAndGet(), emitter, userId, branchId, allBranches,
+                dashboards, bufferSize);
+        streams.put(stream.id, stream);
+        emitter.onCompletion(() -> streams.remove(stream.id));
+        emitter.onError(e -> streams.remove(stream.id));
+        emitter.onTimeout(emitter::complete);
+
+        enqueue(stream, SseEmitter.event().name("connected").data(Map.of("streamId", stream.id)).build());
+        log.debug("Event stream {} opened for user {} (branch {})", stream.id, userId, branchId);
+        return emitter;
+    }
+
+    /**
+     * Push a new notification to its user once the current transaction commits.
+     */
+    public void publishNotification(Long userId, NotificationDTO notification) {
+        afterCommit(() -> publish(stream -> stream.userId.equals(userId), "notification", notification));
+    }
+
+    /**
+     * Push the current stock levels of products changed in a branch. Called after commit; the
+     * levels are read on the event-query executor, and only when a stream will receive them.
+     */
+    public void publishStockChanges(Long branchId, Collection<Long> productIds) {
+        if (productIds.isEmpty() || streams.values().stream().noneMatch(stream -> stream.sees(branchId))) {
+            return;
+        }
+        List<Long> ids = List.copyOf(productIds);
+        try {
+            eventQueryExecutor.execute(() -> {
+                List<SyncInventoryDTO> levels = branchInventoryRepository.findStockLevels(branchId, ids).stream()
+                        .map(SyncService::toInventoryDTO)
+                        .toList();
+                publish(stream -> stream.sees(branchId), "stock",
+                        StockChangeEvent.builder().branchId(branchId).levels(levels).build());
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("Event query executor is full; stock changes of branch {} not pushed", branchId);
+        }
+    }
+
+    /**
+     * Tell dashboard streams of a branch that its figures may have changed. Called after commit.
+     */
+    public void publishDashboardChange(Long branchId) {
+        publish(stream -> stream.dashboards && stream.sees(branchId), "dashboard",
+                DashboardChangeEvent.builder().branchId(branchId).build());
+    }
+
+    /**
+     * Keeps idle connections open through proxies, and finds the ones whose client has gone.
+     */
+    @Scheduled(fixedDelayString = "${app.events.heartbeat-ms:25000}", initialDelay = 25000)
+    public void heartbeat() {
+        publish(stream -> true, null, null);
+    }
+
+    /**
+     * Drops streams whose drain has run past the deadline, typically stuck in a write to a
+     * client that stopped reading. Only detaches them: completing the emitter would wait for
+     * the stuck write, so the drain closes it once the write returns.
+     */
+    @Scheduled(fixedDelayString = "${app.events.drain-check-ms:5000}", initialDelay = 5000)
+    public void dropStalledStreams() {
+        long now = System.nanoTime();
+        for (Stream stream : streams.values()) {
+            long started = stream.drainStartedAt;
+            if (started != 0 && now - started > drainDeadlineNanos) {
+                log.info("Dropping event stream {} of user {}: drain past its deadline", stream.id, stream.userId);
+                stream.dropped = true;
+                streams.remove(stream.id);
+                stream.pending.clear();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        streams.values().forEach(this::close);
+    }
+
+    private void publish(Predicate<Stream> audience, String name, Object data) {
+        Set<DataWithMediaType> event = null;
+        for (Stream stream : streams.values()) {
+            if (!audience.test(stream)) {
+                continue;
+            }
+            if (event == null) {
+                // Built once and shared; the built set is not changed by sending it
+                event = name != null
+                        ? SseEmitter.event().name(name).data(data).build()
+                        : SseEmitter.event().comment("ping").build();
+            }
+            enqueue(stream, event);
+        }
+    }
+
+    private void enqueue(Stream stream, Set<DataWithMediaType> event) {
+        if (!stream.pending.offer(event)) {
+            log.info("Closing event stream {} of user {}: client is not keeping up", stream.id, stream.userId);
+            close(stream);
+            return;
+        }
+        scheduleDrain(stream);
+    }
+
+    private void scheduleDrain(Stream stream) {
+        if (!stream.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            eventStreamExecutor.execute(() -> drain(stream));
+        } catch (TaskRejectedException e) {
+            stream.draining.set(false);
+            log.warn("Event stream executor is full; closing event stream {}", stream.id);
+            close(stream);
+        }
+    }
+
+    private void drain(Stream stream) {
+        long started = System.nanoTime();
+        stream.drainStartedAt = started;
+        try {
+            Set<DataWithMediaType> event;
+            while (!stream.dropped && (event = stream.pending.poll()) != null) {
+                stream.emitter.send(event);
+                if (System.nanoTime() - started > drainDeadlineNanos) {
+                    log.info("Closing event stream {} of user {}: drain past its deadline", stream.id, stream.userId);
+                    stream.dropped = true;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client has gone; the container completes the emitter
+            streams.remove(stream.id);
+            stream.pending.clear();
+            return;
+        } finally {
+            stream.drainStartedAt = 0;
+        }
+        if (stream.dropped) {
+            close(stream);
+            return;
+        }
+        stream.draining.set(false);
+        // An event queued after the last poll but before the flag was cleared found a drain running
+        if (!stream.pending.isEmpty()) {
+            scheduleDrain(stream);
+        }
+    }
+
+    private void close(Stream stream) {
+        streams.remove(stream.id);
+        stream.pending.clear();
+        stream.emitter.complete();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Stream {
+        private final long id;
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final Long branchId;
+        private final boolean allBranches;
+        private final boolean dashboards;
+        private final Queue<Set<DataWithMediaType>> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // System.nanoTime() when the running drain started, 0 when none is running
+        private volatile long drainStartedAt;
+        private volatile boolean dropped;
+
+        private Stream(long id, SseEmitter emitter, Long userId, Long branchId, boolean allBranches,
+                       boolean dashboards, int bufferSize) {
+            this.id = id;
+            this.emitter = emitter;
+            this.userId = userId;
+            this.branchId = branchId;
+            this.allBranches = allBranches;
+            this.dashboards = dashboards;
+            this.pending = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private boolean sees(Long eventBranchId) {
+            return allBranches || (branchId != null && branchId.equals(eventBranchId));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.ims.service;
 import com.ims.dto.expense.*;
 import com.ims.entity.*;
 import com.ims.enums.ExpenseCategory;
+import com.ims.enums.OutboxEventType;
 import com.ims.exception.ResourceNotFoundException;
 import com.ims.repository.*;
 import lombok.RequiredArgsConstructor;
@@ -30,6 +31,7 @@ public class ExpenseService {
     private final BranchRepository branchRepository;
     private final UserRepository userRepository;
     private final SaleRepository saleRepository;
+    private final OutboxService outboxService;
 
     public ExpenseDTO createExpense(ExpenseRequest request, Long userId, Long branchId) {
         log.info("Recording expense for branch: {}", branchId);
@@ -52,6 +54,7 @@ public class ExpenseService {
         expense.setIsDeleted(false);
 
         Expense saved = expenseRepository.save(expense);
+        recordExpenseEvent(OutboxEventType.EXPENSE_RECORDED, saved);
         log.info("Expense recorded: {}", saved.getId());
 
         return mapToDTO(saved);
@@ -124,8 +127,21 @@ public class ExpenseService {
     public void deleteExpense(Long id) {
         Expense expense = expenseRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense", "id", id));
+        if (Boolean.TRUE.equals(expense.getIsDeleted())) {
+            return;
+        }
         expense.setIsDeleted(true);
         expenseRepository.save(expense);
+        recordExpenseEvent(OutboxEventType.EXPENSE_DELETED, expense);
+    }
+
+    /**
+     * Expenses feed the daily sales facts once this transaction commits.
+     */
+    private void recordExpenseEvent(OutboxEventType type, Expense expense) {
+        outboxService.record(type, "Expense", expense.getId(),
+                Map.of("amount", expense.getAmount().toPlainString(),
+                        "expenseDate", expense.getExpenseDate().toString()));
     }
 
     private ExpenseDTO mapToDTO(Expense expense) {
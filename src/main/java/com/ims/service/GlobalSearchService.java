@@ -1,50 +1,91 @@
 package com.ims.service;
 
+import com.ims.entity.CreditAccount;
+import com.ims.entity.Customer;
+import com.ims.entity.Product;
+import com.ims.entity.Supplier;
+import com.ims.enums.SearchEntityType;
 import com.ims.repository.*;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Searches products, customers, suppliers and credit accounts at once. The four types are
+ * matched against the search index and loaded by id in parallel, each on its own connection.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
-@Transactional(readOnly = true)
 public class GlobalSearchService {
 
     private final ProductRepository productRepository;
     private final CustomerRepository customerRepository;
     private final SupplierRepository supplierRepository;
     private final CreditAccountRepository creditAccountRepository;
+    private final SearchIndexService searchIndexService;
+    private final ThreadPoolTaskExecutor applicationTaskExecutor;
+
+    public GlobalSearchService(ProductRepository productRepository,
+                               CustomerRepository customerRepository,
+                               SupplierRepository supplierRepository,
+                               CreditAccountRepository creditAccountRepository,
+                               SearchIndexService searchIndexService,
+                               @Qualifier("applicationTaskExecutor") ThreadPoolTaskExecutor applicationTaskExecutor) {
+        this.productRepository = productRepository;
+        this.customerRepository = customerRepository;
+        this.supplierRepository = supplierRepository;
+        this.creditAccountRepository = creditAccountRepository;
+        this.searchIndexService = searchIndexService;
+        this.applicationTaskExecutor = applicationTaskExecutor;
+    }
 
     public Map<String, Object> search(String query, int maxResultsPerType) {
         Pageable pageable = PageRequest.of(0, maxResultsPerType);
-        Map<String, Object> results = new LinkedHashMap<>();
+        boolean indexed = searchIndexService.isReady();
 
-        var products = productRepository.searchProducts(query, pageable);
-        if (products.hasContent()) {
-            results.put("products", products.getContent());
-        }
+        CompletableFuture<List<Product>> products = async(() -> indexed
+                ? searchIndexService.load(top(SearchEntityType.PRODUCT, query, false, maxResultsPerType),
+                        productRepository::findAllById, Product::getId)
+                : productRepository.searchProducts(query, pageable).getContent());
+        CompletableFuture<List<Customer>> customers = async(() -> indexed
+                ? searchIndexService.load(top(SearchEntityType.CUSTOMER, query, false, maxResultsPerType),
+                        customerRepository::findAllById, Customer::getId)
+                : customerRepository.searchCustomers(query, pageable).getContent());
+        CompletableFuture<List<Supplier>> suppliers = async(() -> indexed
+                ? searchIndexService.load(top(SearchEntityType.SUPPLIER, query, true, maxResultsPerType),
+                        supplierRepository::findAllById, Supplier::getId)
+                : supplierRepository.searchSuppliers(query, pageable).getContent());
+        CompletableFuture<List<CreditAccount>> creditAccounts = async(() -> indexed
+                ? searchIndexService.load(top(SearchEntityType.CREDIT_ACCOUNT, query, false, maxResultsPerType),
+                        creditAccountRepository::findAllById, CreditAccount::getId)
+                : creditAccountRepository.searchCreditAccounts(query, pageable).getContent());
 
-        var customers = customerRepository.searchCustomers(query, pageable);
-        if (customers.hasContent()) {
-            results.put("customers", customers.getContent());
-        }
+        Map<String, Object> results = new LinkedHashMap<>();
+        putIfAny(results, "products", products.join());
+        putIfAny(results, "customers", customers.join());
+        putIfAny(results, "suppliers", suppliers.join());
+        putIfAny(results, "creditAccounts", creditAccounts.join());
+        return results;
+    }
 
-        var suppliers = supplierRepository.searchSuppliers(query, pageable);
-        if (suppliers.hasContent()) {
-            results.put("suppliers", suppliers.getContent());
-        }
+    private List<Long> top(SearchEntityType type, String query, boolean activeOnly, int limit) {
+        List<Long> ids = searchIndexService.search(type, query, null, activeOnly);
+        return ids.size() > limit ? ids.subList(0, limit) : ids;
+    }
 
-        var creditAccounts = creditAccountRepository.searchCreditAccounts(query, pageable);
-        if (creditAccounts.hasContent()) {
-            results.put("creditAccounts", creditAccounts.getContent());
-        }
+    private <T> CompletableFuture<List<T>> async(java.util.function.Supplier<List<T>> search) {
+        return CompletableFuture.supplyAsync(search, applicationTaskExecutor);
+    }
 
-        return results;
+    private static void putIfAny(Map<String, Object> results, String key, List<?> found) {
+        if (!found.isEmpty()) {
+            results.put(key, found);
+        }
     }
-}
\ No newline at end of file
+}
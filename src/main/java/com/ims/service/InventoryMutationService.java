@@ -0,0 +1,159 @@
+package com.ims.service;
+
+import com.ims.exception.BadRequestException;
+import com.ims.repository.BranchInventoryRepository;
+import com.ims.repository.BranchInventoryRepository.StockRowView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Stock level changes as single guarded UPDATE statements. Nothing is read or locked up front:
+ * the row lock is taken by the UPDATE itself and the guard in its WHERE clause decides whether
+ * there was enough stock. Callers must not hold a loaded BranchInventory for the same row in
+ * their persistence context, since these updates bypass it. Every successful change goes
+ * through {@link #inventoryChanged}, the one hook for what must follow a stock change.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryMutationService {
+
+    private static final int MAX_REPLACE_ATTEMPTS = 5;
+
+    private final BranchInventoryRepository branchInventoryRepository;
+    private final StockAvailabilityCache stockAvailabilityCache;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final SyncService syncService;
+
+    /**
+     * On-hand quantity before and after a change, for the stock movement record, with the
+     * row's id and available quantity after it, so callers need not reload the row.
+     */
+    public record StockChange(Long inventoryId, int quantityBefore, int quantityAfter, int quantityAvailable) {
+
+        public int quantityReserved() {
+            return quantityAfter - quantityAvailable;
+        }
+    }
+
+    /**
+     * Take units from available stock, first releasing {@code released} units the caller held.
+     * Empty if the branch has no row for the product or not enough is available.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<StockChange> take(Long branchId, Long productId, int quantity, int released) {
+        if (branchInventoryRepository.takeStock(branchId, productId, quantity, released, LocalDateTime.now()) == 0) {
+            return Optional.empty();
+        }
+        inventoryChanged(branchId, productId);
+        StockRowView after = stockRow(branchId, productId);
+        return Optional.of(change(after, after.getQuantityOnHand() + quantity));
+    }
+
+    /**
+     * Undo a {@link #take}, for a sale that failed after part of its basket was taken.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void giveBack(Long branchId, Long productId, int quantity, int released) {
+        branchInventoryRepository.takeStock(branchId, productId, -quantity, -released, LocalDateTime.now());
+        inventoryChanged(branchId, productId);
+    }
+
+    /**
+     * Add units on hand, or remove them with a negative delta. Empty if the branch has no row
+     * for the product or on hand would go negative.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<StockChange> adjust(Long branchId, Long productId, int delta) {
+        if (branchInventoryRepository.adjustStock(branchId, productId, delta, LocalDateTime.now()) == 0) {
+            return Optional.empty();
+        }
+        inventoryChanged(branchId, productId);
+        StockRowView after = stockRow(branchId, productId);
+        return Optional.of(change(after, after.getQuantityOnHand() - delta));
+    }
+
+    /**
+     * Add received goods and stamp the restock date. Empty if the branch has no row for the product.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<StockChange> restock(Long branchId, Long productId, int quantity) {
+        if (branchInventoryRepository.restock(branchId, productId, quantity, LocalDateTime.now()) == 0) {
+            return Optional.empty();
+        }
+        inventoryChanged(branchId, productId);
+        StockRowView after = stockRow(branchId, productId);
+        return Optional.of(change(after, after.getQuantityOnHand() - quantity));
+    }
+
+    /**
+     * Overwrite on hand with a counted quantity. Retries if a concurrent change lands between
+     * reading the old counts and writing the new one. Empty if the branch has no row for the product.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<StockChange> replace(Long branchId, Long productId, int quantity) {
+        for (int attempt = 1; attempt <= MAX_REPLACE_ATTEMPTS; attempt++) {
+            Optional<StockRowView> before = branchInventoryRepository.findStockRow(branchId, productId);
+            if (before.isEmpty()) {
+                return Optional.empty();
+            }
+            int reserved = before.get().getQuantityReserved();
+            if (branchInventoryRepository.replaceStock(branchId, productId,
+                    before.get().getQuantityOnHand(), reserved, quantity, LocalDateTime.now()) == 1) {
+                inventoryChanged(branchId, productId);
+                return Optional.of(new StockChange(before.get().getId(), before.get().getQuantityOnHand(),
+                        quantity, quantity - reserved));
+            }
+            log.debug("On-hand count for product {} in branch {} changed while replacing it, attempt {}",
+                    productId, branchId, attempt);
+        }
+        throw new BadRequestException("Stock for product " + productId + " in branch " + branchId +
+                " kept changing; please retry");
+    }
+
+    /**
+     * Move units from available into reserved, or back with a negative delta.
+     * False if not enough is available (or reserved, when releasing).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reserve(Long branchId, Long productId, int delta) {
+        if (branchInventoryRepository.reserveStock(branchId, productId, delta, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        inventoryChanged(branchId, productId);
+        return true;
+    }
+
+    /**
+     * Current available quantity, for error messages; empty if the branch has no row for the product.
+     */
+    public Optional<Integer> quantityAvailable(Long branchId, Long productId) {
+        return branchInventoryRepository.findQuantityAvailable(branchId, productId);
+    }
+
+    /**
+     * Evict the row from the stock cache and mark the branch's dashboard stale once the
+     * transaction commits, and log the change for offline sync. Called by every change made
+     * here; stock writes that go through a loaded BranchInventory call it themselves.
+     */
+    public void inventoryChanged(Long branchId, Long productId) {
+        stockAvailabilityCache.evictAfterCommit(branchId, productId);
+        dashboardSnapshotService.markStaleAfterCommit(branchId);
+        syncService.inventoryChanged(branchId, productId);
+    }
+
+    private StockRowView stockRow(Long branchId, Long productId) {
+        // The row is locked by the UPDATE we just ran, so this reads our own change
+        return branchInventoryRepository.findStockRow(branchId, productId).orElseThrow();
+    }
+
+    private static StockChange change(StockRowView after, int quantityBefore) {
+        return new StockChange(after.getId(), quantityBefore, after.getQuantityOnHand(), after.getQuantityAvailable());
+    }
+}
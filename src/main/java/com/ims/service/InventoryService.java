@@ -1,9 +1,11 @@
 package com.ims.service;
 
+import com.ims.dto.response.StockAvailability;
 import com.ims.entity.*;
 import com.ims.enums.NotificationPriority;
 import com.ims.enums.NotificationType;
 import com.ims.enums.Role;
+import com.ims.enums.SearchEntityType;
 import com.ims.enums.StockMovementType;
 import com.ims.exception.BadRequestException;
 import com.ims.exception.ResourceNotFoundException;
@@ -12,6 +14,9 @@ import com.ims.repository.BranchRepository;
 import com.ims.repository.ProductRepository;
 import com.ims.repository.StockMovementRepository;
 import com.ims.repository.UserRepository;
+import com.ims.service.InventoryMutationService.StockChange;
+import com.ims.service.StockAvailabilityCache.CachedProduct;
+import com.ims.service.StockAvailabilityCache.StockLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -20,7 +25,10 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -31,9 +39,13 @@ public class InventoryService {
     private final ProductRepository productRepository;
     private final BranchRepository branchRepository;
     private final StockMovementRepository stockMovementRepository;
+    private final StockLedgerWriter stockLedgerWriter;
     private final NotificationService notificationService;
     private final UserRepository userRepository;
     private final AuditLogService auditLogService;
+    private final InventoryMutationService inventoryMutationService;
+    private final StockAvailabilityCache stockAvailabilityCache;
+    private final SearchIndexService searchIndexService;
 
     @Transactional(readOnly = true)
     public Page<BranchInventory> getBranchInventory(Long branchId, Pageable pageable) {
@@ -50,6 +62,43 @@ public class InventoryService {
                         "Inventory record not found for branch " + branchId + " and product " + productId));
     }
 
+    /**
+     * POS stock lookup, served from {@link StockAvailabilityCache}. Not transactional, so a
+     * cache hit needs no database connection.
+     */
+    public StockAvailability getStockAvailability(Long branchId, Long productId) {
+        CachedProduct product = stockAvailabilityCache.getProduct(productId);
+        if (product == null) {
+            throw new ResourceNotFoundException("Product", "id", productId);
+        }
+        return toAvailability(branchId, product);
+    }
+
+    public StockAvailability getStockAvailabilityByBarcode(Long branchId, String barcode) {
+        CachedProduct product = stockAvailabilityCache.getProductByBarcode(barcode);
+        if (product == null) {
+            throw new ResourceNotFoundException("Product", "barcode", barcode);
+        }
+        return toAvailability(branchId, product);
+    }
+
+    private StockAvailability toAvailability(Long branchId, CachedProduct product) {
+        StockLevel level = stockAvailabilityCache.getStockLevel(branchId, product.id())
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Inventory record not found for branch " + branchId + " and product " + product.id()));
+        return StockAvailability.builder()
+                .branchId(branchId)
+                .productId(product.id())
+                .sku(product.sku())
+                .name(product.name())
+                .barcode(product.barcode())
+                .unitPrice(product.unitPrice())
+                .quantityOnHand(level.quantityOnHand())
+                .quantityReserved(level.quantityReserved())
+                .quantityAvailable(level.quantityAvailable())
+                .build();
+    }
+
     @Transactional
     public BranchInventory adjustStock(Long branchId, Long productId, Integer quantity,
                                        StockMovementType movementType, String notes) {
@@ -59,27 +108,37 @@ public class InventoryService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
 
-        BranchInventory inventory = branchInventoryRepository
-                .findByBranchIdAndProductIdForUpdate(branchId, productId)
-                .orElse(BranchInventory.builder()
-                        .branch(branch)
-                        .product(product)
-                        .quantityOnHand(0)
-                        .quantityReserved(0)
-                        .quantityAvailable(0)
-                        .build());
-
-        int oldQuantity = inventory.getQuantityOnHand();
-        int newQuantity = oldQuantity + quantity;
-
-        if (newQuantity < 0) {
-            throw new BadRequestException("Insufficient stock. Available: " + oldQuantity);
-        }
-
-        inventory.setQuantityOnHand(newQuantity);
-        inventory.setQuantityAvailable(newQuantity - inventory.getQuantityReserved());
+        BranchInventory saved;
+        StockChange change = inventoryMutationService.adjust(branchId, productId, quantity).orElse(null);
+        if (change != null) {
+            // The guarded UPDATE bypassed the persistence context; describe the row from its result
+            saved = BranchInventory.builder()
+                    .id(change.inventoryId())
+                    .branch(branch)
+                    .product(product)
+                    .quantityOnHand(change.quantityAfter())
+                    .quantityReserved(change.quantityReserved())
+                    .quantityAvailable(change.quantityAvailable())
+                    .build();
+        } else {
+            Optional<Integer> onHand = branchInventoryRepository.findQuantityOnHand(branchId, productId);
+            if (onHand.isPresent() || quantity < 0) {
+                throw new BadRequestException("Insufficient stock. Available: " + onHand.orElse(0));
+            }
 
-        BranchInventory saved = branchInventoryRepository.save(inventory);
+            // First stock of this product in the branch
+            saved = branchInventoryRepository.save(BranchInventory.builder()
+                    .branch(branch)
+                    .product(product)
+                    .quantityOnHand(quantity)
+                    .quantityReserved(0)
+                    .quantityAvailable(quantity)
+                    .build());
+            inventoryMutationService.inventoryChanged(branchId, productId);
+            change = new StockChange(saved.getId(), 0, quantity, quantity);
+        }
+        int oldQuantity = change.quantityBefore();
+        int newQuantity = change.quantityAfter();
 
         // Audit log for stock adjustment
         auditLogService.logAction("Inventory", saved.getId(), "STOCK_ADJUSTMENT",
@@ -97,7 +156,7 @@ public class InventoryService {
                 .quantityAfter(newQuantity)
                 .notes(notes)
                 .build();
-        stockMovementRepository.save(movement);
+        stockLedgerWriter.record(movement);
 
         // Check stock levels and send notifications
         checkStockLevels(saved, product, branch);
@@ -174,7 +233,19 @@ public class InventoryService {
         if (!branchRepository.existsById(branchId)) {
             throw new ResourceNotFoundException("Branch", "id", branchId);
         }
-        return branchInventoryRepository.searchInventory(branchId, searchTerm, pageable);
+        if (!searchIndexService.isReady()) {
+            return branchInventoryRepository.searchInventory(branchId, searchTerm, pageable);
+        }
+        List<Long> productIds = searchIndexService.search(SearchEntityType.PRODUCT, searchTerm, null, false);
+        if (productIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        // Ranked matches the branch stocks, in rank order
+        Set<Long> stocked = new HashSet<>(branchInventoryRepository.findProductIdsInBranch(branchId, productIds));
+        List<Long> rankedIds = productIds.stream().filter(stocked::contains).toList();
+        return searchIndexService.page(rankedIds, pageable,
+                ids -> branchInventoryRepository.findByBranchIdAndProductIds(branchId, ids),
+                inventory -> inventory.getProduct().getId());
     }
 
     @Transactional(readOnly = true)
@@ -32,6 +32,7 @@ public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final NotificationPreferenceRepository notificationPreferenceRepository;
+    private final EventStreamService eventStreamService;
 
     @Autowired(required = false)
     private EmailService emailService;
@@ -53,6 +54,7 @@ public class NotificationService {
                 .build();
 
         notificationRepository.save(notification);
+        eventStreamService.publishNotification(userId, mapToDTO(notification));
         log.info("Created {} notification for user {}: {}", priority, userId, title);
 
         dispatchExternalNotifications(user, type, title, message);
@@ -72,6 +74,7 @@ public class NotificationService {
                     .user(user)
                     .build();
             notificationRepository.save(notification);
+            eventStreamService.publishNotification(user.getId(), mapToDTO(notification));
 
             dispatchExternalNotifications(user, type, title, message);
         }
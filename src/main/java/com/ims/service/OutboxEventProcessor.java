@@ -0,0 +1,134 @@
+package com.ims.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ims.dto.outbox.SaleCommittedEvent;
+import com.ims.entity.OutboxEvent;
+import com.ims.enums.OutboxStatus;
+import com.ims.exception.ResourceNotFoundException;
+import com.ims.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Transactional steps of outbox processing. Kept separate from OutboxService so that
+ * every step goes through the transactional proxy when called from a worker thread.
+ *
+ * A claim is fenced by its lease: the worker passes the lease expiry it claimed with to
+ * every later step, and an event only counts as processed if it is still held under that
+ * lease. A worker that outlived its lease, and so may have been overtaken by another, has
+ * its work rolled back instead of applied a second time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxEventProcessor {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final AuditLogService auditLogService;
+    private final ProfitMarginService profitMarginService;
+    private final DailySalesFactService dailySalesFactService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Thrown when an event is no longer held under the caller's lease; its work is rolled back.
+     */
+    public static class LeaseLostException extends RuntimeException {
+
+        public LeaseLostException(Long eventId) {
+            super("Outbox event " + eventId + " is no longer held under this worker's lease");
+        }
+    }
+
+    /**
+     * Claim an event for processing.
+     * @return the lease expiry to pass to the later steps, or empty if another worker holds the event
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<LocalDateTime> claim(Long eventId, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        // Truncated so the value compares equal after a round trip through the database
+        LocalDateTime leaseUntil = now.plus(lease).truncatedTo(ChronoUnit.MILLIS);
+        return outboxEventRepository.claim(eventId, now, leaseUntil,
+                OutboxStatus.PENDING, OutboxStatus.PROCESSING) > 0
+                ? Optional.of(leaseUntil)
+                : Optional.empty();
+    }
+
+    @Transactional
+    public void process(Long eventId, LocalDateTime leaseUntil) throws Exception {
+        OutboxEvent event = outboxEventRepository.findById(eventId)
+                .orElseThrow(() -> new ResourceNotFoundException("OutboxEvent", "id", eventId));
+
+        switch (event.getEventType()) {
+            case SALE_COMMITTED -> handleSaleCommitted(
+                    objectMapper.readValue(event.getPayload(), SaleCommittedEvent.class));
+            case RETURN_COMPLETED -> dailySalesFactService.recordReturn(event.getAggregateId());
+            case EXPENSE_RECORDED -> dailySalesFactService.recordExpense(event.getAggregateId(), false);
+            case EXPENSE_DELETED -> dailySalesFactService.recordExpense(event.getAggregateId(), true);
+        }
+
+        if (outboxEventRepository.complete(eventId, leaseUntil, LocalDateTime.now(),
+                OutboxStatus.PROCESSING, OutboxStatus.PROCESSED) == 0) {
+            throw new LeaseLostException(eventId);
+        }
+    }
+
+    /**
+     * Record a failed attempt. The event goes back to PENDING with an exponential
+     * backoff, or to FAILED once maxAttempts is reached. Left alone if the caller's
+     * lease has run out and another worker took the event over.
+     * @return true if the event will be retried
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean markFailed(Long eventId, LocalDateTime leaseUntil, Exception error,
+                              int maxAttempts, Duration retryBackoff) {
+        OutboxEvent event = outboxEventRepository.findById(eventId).orElse(null);
+        if (event == null) {
+            return false;
+        }
+        if (event.getStatus() != OutboxStatus.PROCESSING || !leaseUntil.equals(event.getNextAttemptAt())) {
+            return event.getStatus() != OutboxStatus.FAILED;
+        }
+
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(error.getClass().getSimpleName() + ": " + error.getMessage());
+
+        boolean retry = attempts < maxAttempts;
+        if (retry) {
+            event.setStatus(OutboxStatus.PENDING);
+            event.setNextAttemptAt(LocalDateTime.now().plus(retryBackoff.multipliedBy(1L << (attempts - 1))));
+        } else {
+            event.setStatus(OutboxStatus.FAILED);
+        }
+        outboxEventRepository.save(event);
+        return retry;
+    }
+
+    private void handleSaleCommitted(SaleCommittedEvent sale) {
+        dailySalesFactService.recordSale(sale.getSaleId());
+
+        // Margin checks may create notifications; they roll back together with the event on failure
+        for (SaleCommittedEvent.Line line : sale.getItems()) {
+            profitMarginService.checkMarginOnSale(line.getProductId(), line.getUnitPrice());
+        }
+
+        // Written in this transaction, so it commits once, together with the event
+        auditLogService.logCreate("Sale", sale.getSaleId(),
+                Map.of("invoiceNumber", sale.getInvoiceNumber(),
+                        "totalAmount", sale.getTotalAmount().toPlainString(),
+                        "paymentMethod", sale.getPaymentMethod(),
+                        "status", sale.getStatus(),
+                        "itemCount", String.valueOf(sale.getItems().size())),
+                sale.getSellerId(), sale.getIpAddress());
+    }
+}
@@ -0,0 +1,198 @@
+package com.ims.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ims.entity.OutboxEvent;
+import com.ims.enums.OutboxEventType;
+import com.ims.enums.OutboxStatus;
+import com.ims.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional outbox for side effects that must not slow down the request that caused them.
+ * Events are written in the caller's transaction and handed to a bounded worker pool once it
+ * commits. When the pool's queue is full the event simply stays PENDING and the poller picks
+ * it up later, so a burst of sales never blocks a till. Failed events are retried with
+ * exponential backoff until app.outbox.max-attempts, then left as FAILED for inspection.
+ */
+@Service
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventProcessor outboxEventProcessor;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor outboxExecutor;
+
+    private final int maxAttempts;
+    private final int pollBatchSize;
+    private final Duration retryBackoff;
+    private final Duration processingLease;
+    private final Duration dispatchTimeout;
+
+    private final Counter processedCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private final Counter leaseLostCounter;
+
+    // Last counted backlog, refreshed by refreshBacklog rather than queried on every scrape
+    private final AtomicLong pendingBacklog = new AtomicLong();
+    private final AtomicLong failedBacklog = new AtomicLong();
+
+    public OutboxService(OutboxEventRepository outboxEventRepository,
+                         OutboxEventProcessor outboxEventProcessor,
+                         ObjectMapper objectMapper,
+                         @Qualifier("outboxExecutor") ThreadPoolTaskExecutor outboxExecutor,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.outbox.max-attempts:5}") int maxAttempts,
+                         @Value("${app.outbox.poll-batch-size:100}") int pollBatchSize,
+                         @Value("${app.outbox.retry-backoff-ms:2000}") long retryBackoffMs,
+                         @Value("${app.outbox.processing-lease-ms:60000}") long processingLeaseMs,
+                         @Value("${app.outbox.dispatch-timeout-ms:30000}") long dispatchTimeoutMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventProcessor = outboxEventProcessor;
+        this.objectMapper = objectMapper;
+        this.outboxExecutor = outboxExecutor;
+        this.maxAttempts = maxAttempts;
+        this.pollBatchSize = pollBatchSize;
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+        this.processingLease = Duration.ofMillis(processingLeaseMs);
+        this.dispatchTimeout = Duration.ofMillis(dispatchTimeoutMs);
+
+        Gauge.builder("ims.outbox.executor.queue", outboxExecutor,
+                        executor -> executor.getThreadPoolExecutor().getQueue().size())
+                .description("Dispatched outbox events waiting for a worker thread")
+                .register(meterRegistry);
+        backlogGauge(meterRegistry, "pending", pendingBacklog);
+        backlogGauge(meterRegistry, "failed", failedBacklog);
+        this.processedCounter = outboxCounter(meterRegistry, "processed");
+        this.retriedCounter = outboxCounter(meterRegistry, "retried");
+        this.failedCounter = outboxCounter(meterRegistry, "failed");
+        this.rejectedCounter = outboxCounter(meterRegistry, "rejected");
+        this.leaseLostCounter = outboxCounter(meterRegistry, "lease_lost");
+    }
+
+    /**
+     * Record an event in the current transaction; it is dispatched only if that transaction commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxEventType type, String aggregateType, Long aggregateId, Object payload) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxEvent event = outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(type)
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .payload(toJson(payload))
+                .status(OutboxStatus.PENDING)
+                // Leave the event to the post-commit dispatch unless it is still pending after this
+                .nextAttemptAt(now.plus(dispatchTimeout))
+                .createdAt(now)
+                .build());
+
+        Long eventId = event.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(eventId);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:5000}", initialDelay = 15000)
+    public void dispatchDueEvents() {
+        List<Long> dueIds = outboxEventRepository.findDueIds(
+                List.of(OutboxStatus.PENDING, OutboxStatus.PROCESSING),
+                LocalDateTime.now(), PageRequest.of(0, pollBatchSize));
+
+        for (Long eventId : dueIds) {
+            if (!dispatch(eventId)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Count the outbox rows still to be delivered and those given up on, for ims.outbox.backlog.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.backlog-refresh-ms:30000}", initialDelay = 15000)
+    public void refreshBacklog() {
+        pendingBacklog.set(outboxEventRepository.countByStatus(OutboxStatus.PENDING));
+        failedBacklog.set(outboxEventRepository.countByStatus(OutboxStatus.FAILED));
+    }
+
+    private boolean dispatch(Long eventId) {
+        try {
+            outboxExecutor.execute(() -> run(eventId));
+            return true;
+        } catch (TaskRejectedException e) {
+            rejectedCounter.increment();
+            log.debug("Outbox queue full, event {} left for the poller", eventId);
+            return false;
+        }
+    }
+
+    private void run(Long eventId) {
+        LocalDateTime leaseUntil = outboxEventProcessor.claim(eventId, processingLease).orElse(null);
+        if (leaseUntil == null) {
+            return;
+        }
+        try {
+            outboxEventProcessor.process(eventId, leaseUntil);
+            processedCounter.increment();
+        } catch (OutboxEventProcessor.LeaseLostException e) {
+            leaseLostCounter.increment();
+            log.warn("Outbox event {} outlived its processing lease; its work was rolled back", eventId);
+        } catch (Exception e) {
+            boolean retry = outboxEventProcessor.markFailed(eventId, leaseUntil, e, maxAttempts, retryBackoff);
+            if (retry) {
+                retriedCounter.increment();
+                log.warn("Outbox event {} failed, will retry: {}", eventId, e.getMessage());
+            } else {
+                failedCounter.increment();
+                log.error("Outbox event {} failed permanently: {}", eventId, e.getMessage());
+            }
+        }
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload", e);
+        }
+    }
+
+    private static void backlogGauge(MeterRegistry meterRegistry, String status, AtomicLong count) {
+        Gauge.builder("ims.outbox.backlog", count, AtomicLong::get)
+                .tag("status", status)
+                .description("Outbox events by status, as of the last backlog count")
+                .register(meterRegistry);
+    }
+
+    private static Counter outboxCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ims.outbox.events")
+                .tag("outcome", outcome)
+                .description("Outbox events by processing outcome")
+                .register(meterRegistry);
+    }
+}
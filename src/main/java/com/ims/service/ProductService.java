@@ -1,12 +1,15 @@
 package com.ims.service;
 
 import com.ims.dto.request.ProductRequest;
+import com.ims.dto.response.ProductLookup;
 import com.ims.entity.Category;
 import com.ims.entity.Product;
+import com.ims.enums.SearchEntityType;
 import com.ims.exception.BadRequestException;
 import com.ims.exception.ResourceNotFoundException;
 import com.ims.repository.CategoryRepository;
 import com.ims.repository.ProductRepository;
+import com.ims.service.StockAvailabilityCache.CachedProduct;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -21,6 +24,9 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final AuditLogService auditLogService;
+    private final StockAvailabilityCache stockAvailabilityCache;
+    private final SyncService syncService;
+    private final SearchIndexService searchIndexService;
 
     @Transactional(readOnly = true)
     public Page<Product> getAllProducts(Pageable pageable) {
@@ -39,15 +45,32 @@ public class ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "sku", sku));
     }
 
-    @Transactional(readOnly = true)
-    public Product getProductByBarcode(String barcode) {
-        return productRepository.findByBarcode(barcode)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "barcode", barcode));
+    /**
+     * Served from {@link StockAvailabilityCache}; no transaction, so a cache hit needs no connection.
+     */
+    public ProductLookup getProductByBarcode(String barcode) {
+        CachedProduct product = stockAvailabilityCache.getProductByBarcode(barcode);
+        if (product == null) {
+            throw new ResourceNotFoundException("Product", "barcode", barcode);
+        }
+        return ProductLookup.builder()
+                .id(product.id())
+                .sku(product.sku())
+                .name(product.name())
+                .barcode(product.barcode())
+                .unitPrice(product.unitPrice())
+                .categoryId(product.categoryId())
+                .categoryName(product.categoryName())
+                .build();
     }
 
     @Transactional(readOnly = true)
     public Page<Product> searchProducts(String search, Pageable pageable) {
-        return productRepository.searchProducts(search, pageable);
+        if (!searchIndexService.isReady()) {
+            return productRepository.searchProducts(search, pageable);
+        }
+        return searchIndexService.page(searchIndexService.search(SearchEntityType.PRODUCT, search, null, false),
+                pageable, productRepository::findAllById, Product::getId);
     }
 
     @Transactional
@@ -85,6 +108,7 @@ public class ProductService {
         }
 
         Product saved = productRepository.save(product);
+        syncService.productChanged(saved.getId(), false);
         auditLogService.logCreate("Product", saved.getId(),
                 Map.of("sku", saved.getSku(), "name", saved.getName(),
                         "unitPrice", String.valueOf(saved.getUnitPrice())));
@@ -133,6 +157,7 @@ public class ProductService {
         }
 
         Product updated = productRepository.save(product);
+        syncService.productChanged(updated.getId(), false);
         Map<String, Object> newValues = Map.of(
                 "sku", updated.getSku(), "name", updated.getName(),
                 "unitPrice", String.valueOf(updated.getUnitPrice()),
@@ -147,6 +172,7 @@ public class ProductService {
         Product product = getProductById(id);
         product.setIsDeleted(true);
         productRepository.save(product);
+        syncService.productChanged(id, true);
         auditLogService.logDelete("Product", id,
                 Map.of("sku", product.getSku(), "name", product.getName()));
     }
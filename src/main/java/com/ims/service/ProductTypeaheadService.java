@@ -0,0 +1,335 @@
+package com.ims.service;
+
+import com.ims.dto.response.ProductSuggestion;
+import com.ims.entity.Product;
+import com.ims.repository.DailySalesFactRepository;
+import com.ims.repository.DailySalesFactRepository.FactTotals;
+import com.ims.repository.ProductRepository;
+import com.ims.util.TransactionScopedBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Product typeahead for the POS, answered from memory without touching the database. A prefix
+ * trie holds the words of each active product's name, brand and SKU, and its whole SKU and
+ * barcode; every trie node keeps its best products, fastest sellers first, so a lookup is a walk
+ * down the typed prefix.
+ *
+ * Saved and deleted products reach the trie through {@link SearchIndexListener} once their
+ * transaction commits, updating only the nodes on their keys' paths. Sales velocity (units sold
+ * per day over app.typeahead.velocity-days, from the daily sales facts) is refreshed by a
+ * scheduled rebuild.
+ */
+@Service
+@Slf4j
+public class ProductTypeaheadService {
+
+    private final ProductRepository productRepository;
+    private final DailySalesFactRepository dailySalesFactRepository;
+    private final int maxResults;
+    private final int nodeCapacity;
+    private final int velocityDays;
+
+    private volatile Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private volatile Node root = new Node();
+    private volatile Map<Long, Double> velocity = Map.of();
+    private volatile boolean ready;
+    private List<Entry> replay;
+
+    public ProductTypeaheadService(ProductRepository productRepository,
+                                   DailySalesFactRepository dailySalesFactRepository,
+                                   @Value("${app.typeahead.max-results:20}") int maxResults,
+                                   @Value("${app.typeahead.velocity-days:30}") int velocityDays) {
+        this.productRepository = productRepository;
+        this.dailySalesFactRepository = dailySalesFactRepository;
+        this.maxResults = maxResults;
+        // Deeper than a page, so multi-word queries have candidates left after filtering
+        this.nodeCapacity = maxResults * 4;
+        this.velocityDays = velocityDays;
+    }
+
+    /**
+     * Fastest-selling active products with a word starting with each typed word, or whose SKU
+     * or barcode starts with the typed text.
+     */
+    public List<ProductSuggestion> suggest(String query, int limit) {
+        int size = Math.max(1, Math.min(limit, maxResults));
+        String typed = query == null ? "" : query.toLowerCase(Locale.ROOT).trim();
+        List<String> words = words(typed);
+        if (!ready || words.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Entry> matches = new LinkedHashMap<>();
+        top(typed).forEach(entry -> matches.put(entry.id, entry));
+        String longest = words.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+        for (Entry entry : top(longest)) {
+            if (entry.matchesAll(words)) {
+                matches.putIfAbsent(entry.id, entry);
+            }
+        }
+        Map<Long, Double> currentVelocity = velocity;
+        return matches.values().stream()
+                .sorted(ranking(currentVelocity))
+                .limit(size)
+                .map(entry -> entry.suggestion)
+                .toList();
+    }
+
+    /**
+     * Add, replace or drop a product once the current transaction commits.
+     */
+    void indexAfterCommit(Product product, boolean removed) {
+        Entry entry = removed || !isListed(product) ? Entry.removed(product.getId()) : Entry.of(product);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(entry);
+            return;
+        }
+        pendingEntries().put(entry.id, entry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.typeahead.rebuild-interval-ms:3600000}",
+            initialDelayString = "${app.typeahead.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Reload the catalog and sales velocity. Products saved while it loads are replayed afterwards.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            replay = new ArrayList<>();
+        }
+        List<Entry> loaded = new ArrayList<>();
+        Map<Long, Double> newVelocity = new HashMap<>();
+        try {
+            for (Product product : productRepository.findAll()) {
+                if (isListed(product)) {
+                    loaded.add(Entry.of(product));
+                }
+            }
+            LocalDate today = LocalDate.now();
+            for (FactTotals totals : dailySalesFactRepository.getProductTotalsAllBranches(
+                    today.minusDays(velocityDays - 1L), today)) {
+                long net = orZero(totals.getQuantitySold()) - orZero(totals.getQuantityReturned());
+                newVelocity.put(totals.getProductId(), (double) net / velocityDays);
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                replay = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            List<Entry> savedMeanwhile = replay;
+            replay = null;
+            velocity = newVelocity;
+            Node newRoot = new Node();
+            Map<Long, Entry> newEntries = new ConcurrentHashMap<>();
+            for (Entry entry : loaded) {
+                newEntries.put(entry.id, entry);
+                entry.keys.forEach(key -> insert(newRoot, key, entry));
+            }
+            refreshAll(newRoot);
+            root = newRoot;
+            entries = newEntries;
+            savedMeanwhile.forEach(this::apply);
+        }
+        ready = true;
+        log.info("Product typeahead rebuilt in {} ms: {} products", System.currentTimeMillis() - start, loaded.size());
+    }
+
+    private synchronized void apply(Entry entry) {
+        Entry old = entry.removed ? entries.remove(entry.id) : entries.put(entry.id, entry);
+        Set<String> touched = new HashSet<>();
+        if (old != null) {
+            for (String key : old.keys) {
+                remove(key, old.id);
+                touched.add(key);
+            }
+        }
+        if (!entry.removed) {
+            for (String key : entry.keys) {
+                insert(root, key, entry);
+                touched.add(key);
+            }
+        }
+        touched.forEach(this::refreshPath);
+        if (replay != null) {
+            replay.add(entry);
+        }
+    }
+
+    private Map<Long, Entry> pendingEntries() {
+        return TransactionScopedBuffer.get(this, LinkedHashMap::new, changed -> changed.values().forEach(this::apply));
+    }
+
+    // ==========================================
+    // TRIE
+    // ==========================================
+
+    private List<Entry> top(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node != null ? node.top : List.of();
+    }
+
+    private static void insert(Node root, String key, Entry entry) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+        }
+        node.entries.put(entry.id, entry);
+    }
+
+    private void remove(String key, Long id) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node != null) {
+            node.entries.remove(id);
+        }
+    }
+
+    /**
+     * Recompute the best products of every node on a key's path, deepest first.
+     */
+    private void refreshPath(String key) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        int depth = 0;
+        // The path may end early where a shared prefix was already pruned
+        while (depth < key.length() && (path[depth + 1] = path[depth].children.get(key.charAt(depth))) != null) {
+            depth++;
+        }
+        for (int i = depth; i >= 0; i--) {
+            Node node = path[i];
+            refresh(node);
+            // A node left with nothing below it is pruned from its parent
+            if (i > 0 && node.top.isEmpty() && node.children.isEmpty()) {
+                path[i - 1].children.remove(key.charAt(i - 1));
+            }
+        }
+    }
+
+    private void refreshAll(Node node) {
+        node.children.values().forEach(this::refreshAll);
+        refresh(node);
+    }
+
+    private void refresh(Node node) {
+        Map<Long, Entry> candidates = new HashMap<>(node.entries);
+        for (Node child : node.children.values()) {
+            child.top.forEach(entry -> candidates.put(entry.id, entry));
+        }
+        node.top = candidates.values().stream()
+                .sorted(ranking(velocity))
+                .limit(nodeCapacity)
+                .toList();
+    }
+
+    private static Comparator<Entry> ranking(Map<Long, Double> velocity) {
+        return Comparator.<Entry>comparingDouble(entry -> -velocity.getOrDefault(entry.id, 0.0))
+                .thenComparing(entry -> entry.sortName)
+                .thenComparingLong(entry -> entry.id);
+    }
+
+    private static boolean isListed(Product product) {
+        return !Boolean.TRUE.equals(product.getIsDeleted()) && !Boolean.FALSE.equals(product.getIsActive());
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new ConcurrentHashMap<>();
+        // Products whose key ends here; changed only under the service lock
+        private final Map<Long, Entry> entries = new HashMap<>();
+        // Replaced, never modified, so lookups read it without locking
+        private volatile List<Entry> top = List.of();
+    }
+
+    private static final class Entry {
+        private final Long id;
+        private final boolean removed;
+        private final ProductSuggestion suggestion;
+        private final String sortName;
+        private final Set<String> words;
+        private final Set<String> keys;
+
+        private Entry(Long id, boolean removed, ProductSuggestion suggestion, Set<String> words, Set<String> keys) {
+            this.id = id;
+            this.removed = removed;
+            this.suggestion = suggestion;
+            this.sortName = suggestion != null && suggestion.getName() != null
+                    ? suggestion.getName().toLowerCase(Locale.ROOT) : "";
+            this.words = words;
+            this.keys = keys;
+        }
+
+        private static Entry removed(Long id) {
+            return new Entry(id, true, null, Set.of(), Set.of());
+        }
+
+        private static Entry of(Product product) {
+            Set<String> words = new HashSet<>();
+            words.addAll(words(product.getName()));
+            words.addAll(words(product.getBrand()));
+            words.addAll(words(product.getSku()));
+            Set<String> keys = new HashSet<>(words);
+            for (String code : Arrays.asList(product.getSku(), product.getBarcode())) {
+                if (code != null && !code.isBlank()) {
+                    keys.add(code.toLowerCase(Locale.ROOT).trim());
+                }
+            }
+            ProductSuggestion suggestion = ProductSuggestion.builder()
+                    .productId(product.getId())
+                    .sku(product.getSku())
+                    .name(product.getName())
+                    .barcode(product.getBarcode())
+                    .brand(product.getBrand())
+                    .unitPrice(product.getUnitPrice())
+                    .build();
+            return new Entry(product.getId(), false, suggestion, words, keys);
+        }
+
+        private boolean matchesAll(List<String> typed) {
+            for (String word : typed) {
+                if (words.stream().noneMatch(own -> own.startsWith(word))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
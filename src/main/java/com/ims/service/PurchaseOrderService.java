@@ -5,6 +5,7 @@ import com.ims.entity.*;
 import com.ims.enums.*;
 import com.ims.exception.ResourceNotFoundException;
 import com.ims.repository.*;
+import com.ims.service.InventoryMutationService.StockChange;
 import com.ims.util.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,10 +31,11 @@ public class PurchaseOrderService {
     private final BranchRepository branchRepository;
     private final ProductRepository productRepository;
     private final BranchInventoryRepository branchInventoryRepository;
-    private final StockMovementRepository stockMovementRepository;
+    private final StockLedgerWriter stockLedgerWriter;
     private final NotificationService notificationService;
     private final SecurityUtils securityUtils;
     private final AuditLogService auditLogService;
+    private final InventoryMutationService inventoryMutationService;
 
     public PurchaseOrderDTO createPurchaseOrder(PurchaseOrderRequest request) {
         Supplier supplier = supplierRepository.findById(request.getSupplierId())
@@ -163,42 +165,35 @@ public class PurchaseOrderService {
             // Update inventory: only add good (non-damaged) items
             int goodQty = qtyReceived - qtyDamaged;
             if (goodQty > 0) {
-                BranchInventory inventory = branchInventoryRepository
-                        .findByBranchIdAndProductIdForUpdate(po.getBranch().getId(), poItem.getProduct().getId())
+                StockChange change = inventoryMutationService
+                        .restock(po.getBranch().getId(), poItem.getProduct().getId(), goodQty)
                         .orElse(null);
-
-                int qtyBefore;
-                if (inventory == null) {
-                    inventory = BranchInventory.builder()
+                if (change == null) {
+                    BranchInventory created = branchInventoryRepository.save(BranchInventory.builder()
                             .branch(po.getBranch())
                             .product(poItem.getProduct())
-                            .quantityOnHand(0)
+                            .quantityOnHand(goodQty)
                             .quantityReserved(0)
-                            .quantityAvailable(0)
-                            .build();
-                    qtyBefore = 0;
-                } else {
-                    qtyBefore = inventory.getQuantityOnHand();
+                            .quantityAvailable(goodQty)
+                            .lastRestockDate(LocalDateTime.now())
+                            .build());
+                    inventoryMutationService.inventoryChanged(po.getBranch().getId(), poItem.getProduct().getId());
+                    change = new StockChange(created.getId(), 0, goodQty, goodQty);
                 }
 
-                inventory.setQuantityOnHand(inventory.getQuantityOnHand() + goodQty);
-                inventory.setQuantityAvailable(inventory.getQuantityOnHand() - inventory.getQuantityReserved());
-                inventory.setLastRestockDate(LocalDateTime.now());
-                branchInventoryRepository.save(inventory);
-
                 // Create stock movement
                 StockMovement movement = StockMovement.builder()
                         .product(poItem.getProduct())
                         .branch(po.getBranch())
                         .movementType(StockMovementType.PURCHASE)
                         .quantity(goodQty)
-                        .quantityBefore(qtyBefore)
-                        .quantityAfter(inventory.getQuantityOnHand())
+                        .quantityBefore(change.quantityBefore())
+                        .quantityAfter(change.quantityAfter())
                         .referenceType("PURCHASE_ORDER")
                         .referenceId(po.getId())
                         .notes("Received from PO " + po.getPoNumber())
                         .build();
-                stockMovementRepository.save(movement);
+                stockLedgerWriter.record(movement);
             }
         }
 
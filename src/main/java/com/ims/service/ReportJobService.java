@@ -0,0 +1,354 @@
+package com.ims.service;
+
+import com.ims.dto.request.ReportJobRequest;
+import com.ims.dto.response.ReportJobResponse;
+import com.ims.enums.ReportFormat;
+import com.ims.enums.ReportJobStatus;
+import com.ims.enums.ReportType;
+import com.ims.exception.BadRequestException;
+import com.ims.exception.ResourceNotFoundException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders reports off the request thread. A submitted job waits on a bounded worker pool, is
+ * rendered to a file in app.reports.work-dir and is then downloaded by id. Finished jobs are
+ * kept for app.reports.cache-ttl-seconds; submitting the same report (type, format, dates and
+ * branch) again in that time returns the existing job instead of rendering it twice.
+ *
+ * Jobs are held in memory on the node that ran them. Files of expired jobs are deleted by the
+ * sweeper, and files left over from a previous run are deleted at startup.
+ */
+@Service
+@Slf4j
+public class ReportJobService {
+
+    /**
+     * A finished report on disk, ready to be sent.
+     */
+    public record ReportFile(Path path, String filename, ReportFormat format, long size) {
+    }
+
+    private final ReportService reportService;
+    private final ThreadPoolTaskExecutor reportExecutor;
+    private final Path workDir;
+    private final Duration cacheTtl;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    // Latest job of each distinct report, so identical requests share it
+    private final Map<String, ReportJob> jobsByKey = new ConcurrentHashMap<>();
+
+    public ReportJobService(ReportService reportService,
+                            @Qualifier("reportExecutor") ThreadPoolTaskExecutor reportExecutor,
+                            @Value("${app.reports.work-dir:${java.io.tmpdir}/ims-reports}") String workDir,
+                            @Value("${app.reports.cache-ttl-seconds:600}") long cacheTtlSeconds) {
+        this.reportService = reportService;
+        this.reportExecutor = reportExecutor;
+        this.workDir = Path.of(workDir);
+        this.cacheTtl = Duration.ofSeconds(cacheTtlSeconds);
+    }
+
+    @PostConstruct
+    void prepareWorkDir() throws IOException {
+        Files.createDirectories(workDir);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(workDir)) {
+            for (Path file : leftovers) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public ReportJobResponse submit(ReportJobRequest request) {
+        ReportJob created = newJob(request);
+        LocalDateTime now = LocalDateTime.now();
+        ReportJob job = jobsByKey.compute(created.key,
+                (key, existing) -> existing != null && existing.isReusable(now) ? existing : created);
+        if (job != created) {
+            log.debug("Report {} already requested as job {}", job.key, job.id);
+            return toResponse(job);
+        }
+
+        jobs.put(job.id, job);
+        try {
+            reportExecutor.execute(() -> render(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            jobsByKey.remove(job.key, job);
+            throw new BadRequestException("Too many reports are being generated; please retry shortly");
+        }
+        log.info("Queued report job {} ({}) for {}", job.id, job.key, job.requestedBy);
+        return toResponse(job);
+    }
+
+    public ReportJobResponse getJob(String jobId) {
+        return toResponse(findJob(jobId));
+    }
+
+    public ReportFile getReportFile(String jobId) {
+        ReportJob job = findJob(jobId);
+        if (job.status != ReportJobStatus.COMPLETED) {
+            throw new BadRequestException("Report job " + jobId + " is " + job.status + ", not ready to download");
+        }
+        return new ReportFile(job.file, job.filename, job.format, job.bytesWritten.get());
+    }
+
+    /**
+     * Send a report file with FileChannel.transferTo. The servlet stream is not a file or socket
+     * channel, so the JDK moves the bytes through a small fixed buffer rather than the heap.
+     */
+    public void transfer(ReportFile reportFile, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(reportFile.path(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    /**
+     * Forget finished jobs whose TTL has passed and delete their files. A download that already
+     * opened a file keeps reading it.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.sweep-interval-ms:60000}", initialDelay = 60000)
+    public void removeExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int removed = 0;
+        for (ReportJob job : jobs.values()) {
+            if (job.expiresAt != null && job.expiresAt.isBefore(now)) {
+                jobs.remove(job.id);
+                jobsByKey.remove(job.key, job);
+                deleteQuietly(job.file);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.info("Removed {} expired report jobs", removed);
+        }
+    }
+
+    private void render(ReportJob job) {
+        job.status = ReportJobStatus.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        Path file = workDir.resolve(job.id + (job.format == ReportFormat.EXCEL ? ".xlsx" : ".pdf"));
+
+        try (OutputStream out = new CountingOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)), job.bytesWritten)) {
+            write(job, out);
+        } catch (Exception e) {
+            log.error("Report job {} ({}) failed", job.id, job.key, e);
+            deleteQuietly(file);
+            job.error = e.getMessage();
+            finish(job, ReportJobStatus.FAILED);
+            return;
+        }
+
+        job.file = file;
+        finish(job, ReportJobStatus.COMPLETED);
+        log.info("Report job {} ({}) finished: {} bytes in {} ms", job.id, job.key, job.bytesWritten.get(),
+                Duration.between(job.startedAt, job.completedAt).toMillis());
+    }
+
+    private void write(ReportJob job, OutputStream out) throws IOException {
+        boolean excel = job.format == ReportFormat.EXCEL;
+        switch (job.type) {
+            case SALES -> {
+                if (excel) reportService.writeSalesReportExcel(job.startDate, job.endDate, job.branchId, out);
+                else reportService.writeSalesReportPdf(job.startDate, job.endDate, job.branchId, out);
+            }
+            case INVENTORY -> {
+                if (excel) reportService.writeInventoryReportExcel(job.branchId, out);
+                else reportService.writeInventoryReportPdf(job.branchId, out);
+            }
+            case PROFIT_LOSS -> {
+                if (excel) reportService.writeProfitLossReportExcel(job.startDate, job.endDate, job.branchId, out);
+                else out.write(reportService.generateProfitLossReportPdf(job.startDate, job.endDate, job.branchId));
+            }
+            case PURCHASE_ORDERS -> reportService.writePurchaseOrderReportExcel(job.startDate, job.endDate, out);
+        }
+    }
+
+    private void finish(ReportJob job, ReportJobStatus status) {
+        job.completedAt = LocalDateTime.now();
+        job.expiresAt = job.completedAt.plus(cacheTtl);
+        job.status = status;
+    }
+
+    private ReportJob newJob(ReportJobRequest request) {
+        ReportType type = request.getType();
+        LocalDate startDate = request.getStartDate();
+        LocalDate endDate = request.getEndDate();
+        Long branchId = request.getBranchId();
+
+        if (type == ReportType.INVENTORY) {
+            // A snapshot of current stock; dates play no part
+            startDate = null;
+            endDate = null;
+        } else {
+            if (startDate == null || endDate == null) {
+                throw new BadRequestException("Start and end dates are required for the " + type + " report");
+            }
+            if (startDate.isAfter(endDate)) {
+                throw new BadRequestException("Start date must not be after end date");
+            }
+        }
+        if (type == ReportType.PURCHASE_ORDERS) {
+            if (request.getFormat() != ReportFormat.EXCEL) {
+                throw new BadRequestException("The purchase order report is only available as Excel");
+            }
+            branchId = null;
+        }
+
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return new ReportJob(type, request.getFormat(), startDate, endDate, branchId, username);
+    }
+
+    private ReportJob findJob(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Report job", "id", jobId);
+        }
+        return job;
+    }
+
+    private ReportJobResponse toResponse(ReportJob job) {
+        return ReportJobResponse.builder()
+                .jobId(job.id)
+                .type(job.type)
+                .format(job.format)
+                .startDate(job.startDate)
+                .endDate(job.endDate)
+                .branchId(job.branchId)
+                .status(job.status)
+                .filename(job.filename)
+                .bytesWritten(job.bytesWritten.get())
+                .error(job.error)
+                .requestedBy(job.requestedBy)
+                .submittedAt(job.submittedAt)
+                .startedAt(job.startedAt)
+                .completedAt(job.completedAt)
+                .expiresAt(job.expiresAt)
+                .build();
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete report file {}", file, e);
+        }
+    }
+
+    /**
+     * One requested report. Written by its worker, read by status requests.
+     */
+    private static final class ReportJob {
+        private final String id = UUID.randomUUID().toString();
+        private final String key;
+        private final ReportType type;
+        private final ReportFormat format;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final Long branchId;
+        private final String filename;
+        private final String requestedBy;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final AtomicLong bytesWritten = new AtomicLong();
+
+        private volatile ReportJobStatus status = ReportJobStatus.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime completedAt;
+        private volatile LocalDateTime expiresAt;
+        private volatile Path file;
+        private volatile String error;
+
+        private ReportJob(ReportType type, ReportFormat format, LocalDate startDate, LocalDate endDate,
+                          Long branchId, String requestedBy) {
+            this.type = type;
+            this.format = format;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.branchId = branchId;
+            this.requestedBy = requestedBy;
+            this.key = type + "|" + format + "|" + (startDate != null ? startDate : "-") + "|" +
+                    (endDate != null ? endDate : "-") + "|" + (branchId != null ? branchId : "-");
+            this.filename = filename(type, format, startDate, endDate);
+        }
+
+        /**
+         * Whether a new request for the same report can be answered with this job.
+         */
+        private boolean isReusable(LocalDateTime now) {
+            return switch (status) {
+                case QUEUED, RUNNING -> true;
+                case COMPLETED -> expiresAt.isAfter(now);
+                case FAILED -> false;
+            };
+        }
+
+        private static String filename(ReportType type, ReportFormat format, LocalDate startDate, LocalDate endDate) {
+            String extension = format == ReportFormat.EXCEL ? ".xlsx" : ".pdf";
+            String range = "_" + startDate + "_" + endDate;
+            return switch (type) {
+                case SALES -> "sales_report" + range + extension;
+                case INVENTORY -> "inventory_report_" + LocalDate.now() + extension;
+                case PROFIT_LOSS -> "profit_loss" + range + extension;
+                case PURCHASE_ORDERS -> "purchase_orders" + range + extension;
+            };
+        }
+    }
+
+    /**
+     * Counts the bytes of a report as they are written, for progress.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private final AtomicLong count;
+
+        private CountingOutputStream(OutputStream out, AtomicLong count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count.addAndGet(len);
+        }
+    }
+}
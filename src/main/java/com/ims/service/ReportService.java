@@ -2,7 +2,13 @@ package com.ims.service;
 
 import com.ims.entity.*;
 import com.ims.repository.*;
+import com.ims.repository.BranchInventoryRepository.InventoryReportRow;
+import com.ims.repository.ExpenseRepository.CategoryTotal;
+import com.ims.repository.PurchaseOrderRepository.PurchaseOrderReportRow;
+import com.ims.repository.SaleItemRepository.SaleItemTotals;
+import com.ims.repository.SaleRepository.SaleReportRow;
 import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
 import com.lowagie.text.Element;
 import com.lowagie.text.Font;
 import com.lowagie.text.PageSize;
@@ -14,18 +20,20 @@ import com.lowagie.text.pdf.PdfWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.springframework.data.domain.Pageable;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.awt.Color;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -35,6 +43,7 @@ public class ReportService {
 
     private final SaleRepository saleRepository;
     private final BranchInventoryRepository branchInventoryRepository;
+    private final SaleItemRepository saleItemRepository;
     private final ExpenseRepository expenseRepository;
     private final PurchaseOrderRepository purchaseOrderRepository;
     private final ProductRepository productRepository;
@@ -42,24 +51,30 @@ public class ReportService {
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter DATETIME_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
+    // Rows of a sheet held in memory while an Excel report is written
+    private static final int EXCEL_ROW_WINDOW = 100;
+
+    // Table rows buffered before a PDF report hands them to the document
+    private static final int PDF_CHUNK_ROWS = 50;
+
+    // Shared by every PDF report; OpenPDF only reads them
+    private static final Font PDF_TITLE_FONT = new Font(Font.HELVETICA, 16, Font.BOLD);
+    private static final Font PDF_HEADER_FONT = new Font(Font.HELVETICA, 9, Font.BOLD, Color.WHITE);
+    private static final Font PDF_CELL_FONT = new Font(Font.HELVETICA, 8);
+    private static final Font PDF_TOTAL_FONT = new Font(Font.HELVETICA, 12, Font.BOLD);
+    private static final Font PDF_LOW_STOCK_FONT = new Font(Font.HELVETICA, 8, Font.BOLD, new Color(204, 153, 0));
+    private static final Font PDF_OUT_OF_STOCK_FONT = new Font(Font.HELVETICA, 8, Font.BOLD, Color.RED);
+    private static final Color PDF_HEADER_BACKGROUND = new Color(44, 62, 80);
+
     // ==========================================
     // SALES REPORT
     // ==========================================
 
-    public byte[] generateSalesReportExcel(LocalDate startDate, LocalDate endDate, Long branchId) {
+    public void writeSalesReportExcel(LocalDate startDate, LocalDate endDate, Long branchId, OutputStream out) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
 
-        List<Sale> sales;
-        if (branchId != null) {
-            sales = saleRepository.findByBranchIdAndSaleDateBetween(branchId, start, end);
-        } else {
-            sales = saleRepository.findAll().stream()
-                    .filter(s -> !s.getIsDeleted() && s.getSaleDate().isAfter(start) && s.getSaleDate().isBefore(end))
-                    .toList();
-        }
-
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+        writeWorkbook(out, "sales", workbook -> {
             Sheet sheet = workbook.createSheet("Sales Report");
             CellStyle headerStyle = createHeaderStyle(workbook);
             CellStyle currencyStyle = createCurrencyStyle(workbook);
@@ -77,119 +92,88 @@ public class ReportService {
                 cell.setCellValue(headers[i]);
                 cell.setCellStyle(headerStyle);
             }
+            ColumnWidths widths = new ColumnWidths(headers.length);
+            widths.include(headerRow);
 
             int rowIdx = 3;
             BigDecimal grandTotal = BigDecimal.ZERO;
-            for (Sale sale : sales) {
-                Row row = sheet.createRow(rowIdx++);
-                row.createCell(0).setCellValue(sale.getInvoiceNumber());
-                row.createCell(1).setCellValue(sale.getSaleDate().format(DATETIME_FMT));
-                row.createCell(2).setCellValue(sale.getCustomerName() != null ? sale.getCustomerName() : "Walk-in");
-                row.createCell(3).setCellValue(sale.getBranch().getName());
-                row.createCell(4).setCellValue(sale.getSeller().getFullName());
-                setCurrencyCell(row, 5, sale.getSubtotal(), currencyStyle);
-                setCurrencyCell(row, 6, sale.getTaxAmount(), currencyStyle);
-                setCurrencyCell(row, 7, sale.getDiscountAmount(), currencyStyle);
-                setCurrencyCell(row, 8, sale.getTotalAmount(), currencyStyle);
-                setCurrencyCell(row, 9, sale.getAmountPaid(), currencyStyle);
-                row.createCell(10).setCellValue(sale.getPaymentMethod().name());
-                row.createCell(11).setCellValue(sale.getStatus().name());
-                grandTotal = grandTotal.add(sale.getTotalAmount());
+            try (Stream<SaleReportRow> sales = branchId != null
+                    ? saleRepository.streamReportRowsForBranch(branchId, start, end)
+                    : saleRepository.streamReportRowsAllBranches(start, end)) {
+                for (SaleReportRow sale : (Iterable<SaleReportRow>) sales::iterator) {
+                    Row row = sheet.createRow(rowIdx++);
+                    row.createCell(0).setCellValue(sale.getInvoiceNumber());
+                    row.createCell(1).setCellValue(sale.getSaleDate().format(DATETIME_FMT));
+                    row.createCell(2).setCellValue(sale.getCustomerName() != null ? sale.getCustomerName() : "Walk-in");
+                    row.createCell(3).setCellValue(sale.getBranchName());
+                    row.createCell(4).setCellValue(sale.getSellerName());
+                    setCurrencyCell(row, 5, sale.getSubtotal(), currencyStyle);
+                    setCurrencyCell(row, 6, sale.getTaxAmount(), currencyStyle);
+                    setCurrencyCell(row, 7, sale.getDiscountAmount(), currencyStyle);
+                    setCurrencyCell(row, 8, sale.getTotalAmount(), currencyStyle);
+                    setCurrencyCell(row, 9, sale.getAmountPaid(), currencyStyle);
+                    row.createCell(10).setCellValue(sale.getPaymentMethod().name());
+                    row.createCell(11).setCellValue(sale.getStatus().name());
+                    widths.sample(row);
+                    grandTotal = grandTotal.add(sale.getTotalAmount());
+                }
             }
 
             // Summary row
             Row summaryRow = sheet.createRow(rowIdx + 1);
             summaryRow.createCell(7).setCellValue("Grand Total:");
             setCurrencyCell(summaryRow, 8, grandTotal, currencyStyle);
+            widths.include(summaryRow);
 
-            for (int i = 0; i < headers.length; i++) sheet.autoSizeColumn(i);
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
-        } catch (Exception e) {
-            log.error("Error generating sales Excel report", e);
-            throw new RuntimeException("Failed to generate sales report", e);
-        }
+            widths.apply(sheet);
+        });
     }
 
-    public byte[] generateSalesReportPdf(LocalDate startDate, LocalDate endDate, Long branchId) {
+    public void writeSalesReportPdf(LocalDate startDate, LocalDate endDate, Long branchId, OutputStream out) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
 
-        List<Sale> sales;
-        if (branchId != null) {
-            sales = saleRepository.findByBranchIdAndSaleDateBetween(branchId, start, end);
-        } else {
-            sales = saleRepository.findAll().stream()
-                    .filter(s -> !s.getIsDeleted() && s.getSaleDate().isAfter(start) && s.getSaleDate().isBefore(end))
-                    .toList();
-        }
-
-        try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            Document document = new Document(PageSize.A4.rotate());
-            PdfWriter.getInstance(document, out);
-            document.open();
-
-            Font titleFont = new Font(Font.HELVETICA, 16, Font.BOLD);
-            Font headerFont = new Font(Font.HELVETICA, 9, Font.BOLD, Color.WHITE);
-            Font cellFont = new Font(Font.HELVETICA, 8);
-
-            document.add(new Paragraph("Sales Report", titleFont));
-            document.add(new Paragraph("Period: " + startDate + " to " + endDate, cellFont));
+        writePdf(out, "sales", document -> {
+            document.add(new Paragraph("Sales Report", PDF_TITLE_FONT));
+            document.add(new Paragraph("Period: " + startDate + " to " + endDate, PDF_CELL_FONT));
             document.add(new Paragraph(" "));
 
-            PdfPTable table = new PdfPTable(8);
-            table.setWidthPercentage(100);
-            String[] headers = {"Invoice #", "Date", "Customer", "Branch", "Total", "Paid", "Payment", "Status"};
-            for (String h : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(h, headerFont));
-                cell.setBackgroundColor(new Color(44, 62, 80));
-                cell.setPadding(5);
-                table.addCell(cell);
-            }
+            PdfPTable table = createPdfTable(
+                    "Invoice #", "Date", "Customer", "Branch", "Total", "Paid", "Payment", "Status");
 
+            long saleCount = 0;
             BigDecimal grandTotal = BigDecimal.ZERO;
-            for (Sale sale : sales) {
-                table.addCell(new Phrase(sale.getInvoiceNumber(), cellFont));
-                table.addCell(new Phrase(sale.getSaleDate().format(DATETIME_FMT), cellFont));
-                table.addCell(new Phrase(sale.getCustomerName() != null ? sale.getCustomerName() : "Walk-in", cellFont));
-                table.addCell(new Phrase(sale.getBranch().getName(), cellFont));
-                table.addCell(new Phrase(formatCurrency(sale.getTotalAmount()), cellFont));
-                table.addCell(new Phrase(formatCurrency(sale.getAmountPaid()), cellFont));
-                table.addCell(new Phrase(sale.getPaymentMethod().name(), cellFont));
-                table.addCell(new Phrase(sale.getStatus().name(), cellFont));
-                grandTotal = grandTotal.add(sale.getTotalAmount());
+            try (Stream<SaleReportRow> sales = branchId != null
+                    ? saleRepository.streamReportRowsForBranch(branchId, start, end)
+                    : saleRepository.streamReportRowsAllBranches(start, end)) {
+                for (SaleReportRow sale : (Iterable<SaleReportRow>) sales::iterator) {
+                    table.addCell(new Phrase(sale.getInvoiceNumber(), PDF_CELL_FONT));
+                    table.addCell(new Phrase(sale.getSaleDate().format(DATETIME_FMT), PDF_CELL_FONT));
+                    table.addCell(new Phrase(sale.getCustomerName() != null ? sale.getCustomerName() : "Walk-in", PDF_CELL_FONT));
+                    table.addCell(new Phrase(sale.getBranchName(), PDF_CELL_FONT));
+                    table.addCell(new Phrase(formatCurrency(sale.getTotalAmount()), PDF_CELL_FONT));
+                    table.addCell(new Phrase(formatCurrency(sale.getAmountPaid()), PDF_CELL_FONT));
+                    table.addCell(new Phrase(sale.getPaymentMethod().name(), PDF_CELL_FONT));
+                    table.addCell(new Phrase(sale.getStatus().name(), PDF_CELL_FONT));
+                    grandTotal = grandTotal.add(sale.getTotalAmount());
+                    flushPdfRows(document, table, ++saleCount);
+                }
             }
-
+            table.setComplete(true);
             document.add(table);
-            document.add(new Paragraph(" "));
-            document.add(new Paragraph("Grand Total: " + formatCurrency(grandTotal),
-                    new Font(Font.HELVETICA, 12, Font.BOLD)));
-            document.add(new Paragraph("Total Sales: " + sales.size(), cellFont));
 
-            document.close();
-            return out.toByteArray();
-        } catch (Exception e) {
-            log.error("Error generating sales PDF report", e);
-            throw new RuntimeException("Failed to generate sales PDF report", e);
-        }
+            document.add(new Paragraph(" "));
+            document.add(new Paragraph("Grand Total: " + formatCurrency(grandTotal), PDF_TOTAL_FONT));
+            document.add(new Paragraph("Total Sales: " + saleCount, PDF_CELL_FONT));
+        });
     }
 
     // ==========================================
     // INVENTORY REPORT
     // ==========================================
 
-    public byte[] generateInventoryReportExcel(Long branchId) {
-        List<BranchInventory> inventories;
-        if (branchId != null) {
-            inventories = branchInventoryRepository.findByBranchId(branchId);
-        } else {
-            inventories = branchInventoryRepository.findAll();
-        }
-
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+    public void writeInventoryReportExcel(Long branchId, OutputStream out) {
+        writeWorkbook(out, "inventory", workbook -> {
             Sheet sheet = workbook.createSheet("Inventory Report");
             CellStyle headerStyle = createHeaderStyle(workbook);
             CellStyle currencyStyle = createCurrencyStyle(workbook);
@@ -211,197 +195,120 @@ public class ReportService {
                 cell.setCellValue(headers[i]);
                 cell.setCellStyle(headerStyle);
             }
+            ColumnWidths widths = new ColumnWidths(headers.length);
+            widths.include(headerRow);
 
             int rowIdx = 3;
             BigDecimal totalValue = BigDecimal.ZERO;
-            for (BranchInventory inv : inventories) {
-                Product p = inv.getProduct();
-                Row row = sheet.createRow(rowIdx++);
-                row.createCell(0).setCellValue(p.getSku());
-                row.createCell(1).setCellValue(p.getName());
-                row.createCell(2).setCellValue(p.getCategory() != null ? p.getCategory().getName() : "");
-                row.createCell(3).setCellValue(inv.getBranch().getName());
-                setCurrencyCell(row, 4, p.getUnitPrice(), currencyStyle);
-                setCurrencyCell(row, 5, p.getCostPrice(), currencyStyle);
-                row.createCell(6).setCellValue(inv.getQuantityOnHand());
-                row.createCell(7).setCellValue(inv.getQuantityReserved());
-                row.createCell(8).setCellValue(inv.getQuantityAvailable());
-
-                BigDecimal value = p.getCostPrice() != null
-                        ? p.getCostPrice().multiply(BigDecimal.valueOf(inv.getQuantityOnHand()))
-                        : BigDecimal.ZERO;
-                setCurrencyCell(row, 9, value, currencyStyle);
-                totalValue = totalValue.add(value);
-
-                String status;
-                CellStyle statusStyle = null;
-                if (inv.getQuantityOnHand() == 0) {
-                    status = "OUT OF STOCK";
-                    statusStyle = outOfStockStyle;
-                } else if (p.getReorderLevel() != null && inv.getQuantityOnHand() < p.getReorderLevel()) {
-                    status = "LOW STOCK";
-                    statusStyle = lowStockStyle;
-                } else {
-                    status = "IN STOCK";
+            try (Stream<InventoryReportRow> inventories = branchId != null
+                    ? branchInventoryRepository.streamReportRowsForBranch(branchId)
+                    : branchInventoryRepository.streamReportRowsAllBranches()) {
+                for (InventoryReportRow inv : (Iterable<InventoryReportRow>) inventories::iterator) {
+                    Row row = sheet.createRow(rowIdx++);
+                    row.createCell(0).setCellValue(inv.getSku());
+                    row.createCell(1).setCellValue(inv.getProductName());
+                    row.createCell(2).setCellValue(inv.getCategoryName() != null ? inv.getCategoryName() : "");
+                    row.createCell(3).setCellValue(inv.getBranchName());
+                    setCurrencyCell(row, 4, inv.getUnitPrice(), currencyStyle);
+                    setCurrencyCell(row, 5, inv.getCostPrice(), currencyStyle);
+                    row.createCell(6).setCellValue(inv.getQuantityOnHand());
+                    row.createCell(7).setCellValue(inv.getQuantityReserved());
+                    row.createCell(8).setCellValue(inv.getQuantityAvailable());
+
+                    BigDecimal value = inv.getCostPrice() != null
+                            ? inv.getCostPrice().multiply(BigDecimal.valueOf(inv.getQuantityOnHand()))
+                            : BigDecimal.ZERO;
+                    setCurrencyCell(row, 9, value, currencyStyle);
+                    totalValue = totalValue.add(value);
+
+                    String status;
+                    CellStyle statusStyle = null;
+                    if (inv.getQuantityOnHand() == 0) {
+                        status = "OUT OF STOCK";
+                        statusStyle = outOfStockStyle;
+                    } else if (inv.getReorderLevel() != null && inv.getQuantityOnHand() < inv.getReorderLevel()) {
+                        status = "LOW STOCK";
+                        statusStyle = lowStockStyle;
+                    } else {
+                        status = "IN STOCK";
+                    }
+                    Cell statusCell = row.createCell(10);
+                    statusCell.setCellValue(status);
+                    if (statusStyle != null) statusCell.setCellStyle(statusStyle);
+                    widths.sample(row);
                 }
-                Cell statusCell = row.createCell(10);
-                statusCell.setCellValue(status);
-                if (statusStyle != null) statusCell.setCellStyle(statusStyle);
             }
 
             Row summaryRow = sheet.createRow(rowIdx + 1);
             summaryRow.createCell(8).setCellValue("Total Value:");
             setCurrencyCell(summaryRow, 9, totalValue, currencyStyle);
+            widths.include(summaryRow);
 
-            for (int i = 0; i < headers.length; i++) sheet.autoSizeColumn(i);
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
-        } catch (Exception e) {
-            log.error("Error generating inventory Excel report", e);
-            throw new RuntimeException("Failed to generate inventory report", e);
-        }
+            widths.apply(sheet);
+        });
     }
 
-    public byte[] generateInventoryReportPdf(Long branchId) {
-        List<BranchInventory> inventories;
-        if (branchId != null) {
-            inventories = branchInventoryRepository.findByBranchId(branchId);
-        } else {
-            inventories = branchInventoryRepository.findAll();
-        }
-
-        try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            Document document = new Document(PageSize.A4.rotate());
-            PdfWriter.getInstance(document, out);
-            document.open();
-
-            Font titleFont = new Font(Font.HELVETICA, 16, Font.BOLD);
-            Font headerFont = new Font(Font.HELVETICA, 9, Font.BOLD, Color.WHITE);
-            Font cellFont = new Font(Font.HELVETICA, 8);
-            Font lowStockFont = new Font(Font.HELVETICA, 8, Font.BOLD, new Color(204, 153, 0));
-            Font outOfStockFont = new Font(Font.HELVETICA, 8, Font.BOLD, Color.RED);
-
-            document.add(new Paragraph("Inventory Report", titleFont));
-            document.add(new Paragraph("Date: " + LocalDate.now(), cellFont));
+    public void writeInventoryReportPdf(Long branchId, OutputStream out) {
+        writePdf(out, "inventory", document -> {
+            document.add(new Paragraph("Inventory Report", PDF_TITLE_FONT));
+            document.add(new Paragraph("Date: " + LocalDate.now(), PDF_CELL_FONT));
             document.add(new Paragraph(" "));
 
-            PdfPTable table = new PdfPTable(8);
-            table.setWidthPercentage(100);
-            String[] headers = {"SKU", "Product", "Branch", "Cost", "On Hand", "Available", "Value", "Status"};
-            for (String h : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(h, headerFont));
-                cell.setBackgroundColor(new Color(44, 62, 80));
-                cell.setPadding(5);
-                table.addCell(cell);
-            }
+            PdfPTable table = createPdfTable(
+                    "SKU", "Product", "Branch", "Cost", "On Hand", "Available", "Value", "Status");
 
+            long rowCount = 0;
             BigDecimal totalValue = BigDecimal.ZERO;
-            for (BranchInventory inv : inventories) {
-                Product p = inv.getProduct();
-                table.addCell(new Phrase(p.getSku(), cellFont));
-                table.addCell(new Phrase(p.getName(), cellFont));
-                table.addCell(new Phrase(inv.getBranch().getName(), cellFont));
-                table.addCell(new Phrase(formatCurrency(p.getCostPrice()), cellFont));
-                table.addCell(new Phrase(String.valueOf(inv.getQuantityOnHand()), cellFont));
-                table.addCell(new Phrase(String.valueOf(inv.getQuantityAvailable()), cellFont));
-
-                BigDecimal value = p.getCostPrice() != null
-                        ? p.getCostPrice().multiply(BigDecimal.valueOf(inv.getQuantityOnHand()))
-                        : BigDecimal.ZERO;
-                table.addCell(new Phrase(formatCurrency(value), cellFont));
-                totalValue = totalValue.add(value);
-
-                Font statusFont;
-                String status;
-                if (inv.getQuantityOnHand() == 0) {
-                    status = "OUT OF STOCK";
-                    statusFont = outOfStockFont;
-                } else if (p.getReorderLevel() != null && inv.getQuantityOnHand() < p.getReorderLevel()) {
-                    status = "LOW STOCK";
-                    statusFont = lowStockFont;
-                } else {
-                    status = "IN STOCK";
-                    statusFont = cellFont;
+            try (Stream<InventoryReportRow> inventories = branchId != null
+                    ? branchInventoryRepository.streamReportRowsForBranch(branchId)
+                    : branchInventoryRepository.streamReportRowsAllBranches()) {
+                for (InventoryReportRow inv : (Iterable<InventoryReportRow>) inventories::iterator) {
+                    table.addCell(new Phrase(inv.getSku(), PDF_CELL_FONT));
+                    table.addCell(new Phrase(inv.getProductName(), PDF_CELL_FONT));
+                    table.addCell(new Phrase(inv.getBranchName(), PDF_CELL_FONT));
+                    table.addCell(new Phrase(formatCurrency(inv.getCostPrice()), PDF_CELL_FONT));
+                    table.addCell(new Phrase(String.valueOf(inv.getQuantityOnHand()), PDF_CELL_FONT));
+                    table.addCell(new Phrase(String.valueOf(inv.getQuantityAvailable()), PDF_CELL_FONT));
+
+                    BigDecimal value = inv.getCostPrice() != null
+                            ? inv.getCostPrice().multiply(BigDecimal.valueOf(inv.getQuantityOnHand()))
+                            : BigDecimal.ZERO;
+                    table.addCell(new Phrase(formatCurrency(value), PDF_CELL_FONT));
+                    totalValue = totalValue.add(value);
+
+                    Font statusFont;
+                    String status;
+                    if (inv.getQuantityOnHand() == 0) {
+                        status = "OUT OF STOCK";
+                        statusFont = PDF_OUT_OF_STOCK_FONT;
+                    } else if (inv.getReorderLevel() != null && inv.getQuantityOnHand() < inv.getReorderLevel()) {
+                        status = "LOW STOCK";
+                        statusFont = PDF_LOW_STOCK_FONT;
+                    } else {
+                        status = "IN STOCK";
+                        statusFont = PDF_CELL_FONT;
+                    }
+                    table.addCell(new Phrase(status, statusFont));
+                    flushPdfRows(document, table, ++rowCount);
                 }
-                table.addCell(new Phrase(status, statusFont));
             }
-
+            table.setComplete(true);
             document.add(table);
-            document.add(new Paragraph(" "));
-            document.add(new Paragraph("Total Inventory Value: " + formatCurrency(totalValue),
-                    new Font(Font.HELVETICA, 12, Font.BOLD)));
 
-            document.close();
-            return out.toByteArray();
-        } catch (Exception e) {
-            log.error("Error generating inventory PDF report", e);
-            throw new RuntimeException("Failed to generate inventory PDF report", e);
-        }
+            document.add(new Paragraph(" "));
+            document.add(new Paragraph("Total Inventory Value: " + formatCurrency(totalValue), PDF_TOTAL_FONT));
+        });
     }
 
     // ==========================================
     // PROFIT & LOSS REPORT
     // ==========================================
 
-    public byte[] generateProfitLossReportExcel(LocalDate startDate, LocalDate endDate, Long branchId) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        // Revenue
-        BigDecimal revenue;
-        if (branchId != null) {
-            revenue = saleRepository.getNetSalesForBranch(branchId, start, end);
-        } else {
-            revenue = saleRepository.getNetSalesAllBranches(start, end);
-        }
-        revenue = revenue != null ? revenue : BigDecimal.ZERO;
-
-        // COGS: sum of (cost_price * quantity) for all sold items
-        List<Sale> sales;
-        if (branchId != null) {
-            sales = saleRepository.findByBranchIdAndSaleDateBetween(branchId, start, end);
-        } else {
-            sales = saleRepository.findAll().stream()
-                    .filter(s -> !s.getIsDeleted() && s.getSaleDate().isAfter(start) && s.getSaleDate().isBefore(end))
-                    .toList();
-        }
-        BigDecimal cogs = BigDecimal.ZERO;
-        for (Sale sale : sales) {
-            if (sale.getSaleItems() != null) {
-                for (SaleItem item : sale.getSaleItems()) {
-                    BigDecimal costPrice = item.getProduct().getCostPrice();
-                    if (costPrice != null) {
-                        cogs = cogs.add(costPrice.multiply(BigDecimal.valueOf(item.getQuantity())));
-                    }
-                }
-            }
-        }
+    public void writeProfitLossReportExcel(LocalDate startDate, LocalDate endDate, Long branchId, OutputStream out) {
+        ProfitAndLoss pl = loadProfitAndLoss(startDate, endDate, branchId);
 
-        BigDecimal grossProfit = revenue.subtract(cogs);
-
-        // Expenses
-        List<Expense> expenses;
-        if (branchId != null) {
-            expenses = expenseRepository.findByBranchAndDateRange(branchId, startDate, endDate);
-        } else {
-            expenses = expenseRepository.findAll().stream()
-                    .filter(e -> !e.getIsDeleted()
-                            && !e.getExpenseDate().isBefore(startDate)
-                            && !e.getExpenseDate().isAfter(endDate))
-                    .toList();
-        }
-        BigDecimal totalExpenses = expenses.stream()
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal netProfit = grossProfit.subtract(totalExpenses);
-
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+        writeWorkbook(out, "P&L", workbook -> {
             Sheet sheet = workbook.createSheet("Profit & Loss");
-            CellStyle headerStyle = createHeaderStyle(workbook);
             CellStyle currencyStyle = createCurrencyStyle(workbook);
             CellStyle boldStyle = workbook.createCellStyle();
             org.apache.poi.ss.usermodel.Font boldFont = workbook.createFont();
@@ -412,9 +319,9 @@ public class ReportService {
             titleRow.createCell(0).setCellValue("Profit & Loss Report: " + startDate + " to " + endDate);
 
             int r = 2;
-            addPLRow(sheet, r++, "Revenue (Net Sales)", revenue, currencyStyle, boldStyle);
-            addPLRow(sheet, r++, "Cost of Goods Sold (COGS)", cogs, currencyStyle, null);
-            addPLRow(sheet, r++, "Gross Profit", grossProfit, currencyStyle, boldStyle);
+            addPLRow(sheet, r++, "Revenue (Net Sales)", pl.revenue(), currencyStyle, boldStyle);
+            addPLRow(sheet, r++, "Cost of Goods Sold (COGS)", pl.cogs(), currencyStyle, null);
+            addPLRow(sheet, r++, "Gross Profit", pl.grossProfit(), currencyStyle, boldStyle);
             r++;
 
             // Expense breakdown by category
@@ -422,74 +329,24 @@ public class ReportService {
             expHeader.createCell(0).setCellValue("Expenses by Category");
             expHeader.getCell(0).setCellStyle(boldStyle);
 
-            var expenseByCategory = expenses.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            Expense::getCategory,
-                            java.util.stream.Collectors.reducing(BigDecimal.ZERO, Expense::getAmount, BigDecimal::add)));
-            for (var entry : expenseByCategory.entrySet()) {
-                addPLRow(sheet, r++, "  " + entry.getKey().name(), entry.getValue(), currencyStyle, null);
+            for (CategoryTotal category : pl.expensesByCategory()) {
+                addPLRow(sheet, r++, "  " + category.getCategory().name(), category.getAmount(), currencyStyle, null);
             }
-            addPLRow(sheet, r++, "Total Expenses", totalExpenses, currencyStyle, boldStyle);
+            addPLRow(sheet, r++, "Total Expenses", pl.totalExpenses(), currencyStyle, boldStyle);
             r++;
-            addPLRow(sheet, r, "Net Profit", netProfit, currencyStyle, boldStyle);
-
-            sheet.autoSizeColumn(0);
-            sheet.autoSizeColumn(1);
+            addPLRow(sheet, r, "Net Profit", pl.netProfit(), currencyStyle, boldStyle);
 
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
-        } catch (Exception e) {
-            log.error("Error generating P&L Excel report", e);
-            throw new RuntimeException("Failed to generate P&L report", e);
-        }
+            // A handful of rows, all still inside the window
+            ColumnWidths widths = new ColumnWidths(2);
+            for (Row row : sheet) {
+                if (row.getRowNum() > 0) widths.include(row);
+            }
+            widths.apply(sheet);
+        });
     }
 
     public byte[] generateProfitLossReportPdf(LocalDate startDate, LocalDate endDate, Long branchId) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        BigDecimal revenue;
-        if (branchId != null) {
-            revenue = saleRepository.getNetSalesForBranch(branchId, start, end);
-        } else {
-            revenue = saleRepository.getNetSalesAllBranches(start, end);
-        }
-        revenue = revenue != null ? revenue : BigDecimal.ZERO;
-
-        List<Sale> sales;
-        if (branchId != null) {
-            sales = saleRepository.findByBranchIdAndSaleDateBetween(branchId, start, end);
-        } else {
-            sales = saleRepository.findAll().stream()
-                    .filter(s -> !s.getIsDeleted() && s.getSaleDate().isAfter(start) && s.getSaleDate().isBefore(end))
-                    .toList();
-        }
-        BigDecimal cogs = BigDecimal.ZERO;
-        for (Sale sale : sales) {
-            if (sale.getSaleItems() != null) {
-                for (SaleItem item : sale.getSaleItems()) {
-                    if (item.getProduct().getCostPrice() != null) {
-                        cogs = cogs.add(item.getProduct().getCostPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-                    }
-                }
-            }
-        }
-        BigDecimal grossProfit = revenue.subtract(cogs);
-
-        List<Expense> expenses;
-        if (branchId != null) {
-            expenses = expenseRepository.findByBranchAndDateRange(branchId, startDate, endDate);
-        } else {
-            expenses = expenseRepository.findAll().stream()
-                    .filter(e -> !e.getIsDeleted()
-                            && !e.getExpenseDate().isBefore(startDate)
-                            && !e.getExpenseDate().isAfter(endDate))
-                    .toList();
-        }
-        BigDecimal totalExpenses = expenses.stream()
-                .map(Expense::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal netProfit = grossProfit.subtract(totalExpenses);
+        ProfitAndLoss pl = loadProfitAndLoss(startDate, endDate, branchId);
 
         try {
             ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -510,21 +367,17 @@ public class ReportService {
             table.setWidthPercentage(80);
             table.setWidths(new float[]{3, 1});
 
-            addPdfPLRow(table, "Revenue (Net Sales)", formatCurrency(revenue), boldFont);
-            addPdfPLRow(table, "Cost of Goods Sold", formatCurrency(cogs), normalFont);
-            addPdfPLRow(table, "Gross Profit", formatCurrency(grossProfit), boldFont);
+            addPdfPLRow(table, "Revenue (Net Sales)", formatCurrency(pl.revenue()), boldFont);
+            addPdfPLRow(table, "Cost of Goods Sold", formatCurrency(pl.cogs()), normalFont);
+            addPdfPLRow(table, "Gross Profit", formatCurrency(pl.grossProfit()), boldFont);
             addPdfPLRow(table, "", "", normalFont);
 
-            var expenseByCategory = expenses.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            Expense::getCategory,
-                            java.util.stream.Collectors.reducing(BigDecimal.ZERO, Expense::getAmount, BigDecimal::add)));
-            for (var entry : expenseByCategory.entrySet()) {
-                addPdfPLRow(table, "  " + entry.getKey().name(), formatCurrency(entry.getValue()), normalFont);
+            for (CategoryTotal category : pl.expensesByCategory()) {
+                addPdfPLRow(table, "  " + category.getCategory().name(), formatCurrency(category.getAmount()), normalFont);
             }
-            addPdfPLRow(table, "Total Expenses", formatCurrency(totalExpenses), boldFont);
+            addPdfPLRow(table, "Total Expenses", formatCurrency(pl.totalExpenses()), boldFont);
             addPdfPLRow(table, "", "", normalFont);
-            addPdfPLRow(table, "NET PROFIT", formatCurrency(netProfit), sectionFont);
+            addPdfPLRow(table, "NET PROFIT", formatCurrency(pl.netProfit()), sectionFont);
 
             document.add(table);
             document.close();
@@ -535,18 +388,57 @@ public class ReportService {
         }
     }
 
+    /**
+     * Revenue, COGS and expenses of a period, each summed by the database.
+     */
+    private ProfitAndLoss loadProfitAndLoss(LocalDate startDate, LocalDate endDate, Long branchId) {
+        LocalDateTime start = startDate.atStartOfDay();
+        LocalDateTime end = endDate.atTime(23, 59, 59);
+
+        BigDecimal netSales;
+        SaleItemTotals items;
+        List<CategoryTotal> expenses;
+        if (branchId != null) {
+            netSales = saleRepository.getNetSalesForBranch(branchId, start, end);
+            items = saleItemRepository.getItemTotalsForBranch(branchId, start, end);
+            expenses = expenseRepository.getTotalsByCategoryForBranch(branchId, startDate, endDate);
+        } else {
+            netSales = saleRepository.getNetSalesAllBranches(start, end);
+            items = saleItemRepository.getItemTotalsAllBranches(start, end);
+            expenses = expenseRepository.getTotalsByCategoryAllBranches(startDate, endDate);
+        }
+
+        BigDecimal totalExpenses = expenses.stream()
+                .map(CategoryTotal::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new ProfitAndLoss(
+                netSales != null ? netSales : BigDecimal.ZERO,
+                items.getCostOfGoodsSold(),
+                expenses,
+                totalExpenses);
+    }
+
+    private record ProfitAndLoss(BigDecimal revenue, BigDecimal cogs,
+                                 List<CategoryTotal> expensesByCategory, BigDecimal totalExpenses) {
+
+        BigDecimal grossProfit() {
+            return revenue.subtract(cogs);
+        }
+
+        BigDecimal netProfit() {
+            return grossProfit().subtract(totalExpenses);
+        }
+    }
+
     // ==========================================
     // PURCHASE ORDER REPORT
     // ==========================================
 
-    public byte[] generatePurchaseOrderReportExcel(LocalDate startDate, LocalDate endDate) {
+    public void writePurchaseOrderReportExcel(LocalDate startDate, LocalDate endDate, OutputStream out) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
 
-        List<PurchaseOrder> orders = purchaseOrderRepository
-                .findAllWithItemsByDateRange(start, end, Pageable.unpaged()).getContent();
-
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+        writeWorkbook(out, "PO", workbook -> {
             Sheet sheet = workbook.createSheet("Purchase Orders");
             CellStyle headerStyle = createHeaderStyle(workbook);
             CellStyle currencyStyle = createCurrencyStyle(workbook);
@@ -562,45 +454,160 @@ public class ReportService {
                 cell.setCellValue(headers[i]);
                 cell.setCellStyle(headerStyle);
             }
+            ColumnWidths widths = new ColumnWidths(headers.length);
+            widths.include(headerRow);
 
             int rowIdx = 3;
             BigDecimal grandTotal = BigDecimal.ZERO;
-            for (PurchaseOrder po : orders) {
-                Row row = sheet.createRow(rowIdx++);
-                row.createCell(0).setCellValue(po.getPoNumber());
-                row.createCell(1).setCellValue(po.getSupplier().getName());
-                row.createCell(2).setCellValue(po.getBranch().getName());
-                row.createCell(3).setCellValue(po.getOrderDate().format(DATETIME_FMT));
-                row.createCell(4).setCellValue(po.getExpectedDeliveryDate() != null
-                        ? po.getExpectedDeliveryDate().format(DATE_FMT) : "");
-                row.createCell(5).setCellValue(po.getStatus().name());
-                setCurrencyCell(row, 6, po.getSubtotal(), currencyStyle);
-                setCurrencyCell(row, 7, po.getTaxAmount(), currencyStyle);
-                setCurrencyCell(row, 8, po.getShippingCost(), currencyStyle);
-                setCurrencyCell(row, 9, po.getTotalAmount(), currencyStyle);
-                grandTotal = grandTotal.add(po.getTotalAmount());
+            try (Stream<PurchaseOrderReportRow> orders = purchaseOrderRepository.streamReportRows(start, end)) {
+                for (PurchaseOrderReportRow po : (Iterable<PurchaseOrderReportRow>) orders::iterator) {
+                    Row row = sheet.createRow(rowIdx++);
+                    row.createCell(0).setCellValue(po.getPoNumber());
+                    row.createCell(1).setCellValue(po.getSupplierName());
+                    row.createCell(2).setCellValue(po.getBranchName());
+                    row.createCell(3).setCellValue(po.getOrderDate().format(DATETIME_FMT));
+                    row.createCell(4).setCellValue(po.getExpectedDeliveryDate() != null
+                            ? po.getExpectedDeliveryDate().format(DATE_FMT) : "");
+                    row.createCell(5).setCellValue(po.getStatus().name());
+                    setCurrencyCell(row, 6, po.getSubtotal(), currencyStyle);
+                    setCurrencyCell(row, 7, po.getTaxAmount(), currencyStyle);
+                    setCurrencyCell(row, 8, po.getShippingCost(), currencyStyle);
+                    setCurrencyCell(row, 9, po.getTotalAmount(), currencyStyle);
+                    widths.sample(row);
+                    grandTotal = grandTotal.add(po.getTotalAmount());
+                }
             }
 
             Row summaryRow = sheet.createRow(rowIdx + 1);
             summaryRow.createCell(8).setCellValue("Grand Total:");
             setCurrencyCell(summaryRow, 9, grandTotal, currencyStyle);
+            widths.include(summaryRow);
 
-            for (int i = 0; i < headers.length; i++) sheet.autoSizeColumn(i);
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
-        } catch (Exception e) {
-            log.error("Error generating PO Excel report", e);
-            throw new RuntimeException("Failed to generate PO report", e);
-        }
+            widths.apply(sheet);
+        });
     }
 
     // ==========================================
     // HELPERS
     // ==========================================
 
-    private CellStyle createHeaderStyle(XSSFWorkbook workbook) {
+    /**
+     * Build a workbook with SXSSF and write it to out. Only the last {@link #EXCEL_ROW_WINDOW}
+     * rows of a sheet are kept in memory; older ones are flushed to a compressed temp file,
+     * which is deleted once the workbook has been written.
+     */
+    private void writeWorkbook(OutputStream out, String report, WorkbookContent content) {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW)) {
+            workbook.setCompressTempFiles(true);
+            try {
+                content.fill(workbook);
+                workbook.write(out);
+            } finally {
+                workbook.dispose();
+            }
+        } catch (Exception e) {
+            log.error("Error generating {} Excel report", report, e);
+            throw new RuntimeException("Failed to generate " + report + " report", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface WorkbookContent {
+        void fill(SXSSFWorkbook workbook) throws IOException;
+    }
+
+    /**
+     * Render a landscape A4 document straight to out, which is left open for the caller.
+     */
+    private void writePdf(OutputStream out, String report, PdfContent content) {
+        Document document = new Document(PageSize.A4.rotate());
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            document.open();
+            content.fill(document);
+            document.close();
+        } catch (Exception e) {
+            log.error("Error generating {} PDF report", report, e);
+            throw new RuntimeException("Failed to generate " + report + " PDF report", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PdfContent {
+        void fill(Document document) throws DocumentException;
+    }
+
+    /**
+     * A full-width table with a header row that repeats on every page. The table is left
+     * incomplete so {@link #flushPdfRows} can hand finished rows to the document as they
+     * come; set it complete before adding it for the last time.
+     */
+    private PdfPTable createPdfTable(String... headers) {
+        PdfPTable table = new PdfPTable(headers.length);
+        table.setWidthPercentage(100);
+        for (String h : headers) {
+            PdfPCell cell = new PdfPCell(new Phrase(h, PDF_HEADER_FONT));
+            cell.setBackgroundColor(PDF_HEADER_BACKGROUND);
+            cell.setPadding(5);
+            table.addCell(cell);
+        }
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        return table;
+    }
+
+    /**
+     * Every {@link #PDF_CHUNK_ROWS} rows, lay out the rows added so far and drop them from
+     * the table, so only one chunk of cells is in memory at a time.
+     */
+    private void flushPdfRows(Document document, PdfPTable table, long rowCount) throws DocumentException {
+        if (rowCount % PDF_CHUNK_ROWS == 0) {
+            document.add(table);
+        }
+    }
+
+    /**
+     * Column widths measured on the header and the first rows of a sheet. SXSSF cannot
+     * autosize rows it has already flushed, and measuring every row would cost a pass over
+     * the whole export.
+     */
+    private static final class ColumnWidths {
+        private static final int SAMPLE_ROWS = 200;
+        private static final int MAX_CHARS = 60;
+
+        private final DataFormatter formatter = new DataFormatter();
+        private final int[] chars;
+        private int sampled;
+
+        private ColumnWidths(int columns) {
+            this.chars = new int[columns];
+        }
+
+        private void sample(Row row) {
+            if (sampled < SAMPLE_ROWS) {
+                sampled++;
+                include(row);
+            }
+        }
+
+        private void include(Row row) {
+            for (Cell cell : row) {
+                int col = cell.getColumnIndex();
+                if (col < chars.length) {
+                    chars[col] = Math.max(chars[col], formatter.formatCellValue(cell).length());
+                }
+            }
+        }
+
+        private void apply(Sheet sheet) {
+            for (int i = 0; i < chars.length; i++) {
+                sheet.setColumnWidth(i, (Math.min(chars[i], MAX_CHARS) + 2) * 256);
+            }
+        }
+    }
+
+    private CellStyle createHeaderStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         org.apache.poi.ss.usermodel.Font font = workbook.createFont();
         font.setBold(true);
@@ -611,7 +618,7 @@ public class ReportService {
         return style;
     }
 
-    private CellStyle createCurrencyStyle(XSSFWorkbook workbook) {
+    private CellStyle createCurrencyStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         style.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
         return style;
@@ -0,0 +1,65 @@
+package com.ims.service;
+
+import com.ims.enums.ReservationStatus;
+import com.ims.repository.StockReservationRepository;
+import com.ims.repository.StockReservationRepository.HeldStock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transactional step of the reservation sweeper. Kept separate from StockReservationService
+ * so that every batch goes through the transactional proxy and commits on its own, holding
+ * its row locks only briefly.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationExpiryProcessor {
+
+    private final StockReservationRepository stockReservationRepository;
+    private final InventoryMutationService inventoryMutationService;
+
+    /**
+     * Expired holds found in one batch, and how many of them were expired for how many units.
+     */
+    public record ExpiredBatch(int found, int holds, int units) {
+    }
+
+    /**
+     * Expire up to batchSize holds that ran out before now and give their units back, in
+     * (branch, product) order. Each inventory row is changed before its hold, the order
+     * checkout and reserve use, so the sweeper cannot deadlock with them.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public ExpiredBatch expireBatch(LocalDateTime now, int batchSize) {
+        List<HeldStock> expired = stockReservationRepository.findExpiredStock(
+                ReservationStatus.ACTIVE, now, PageRequest.of(0, batchSize));
+
+        int holds = 0;
+        int units = 0;
+        for (HeldStock hold : expired) {
+            boolean returned = inventoryMutationService.reserve(
+                    hold.getBranchId(), hold.getProductId(), -hold.getQuantity());
+            if (stockReservationRepository.expire(hold.getId(), hold.getQuantity(),
+                    ReservationStatus.ACTIVE, ReservationStatus.EXPIRED, now) == 1) {
+                if (!returned) {
+                    log.warn("Expired hold {} whose {} units were no longer reserved", hold.getId(), hold.getQuantity());
+                    continue;
+                }
+                holds++;
+                units += hold.getQuantity();
+            } else if (returned) {
+                // A checkout or refresh got to the hold first; its units stay where it left them
+                inventoryMutationService.reserve(hold.getBranchId(), hold.getProductId(), hold.getQuantity());
+            }
+        }
+        return new ExpiredBatch(expired.size(), holds, units);
+    }
+}
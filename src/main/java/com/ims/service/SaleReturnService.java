@@ -30,13 +30,18 @@ public class SaleReturnService {
     private final SaleRepository saleRepository;
     private final SaleItemRepository saleItemRepository;
     private final BranchInventoryRepository inventoryRepository;
-    private final StockMovementRepository stockMovementRepository;
+    private final InventoryMutationService inventoryMutationService;
+    private final StockLedgerWriter stockLedgerWriter;
     private final DebtRepository debtRepository;
     private final CreditAccountRepository creditAccountRepository;
     private final CustomerRepository customerRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
     private final MessageService messageService;
+    private final DocumentNumberService documentNumberService;
+    private final OutboxService outboxService;
+    private final SyncService syncService;
+    private final DashboardSnapshotService dashboardSnapshotService;
 
     public SaleReturnDTO createReturn(SaleReturnRequest request, Long userId) {
         log.info("Creating return for sale ID: {}", request.getSaleId());
@@ -71,7 +76,7 @@ public class SaleReturnService {
             }
         }
 
-        String returnNumber = generateReturnNumber();
+        String returnNumber = documentNumberService.nextReturnNumber();
         BigDecimal totalAmount = BigDecimal.ZERO;
 
         SaleReturn saleReturn = new SaleReturn();
@@ -259,6 +264,7 @@ public class SaleReturnService {
         // Mark return as completed
         saleReturn.complete();
         SaleReturn saved = returnRepository.save(saleReturn);
+        recordReturnCompleted(saved);
 
         // Notify about completed return
         notificationService.createNotificationForAllAdmins(
@@ -388,6 +394,7 @@ public class SaleReturnService {
         // Mark return as completed
         saleReturn.complete();
         SaleReturn saved = returnRepository.save(saleReturn);
+        recordReturnCompleted(saved);
 
         // Notify about completed return
         notificationService.createNotificationForAllAdmins(
@@ -424,6 +431,7 @@ public class SaleReturnService {
         inventory.setQuantityOnHand(inventory.getQuantityOnHand() + returnItem.getQuantityReturned());
         inventory.setQuantityAvailable(inventory.getQuantityOnHand() - inventory.getQuantityReserved());
         inventoryRepository.save(inventory);
+        inventoryMutationService.inventoryChanged(inventory.getBranch().getId(), inventory.getProduct().getId());
 
         log.info("Restocked {} units of product {}",
                 returnItem.getQuantityReturned(),
@@ -443,7 +451,17 @@ public class SaleReturnService {
                 .referenceId(returnId)
                 .notes("Return - Condition: " + returnItem.getCondition().name())
                 .build();
-        stockMovementRepository.save(movement);
+        stockLedgerWriter.record(movement);
+    }
+
+    /**
+     * Completed returns feed the daily sales facts and the dashboard once this transaction commits.
+     */
+    private void recordReturnCompleted(SaleReturn saleReturn) {
+        dashboardSnapshotService.markStaleAfterCommit(saleReturn.getBranch().getId());
+        outboxService.record(OutboxEventType.RETURN_COMPLETED, "SaleReturn", saleReturn.getId(),
+                Map.of("returnNumber", saleReturn.getReturnNumber(),
+                        "refundAmount", saleReturn.getRefundAmount().toPlainString()));
     }
 
     private void reduceDebtForReturn(Sale sale, BigDecimal refundAmount) {
@@ -477,6 +495,7 @@ public class SaleReturnService {
             if (customer != null) {
                 customer.reduceDebt(refundAmount);
                 customerRepository.save(customer);
+                syncService.customerChanged(customer, false);
             }
 
             log.info("Reduced debt for sale {} by {}. New balance: {}",
@@ -484,11 +503,6 @@ public class SaleReturnService {
         });
     }
 
-    private String generateReturnNumber() {
-        long count = returnRepository.count() + 1;
-        return String.format("RTN-%05d", count);
-    }
-
     private SaleReturnDTO mapToDTO(SaleReturn saleReturn) {
         return SaleReturnDTO.builder()
                 .id(saleReturn.getId())
@@ -1,25 +1,37 @@
 package com.ims.service;
 
+import com.ims.dto.outbox.SaleCommittedEvent;
 import com.ims.dto.request.SaleItemRequest;
 import com.ims.dto.request.SaleRequest;
+import com.ims.dto.response.BulkSaleResult;
 import com.ims.entity.*;
 import com.ims.enums.*;
 import com.ims.exception.BadRequestException;
 import com.ims.exception.ResourceNotFoundException;
 import com.ims.repository.*;
+import com.ims.security.CurrentUserContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 @Service
 @RequiredArgsConstructor
@@ -30,44 +42,141 @@ public class SaleService {
     private final SaleItemRepository saleItemRepository;
     private final ProductRepository productRepository;
     private final BranchRepository branchRepository;
-    private final UserRepository userRepository;
-    private final BranchInventoryRepository branchInventoryRepository;
-    private final StockMovementRepository stockMovementRepository;
+    private final CurrentUserContext currentUserContext;
+    private final StockLedgerWriter stockLedgerWriter;
     private final CreditAccountRepository creditAccountRepository;
     private final DebtRepository debtRepository;
     private final CustomerRepository customerRepository;
-    private final ProfitMarginService profitMarginService;
     private final AuditLogService auditLogService;
+    private final DocumentNumberService documentNumberService;
+    private final OutboxService outboxService;
+    private final StockReservationService stockReservationService;
+    private final InventoryMutationService inventoryMutationService;
+    private final SyncService syncService;
 
     @Transactional
     public Sale createSale(SaleRequest request) {
+        if (request.getIdempotencyKey() != null) {
+            Optional<Sale> existing = saleRepository.findByIdempotencyKey(request.getIdempotencyKey());
+            if (existing.isPresent()) {
+                log.info("Sale {} already recorded for idempotency key {}",
+                        existing.get().getInvoiceNumber(), request.getIdempotencyKey());
+                return existing.get();
+            }
+        }
+
         Branch branch = branchRepository.findById(request.getBranchId())
                 .orElseThrow(() -> new ResourceNotFoundException("Branch", "id", request.getBranchId()));
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User seller = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
+        User seller = getCurrentSeller();
 
-        // Validate customer if provided
-        Customer customer = null;
-        if (request.getCustomerId() != null) {
-            customer = customerRepository.findById(request.getCustomerId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", request.getCustomerId()));
+        validateRequest(request);
 
-            // Blacklist check: reject sales to BLACKLISTED customers (any payment method)
-            if (customer.getStatus() == CustomerStatus.BLACKLISTED) {
-                throw new BadRequestException(
-                        "Cannot create sale for blacklisted customer: " + customer.getName());
+        Map<Long, Product> products = loadProducts(List.of(request));
+        PreparedSale prepared = prepareSale(request, branch, seller, products);
+
+        persistSales(List.of(prepared));
+        return prepared.sale();
+    }
+
+    /**
+     * Record a batch of sales, typically queued by a till while it was offline.
+     * Branches and products for the whole batch are loaded up front, then each sale takes its
+     * stock in turn, so later sales see the stock taken by earlier ones. A sale that fails
+     * validation is reported and skipped without affecting the others. Sales whose idempotency
+     * key was already recorded are reported as duplicates, so replaying a batch never takes
+     * stock twice.
+     */
+    @Transactional
+    public List<BulkSaleResult> createSales(List<SaleRequest> requests) {
+        User seller = getCurrentSeller();
+        BulkSaleResult[] results = new BulkSaleResult[requests.size()];
+
+        // Sales recorded by an earlier attempt of this batch
+        Set<String> keys = new HashSet<>();
+        for (SaleRequest request : requests) {
+            if (request.getIdempotencyKey() != null) {
+                keys.add(request.getIdempotencyKey());
             }
+        }
+        Map<String, Sale> recorded = new HashMap<>();
+        if (!keys.isEmpty()) {
+            for (Sale sale : saleRepository.findByIdempotencyKeyIn(keys)) {
+                recorded.put(sale.getIdempotencyKey(), sale);
+            }
+        }
 
-            // Suspended check: reject credit sales to SUSPENDED customers
-            if (request.getPaymentMethod() == PaymentMethod.CREDIT
-                    && customer.getStatus() == CustomerStatus.SUSPENDED) {
-                throw new BadRequestException(
-                        "Cannot create credit sale for suspended customer: " + customer.getName());
+        List<SaleRequest> pending = requests.stream()
+                .filter(request -> !recorded.containsKey(request.getIdempotencyKey()))
+                .toList();
+        Set<Long> branchIds = new HashSet<>();
+        for (SaleRequest request : pending) {
+            if (request.getBranchId() != null) {
+                branchIds.add(request.getBranchId());
             }
         }
+        Map<Long, Branch> branches = new HashMap<>();
+        for (Branch branch : branchRepository.findAllById(branchIds)) {
+            branches.put(branch.getId(), branch);
+        }
+        Map<Long, Product> products = loadProducts(pending);
+
+        List<PreparedSale> prepared = new ArrayList<>();
+        Map<Integer, PreparedSale> createdAt = new HashMap<>();
+        Map<String, PreparedSale> keysInBatch = new HashMap<>();
+        Map<Integer, PreparedSale> repeatedAt = new HashMap<>();
 
+        for (int i = 0; i < requests.size(); i++) {
+            SaleRequest request = requests.get(i);
+            String key = request.getIdempotencyKey();
+
+            if (key != null && recorded.containsKey(key)) {
+                results[i] = BulkSaleResult.duplicate(key, recorded.get(key));
+                continue;
+            }
+            if (key != null && keysInBatch.containsKey(key)) {
+                repeatedAt.put(i, keysInBatch.get(key));
+                continue;
+            }
+
+            try {
+                validateRequest(request);
+                Branch branch = branches.get(request.getBranchId());
+                if (branch == null) {
+                    throw new ResourceNotFoundException("Branch", "id", request.getBranchId());
+                }
+                PreparedSale sale = prepareSale(request, branch, seller, products);
+                prepared.add(sale);
+                createdAt.put(i, sale);
+                if (key != null) {
+                    keysInBatch.put(key, sale);
+                }
+            } catch (BadRequestException | ResourceNotFoundException e) {
+                results[i] = BulkSaleResult.failed(key, e.getMessage());
+            }
+        }
+
+        persistSales(prepared);
+
+        createdAt.forEach((i, sale) -> results[i] = BulkSaleResult.created(
+                requests.get(i).getIdempotencyKey(), sale.sale()));
+        repeatedAt.forEach((i, sale) -> results[i] = BulkSaleResult.duplicate(
+                requests.get(i).getIdempotencyKey(), sale.sale()));
+
+        log.info("Bulk sale submission: {} created, {} duplicates, {} failed",
+                createdAt.size(), Arrays.stream(results).filter(r -> r.getStatus() == BulkSaleResult.Status.DUPLICATE).count(),
+                Arrays.stream(results).filter(r -> r.getStatus() == BulkSaleResult.Status.FAILED).count());
+        return Arrays.asList(results);
+    }
+
+    private User getCurrentSeller() {
+        return currentUserContext.getUser();
+    }
+
+    /**
+     * Checks that need nothing but the request itself.
+     */
+    private void validateRequest(SaleRequest request) {
         // Validate sale-level amounts
         if (request.getTaxAmount().compareTo(BigDecimal.ZERO) < 0) {
             throw new BadRequestException("Tax amount cannot be negative");
@@ -82,12 +191,8 @@ public class SaleService {
             throw new BadRequestException("Sale must have at least one item");
         }
 
-        // Calculate totals
-        BigDecimal subtotal = BigDecimal.ZERO;
-        List<SaleItem> saleItems = new ArrayList<>();
-
+        // Validate item-level amounts
         for (SaleItemRequest itemReq : request.getItems()) {
-            // Validate item-level amounts
             if (itemReq.getQuantity() <= 0) {
                 throw new BadRequestException("Quantity must be greater than zero");
             }
@@ -100,20 +205,43 @@ public class SaleService {
             if (itemReq.getDiscountAmount().compareTo(BigDecimal.ZERO) < 0) {
                 throw new BadRequestException("Item discount amount cannot be negative");
             }
+        }
+    }
 
-            Product product = productRepository.findById(itemReq.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product", "id", itemReq.getProductId()));
+    /**
+     * Validate a sale and build it. Stock is taken only once every other check has passed,
+     * then the customer's debt is raised, so a following sale in the same batch sees both.
+     */
+    private PreparedSale prepareSale(SaleRequest request, Branch branch, User seller,
+                                     Map<Long, Product> products) {
+        // Validate customer if provided
+        Customer customer = null;
+        if (request.getCustomerId() != null) {
+            customer = customerRepository.findById(request.getCustomerId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", request.getCustomerId()));
 
-            // Check stock availability
-            BranchInventory inventory = branchInventoryRepository
-                    .findByBranchIdAndProductId(branch.getId(), product.getId())
-                    .orElseThrow(() -> new BadRequestException(
-                            "Product " + product.getName() + " not available in this branch"));
+            // Blacklist check: reject sales to BLACKLISTED customers (any payment method)
+            if (customer.getStatus() == CustomerStatus.BLACKLISTED) {
+                throw new BadRequestException(
+                        "Cannot create sale for blacklisted customer: " + customer.getName());
+            }
 
-            if (inventory.getQuantityAvailable() < itemReq.getQuantity()) {
+            // Suspended check: reject credit sales to SUSPENDED customers
+            if (request.getPaymentMethod() == PaymentMethod.CREDIT
+                    && customer.getStatus() == CustomerStatus.SUSPENDED) {
                 throw new BadRequestException(
-                        "Insufficient stock for " + product.getName() +
-                                ". Available: " + inventory.getQuantityAvailable());
+                        "Cannot create credit sale for suspended customer: " + customer.getName());
+            }
+        }
+
+        // Calculate totals
+        BigDecimal subtotal = BigDecimal.ZERO;
+        List<SaleItem> saleItems = new ArrayList<>();
+
+        for (SaleItemRequest itemReq : request.getItems()) {
+            Product product = products.get(itemReq.getProductId());
+            if (product == null) {
+                throw new ResourceNotFoundException("Product", "id", itemReq.getProductId());
             }
 
             BigDecimal lineTotal = itemReq.getUnitPrice()
@@ -143,11 +271,11 @@ public class SaleService {
                 .subtract(request.getDiscountAmount());
 
         BigDecimal amountDue = totalAmount.subtract(request.getAmountPaid());
+        boolean creditSale = request.getPaymentMethod() == PaymentMethod.CREDIT
+                && amountDue.compareTo(BigDecimal.ZERO) > 0;
 
         // Credit limit enforcement: before creating a credit sale, check available credit
-        if (request.getPaymentMethod() == PaymentMethod.CREDIT
-                && amountDue.compareTo(BigDecimal.ZERO) > 0
-                && customer != null) {
+        if (creditSale && customer != null) {
             if (customer.getAvailableCredit().compareTo(amountDue) < 0) {
                 throw new BadRequestException(
                         "Credit limit exceeded for customer " + customer.getName() +
@@ -156,6 +284,26 @@ public class SaleService {
             }
         }
 
+        // Resolve the credit account and due date before anything is written
+        CreditAccount creditAccount = null;
+        LocalDate dueDate = null;
+        if (creditSale) {
+            if (request.getCreditAccountId() != null) {
+                creditAccount = creditAccountRepository.findById(request.getCreditAccountId())
+                        .orElseThrow(() -> new ResourceNotFoundException(
+                                "CreditAccount", "id", request.getCreditAccountId()));
+            }
+            try {
+                dueDate = request.getDueDate() != null
+                        ? LocalDate.parse(request.getDueDate()) : LocalDate.now().plusDays(30);
+            } catch (DateTimeParseException e) {
+                throw new BadRequestException("Invalid due date: " + request.getDueDate());
+            }
+        }
+
+        // All checks passed: take the stock, handing over anything the cart holds
+        List<StockMovement> movements = takeStock(request, branch, products);
+
         // Determine sale status
         SaleStatus status;
         if (request.getPaymentMethod() == PaymentMethod.CREDIT) {
@@ -165,7 +313,8 @@ public class SaleService {
         }
 
         Sale sale = Sale.builder()
-                .invoiceNumber(generateInvoiceNumber(branch))
+                .invoiceNumber(documentNumberService.nextInvoiceNumber(branch))
+                .idempotencyKey(request.getIdempotencyKey())
                 .branch(branch)
                 .seller(seller)
                 .customer(customer)
@@ -189,65 +338,173 @@ public class SaleService {
             sale.addSaleItem(item);
         }
 
-        Sale savedSale = saleRepository.save(sale);
-
-        // Audit log
-        auditLogService.logCreate("Sale", savedSale.getId(),
-                java.util.Map.of("invoiceNumber", savedSale.getInvoiceNumber(),
-                        "totalAmount", savedSale.getTotalAmount().toPlainString(),
-                        "paymentMethod", savedSale.getPaymentMethod().name(),
-                        "status", savedSale.getStatus().name(),
-                        "itemCount", String.valueOf(savedSale.getSaleItems().size())));
-
-        // Update inventory and create stock movements, check profit margins
-        for (SaleItem item : savedSale.getSaleItems()) {
-            updateInventoryForSale(branch, item.getProduct(), item.getQuantity(), savedSale.getId());
-            // Profit margin warning check
-            profitMarginService.checkMarginOnSale(item.getProduct().getId(), item.getUnitPrice());
+        // Update Customer.currentDebt so credit limit enforcement stays accurate
+        if (creditSale && customer != null) {
+            customer.addDebt(amountDue);
         }
 
-        // Handle credit sale
-        if (request.getPaymentMethod() == PaymentMethod.CREDIT &&
-                amountDue.compareTo(BigDecimal.ZERO) > 0) {
-            createDebtRecord(savedSale, request.getCreditAccountId(), request.getDueDate(), customer);
+        return new PreparedSale(sale, customer, creditAccount, dueDate, movements);
+    }
+
+    /**
+     * Write prepared sales with one saveAll per table, then their debts and outbox events.
+     */
+    private void persistSales(List<PreparedSale> prepared) {
+        if (prepared.isEmpty()) {
+            return;
         }
 
-        return savedSale;
-    }
+        saleRepository.saveAll(prepared.stream().map(PreparedSale::sale).toList());
 
-    private void updateInventoryForSale(Branch branch, Product product, Integer quantity, Long saleId) {
-        BranchInventory inventory = branchInventoryRepository
-                .findByBranchIdAndProductIdForUpdate(branch.getId(), product.getId())
-                .orElseThrow(() -> new BadRequestException("Inventory not found"));
+        List<StockMovement> movements = new ArrayList<>();
+        for (PreparedSale p : prepared) {
+            for (StockMovement movement : p.movements()) {
+                movement.setReferenceId(p.sale().getId());
+                movements.add(movement);
+            }
+        }
+        stockLedgerWriter.recordAll(movements);
 
-        int oldQuantity = inventory.getQuantityOnHand();
-        int newQuantity = oldQuantity - quantity;
+        String ipAddress = auditLogService.getClientIpAddress();
+        for (PreparedSale p : prepared) {
+            Sale savedSale = p.sale();
 
-        inventory.setQuantityOnHand(newQuantity);
-        inventory.setQuantityAvailable(newQuantity - inventory.getQuantityReserved());
-        branchInventoryRepository.save(inventory);
+            // Handle credit sale
+            if (p.dueDate() != null) {
+                createDebtRecord(savedSale, p.creditAccount(), p.dueDate(), p.customer());
+            }
 
-        // Create stock movement
-        StockMovement movement = StockMovement.builder()
-                .product(product)
-                .branch(branch)
-                .movementType(StockMovementType.SALE)
-                .quantity(quantity)
-                .quantityBefore(oldQuantity)
-                .quantityAfter(newQuantity)
-                .referenceType("SALE")
-                .referenceId(saleId)
-                .notes("Sale transaction")
-                .build();
-        stockMovementRepository.save(movement);
+            // Audit log, profit margin checks and the daily sales facts run after commit, off the request thread
+            outboxService.record(OutboxEventType.SALE_COMMITTED, "Sale", savedSale.getId(),
+                    SaleCommittedEvent.builder()
+                            .saleId(savedSale.getId())
+                            .invoiceNumber(savedSale.getInvoiceNumber())
+                            .totalAmount(savedSale.getTotalAmount())
+                            .paymentMethod(savedSale.getPaymentMethod().name())
+                            .status(savedSale.getStatus().name())
+                            .sellerId(savedSale.getSeller().getId())
+                            .ipAddress(ipAddress)
+                            .items(savedSale.getSaleItems().stream()
+                                    .map(item -> new SaleCommittedEvent.Line(
+                                            item.getProduct().getId(), item.getUnitPrice()))
+                                    .toList())
+                            .build());
+        }
     }
 
-    private void createDebtRecord(Sale sale, Long creditAccountId, String dueDateStr, Customer customer) {
-        CreditAccount creditAccount;
-        if (creditAccountId != null) {
-            creditAccount = creditAccountRepository.findById(creditAccountId)
-                    .orElseThrow(() -> new ResourceNotFoundException("CreditAccount", "id", creditAccountId));
-        } else {
+    /**
+     * Products of every line in the given sales, in one query.
+     */
+    private Map<Long, Product> loadProducts(List<SaleRequest> requests) {
+        Set<Long> productIds = new HashSet<>();
+        for (SaleRequest request : requests) {
+            if (request.getItems() != null) {
+                for (SaleItemRequest itemReq : request.getItems()) {
+                    productIds.add(itemReq.getProductId());
+                }
+            }
+        }
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            products.put(product.getId(), product);
+        }
+        return products;
+    }
+
+    /**
+     * Take the basket's stock with one guarded update per product, handing over the units the
+     * cart holds. If a product is short, what was already taken is given back, so a failed sale
+     * in a batch leaves stock as it found it. Movements get their referenceId once the sale
+     * has been saved.
+     *
+     * Products are handled in id order, each inventory row before its hold, the order reserve
+     * and the expiry sweeper use too, so a checkout cannot deadlock with them.
+     */
+    private List<StockMovement> takeStock(SaleRequest request, Branch branch, Map<Long, Product> products) {
+        Map<Long, List<SaleItemRequest>> linesByProduct = new TreeMap<>();
+        for (SaleItemRequest itemReq : request.getItems()) {
+            linesByProduct.computeIfAbsent(itemReq.getProductId(), id -> new ArrayList<>()).add(itemReq);
+        }
+        Map<Long, StockReservationRepository.HeldStock> holds = request.getReservationKey() != null
+                ? stockReservationService.findActiveHolds(request.getReservationKey(), branch.getId())
+                : Map.of();
+
+        Set<Long> productIds = new TreeSet<>(linesByProduct.keySet());
+        productIds.addAll(holds.keySet());
+
+        List<StockMovement> movements = new ArrayList<>();
+        List<Runnable> undo = new ArrayList<>();
+        try {
+            for (Long productId : productIds) {
+                StockReservationRepository.HeldStock hold = holds.get(productId);
+                List<SaleItemRequest> lines = linesByProduct.get(productId);
+                if (lines == null) {
+                    // Holds on products that left the basket go back to the shelf
+                    if (stockReservationService.releaseHold(branch.getId(), hold)) {
+                        undo.add(() -> stockReservationService.restoreHold(branch.getId(), hold));
+                    }
+                    continue;
+                }
+                Product product = products.get(productId);
+                int quantity = lines.stream().mapToInt(SaleItemRequest::getQuantity).sum();
+
+                InventoryMutationService.StockChange change = null;
+                int released = 0;
+                if (hold != null) {
+                    change = inventoryMutationService
+                            .take(branch.getId(), productId, quantity, hold.getQuantity())
+                            .orElse(null);
+                    if (change != null && stockReservationService.claim(hold)) {
+                        released = hold.getQuantity();
+                        undo.add(() -> stockReservationService.unclaim(hold));
+                    } else if (change != null) {
+                        // The hold was settled since it was read; its units are no longer ours to release
+                        inventoryMutationService.giveBack(branch.getId(), productId, quantity, hold.getQuantity());
+                        change = null;
+                    }
+                }
+                if (change == null) {
+                    int heldUnits = hold != null ? hold.getQuantity() : 0;
+                    change = inventoryMutationService.take(branch.getId(), productId, quantity, 0)
+                            .orElseThrow(() -> insufficientStock(branch.getId(), product, heldUnits));
+                }
+                int releasedUnits = released;
+                undo.add(() -> inventoryMutationService.giveBack(branch.getId(), productId, quantity, releasedUnits));
+
+                // One movement per line, splitting the product's change in line order
+                int before = change.quantityBefore();
+                for (SaleItemRequest itemReq : lines) {
+                    movements.add(StockMovement.builder()
+                            .product(product)
+                            .branch(branch)
+                            .movementType(StockMovementType.SALE)
+                            .quantity(itemReq.getQuantity())
+                            .quantityBefore(before)
+                            .quantityAfter(before - itemReq.getQuantity())
+                            .referenceType("SALE")
+                            .notes("Sale transaction")
+                            .build());
+                    before -= itemReq.getQuantity();
+                }
+            }
+        } catch (BadRequestException e) {
+            Collections.reverse(undo);
+            undo.forEach(Runnable::run);
+            throw e;
+        }
+        return movements;
+    }
+
+    private BadRequestException insufficientStock(Long branchId, Product product, int heldUnits) {
+        return inventoryMutationService.quantityAvailable(branchId, product.getId())
+                .map(available -> new BadRequestException(
+                        "Insufficient stock for " + product.getName() + ". Available: " + (available + heldUnits)))
+                .orElseGet(() -> new BadRequestException(
+                        "Product " + product.getName() + " not available in this branch"));
+    }
+
+    private void createDebtRecord(Sale sale, CreditAccount creditAccount, LocalDate dueDate, Customer customer) {
+        if (creditAccount == null) {
             // Create new credit account for this customer
             creditAccount = CreditAccount.builder()
                     .accountNumber("CA-" + System.currentTimeMillis())
@@ -260,8 +517,6 @@ public class SaleService {
             creditAccount = creditAccountRepository.save(creditAccount);
         }
 
-        LocalDate dueDate = dueDateStr != null ? LocalDate.parse(dueDateStr) : LocalDate.now().plusDays(30);
-
         Debt debt = Debt.builder()
                 .creditAccount(creditAccount)
                 .sale(sale)
@@ -279,21 +534,15 @@ public class SaleService {
                 creditAccount.getTotalCreditUsed().add(sale.getAmountDue()));
         creditAccountRepository.save(creditAccount);
 
-        // Update Customer.currentDebt so credit limit enforcement stays accurate
+        // Customer.currentDebt was raised when the sale was prepared
         if (customer != null) {
-            customer.addDebt(sale.getAmountDue());
             customerRepository.save(customer);
+            syncService.customerChanged(customer, false);
         }
     }
 
-    private String generateInvoiceNumber(Branch branch) {
-        LocalDateTime yearStart = LocalDateTime.now().withMonth(1).withDayOfMonth(1).toLocalDate().atStartOfDay();
-        Long count = saleRepository.getYearlySalesCount(branch.getId(), yearStart);
-        long sequence = count + 1;
-        return String.format("%s-INV-%d-%05d",
-                branch.getCode(),
-                LocalDateTime.now().getYear(),
-                sequence);
+    private record PreparedSale(Sale sale, Customer customer, CreditAccount creditAccount,
+                                LocalDate dueDate, List<StockMovement> movements) {
     }
 
     // ==========================================
@@ -0,0 +1,58 @@
+package com.ims.service;
+
+import com.ims.entity.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity listener that passes saved and deleted searchable records to the search index, and
+ * products to the typeahead too. Saved and deleted products are also dropped from the POS
+ * product cache, so no product write path can leave it stale. The indexes are looked up on
+ * use, as listeners are created while the entity manager starts.
+ * A record the index cannot take never fails the save; the next rebuild picks it up.
+ */
+@Component
+@Slf4j
+public class SearchIndexListener {
+
+    private final ObjectProvider<SearchIndexService> searchIndexService;
+    private final ObjectProvider<ProductTypeaheadService> productTypeaheadService;
+    private final ObjectProvider<StockAvailabilityCache> stockAvailabilityCache;
+
+    public SearchIndexListener(ObjectProvider<SearchIndexService> searchIndexService,
+                               ObjectProvider<ProductTypeaheadService> productTypeaheadService,
+                               ObjectProvider<StockAvailabilityCache> stockAvailabilityCache) {
+        this.searchIndexService = searchIndexService;
+        this.productTypeaheadService = productTypeaheadService;
+        this.stockAvailabilityCache = stockAvailabilityCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Object entity) {
+        index(entity, false);
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        index(entity, true);
+    }
+
+    private void index(Object entity, boolean removed) {
+        if (entity instanceof Product product) {
+            stockAvailabilityCache.getObject().evictProductAfterCommit(product.getId(), product.getBarcode());
+        }
+        try {
+            searchIndexService.getObject().indexAfterCommit(entity, removed);
+            if (entity instanceof Product product) {
+                productTypeaheadService.getObject().indexAfterCommit(product, removed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not index {}: {}", entity.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+}
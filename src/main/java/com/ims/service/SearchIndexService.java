@@ -0,0 +1,456 @@
+package com.ims.service;
+
+import com.ims.entity.CreditAccount;
+import com.ims.entity.Customer;
+import com.ims.entity.Product;
+import com.ims.entity.Supplier;
+import com.ims.enums.SearchEntityType;
+import com.ims.repository.CreditAccountRepository;
+import com.ims.repository.CustomerRepository;
+import com.ims.repository.ProductRepository;
+import com.ims.repository.SupplierRepository;
+import com.ims.util.TransactionScopedBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory trigram index over product, customer, supplier and credit account search fields,
+ * replacing LIKE '%term%' scans that no index can serve. Every query word must match a word of
+ * the record: exactly, as a prefix, as a substring, or within one typo (two for long words).
+ * Results are ranked by how closely they match, identifier fields (SKU, barcode, codes, phone
+ * numbers) above names.
+ *
+ * The index is built when the application starts and rebuilt on a schedule. In between,
+ * {@link SearchIndexListener} feeds it the records each transaction saves or deletes once the
+ * transaction commits. Until the first build completes, callers fall back to the database queries.
+ */
+@Service
+@Slf4j
+public class SearchIndexService {
+
+    private static final int EXACT = 4;
+    private static final int PREFIX = 3;
+    private static final int SUBSTRING = 2;
+    private static final int FUZZY = 1;
+    private static final int IDENTIFIER_BONUS = 6;
+
+    private final ProductRepository productRepository;
+    private final CustomerRepository customerRepository;
+    private final SupplierRepository supplierRepository;
+    private final CreditAccountRepository creditAccountRepository;
+    private final int maxMatches;
+
+    private final Map<SearchEntityType, TypeIndex> indexes = new EnumMap<>(SearchEntityType.class);
+    private volatile boolean ready;
+
+    public SearchIndexService(ProductRepository productRepository,
+                              CustomerRepository customerRepository,
+                              SupplierRepository supplierRepository,
+                              CreditAccountRepository creditAccountRepository,
+                              @Value("${app.search.max-matches:1000}") int maxMatches) {
+        this.productRepository = productRepository;
+        this.customerRepository = customerRepository;
+        this.supplierRepository = supplierRepository;
+        this.creditAccountRepository = creditAccountRepository;
+        this.maxMatches = maxMatches;
+        for (SearchEntityType type : SearchEntityType.values()) {
+            indexes.put(type, new TypeIndex());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ids of the records of a type matching the query, best match first, at most app.search.max-matches.
+     * A branchId limits customers to that branch; activeOnly drops inactive products and suppliers.
+     */
+    public List<Long> search(SearchEntityType type, String query, Long branchId, boolean activeOnly) {
+        List<String> words = words(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        String wholeQuery = String.join(" ", words);
+        TypeIndex index = indexes.get(type);
+
+        List<Match> matches = new ArrayList<>();
+        String rarest = words.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+        for (Doc doc : index.candidates(rarest)) {
+            if ((branchId != null && !branchId.equals(doc.branchId)) || (activeOnly && !doc.active)) {
+                continue;
+            }
+            int score = score(doc, words, wholeQuery);
+            if (score > 0) {
+                matches.add(new Match(doc, score));
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::score).reversed()
+                .thenComparingInt(match -> match.doc.length)
+                .thenComparingLong(match -> match.doc.id));
+        return matches.stream()
+                .limit(maxMatches)
+                .map(match -> match.doc.id)
+                .toList();
+    }
+
+    /**
+     * One page of ranked ids, loaded and returned in rank order.
+     */
+    public <T> Page<T> page(List<Long> rankedIds, Pageable pageable,
+                            Function<Collection<Long>, List<T>> loader, Function<T, Long> idOf) {
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), rankedIds.size());
+        return new PageImpl<>(load(rankedIds.subList(from, to), loader, idOf), pageable, rankedIds.size());
+    }
+
+    /**
+     * Records with the given ids, in the order of the ids.
+     */
+    public <T> List<T> load(List<Long> ids, Function<Collection<Long>, List<T>> loader, Function<T, Long> idOf) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, T> found = loader.apply(ids).stream()
+                .collect(Collectors.toMap(idOf, Function.identity(), (a, b) -> a));
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Index a saved record, or drop a deleted one, once the current transaction commits.
+     */
+    void indexAfterCommit(Object entity, boolean removed) {
+        Change change = toChange(entity, removed);
+        if (change == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+        pendingChanges().put(change.type + "|" + change.id, change);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.rebuild-interval-ms:900000}",
+            initialDelayString = "${app.search.rebuild-interval-ms:900000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Reload every index from the database. Changes committed while the records load are
+     * replayed onto the new index before it replaces the old one.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        indexes.values().forEach(TypeIndex::startReplay);
+        Map<SearchEntityType, List<Doc>> loaded = new EnumMap<>(SearchEntityType.class);
+        try {
+            loaded.put(SearchEntityType.PRODUCT, docs(productRepository.findAll()));
+            loaded.put(SearchEntityType.CUSTOMER, docs(customerRepository.findAll()));
+            loaded.put(SearchEntityType.SUPPLIER, docs(supplierRepository.findAll()));
+            loaded.put(SearchEntityType.CREDIT_ACCOUNT, docs(creditAccountRepository.findAll()));
+        } catch (RuntimeException e) {
+            indexes.values().forEach(TypeIndex::stopReplay);
+            throw e;
+        }
+        loaded.forEach((type, docs) -> indexes.get(type).replaceWith(docs));
+        ready = true;
+        log.info("Search index rebuilt in {} ms: {} products, {} customers, {} suppliers, {} credit accounts",
+                System.currentTimeMillis() - start, loaded.get(SearchEntityType.PRODUCT).size(),
+                loaded.get(SearchEntityType.CUSTOMER).size(), loaded.get(SearchEntityType.SUPPLIER).size(),
+                loaded.get(SearchEntityType.CREDIT_ACCOUNT).size());
+    }
+
+    private void apply(Change change) {
+        indexes.get(change.type).apply(change);
+    }
+
+    private Map<String, Change> pendingChanges() {
+        return TransactionScopedBuffer.get(this, LinkedHashMap::new, changes -> changes.values().forEach(this::apply));
+    }
+
+    // ==========================================
+    // DOCUMENTS
+    // ==========================================
+
+    private List<Doc> docs(List<?> entities) {
+        List<Doc> docs = new ArrayList<>(entities.size());
+        for (Object entity : entities) {
+            Change change = toChange(entity, false);
+            if (change != null && change.doc != null) {
+                docs.add(change.doc);
+            }
+        }
+        return docs;
+    }
+
+    /**
+     * The index entry of a record as it is now; a null doc removes the record from the index.
+     */
+    private static Change toChange(Object entity, boolean removed) {
+        if (entity instanceof Product product) {
+            boolean gone = removed || Boolean.TRUE.equals(product.getIsDeleted());
+            return new Change(SearchEntityType.PRODUCT, product.getId(), gone ? null : new Doc(product.getId(), null,
+                    !Boolean.FALSE.equals(product.getIsActive()),
+                    Arrays.asList(product.getSku(), product.getBarcode()), Arrays.asList(product.getName())));
+        }
+        if (entity instanceof Customer customer) {
+            boolean gone = removed || Boolean.TRUE.equals(customer.getIsDeleted());
+            return new Change(SearchEntityType.CUSTOMER, customer.getId(), gone ? null : new Doc(customer.getId(),
+                    customer.getBranch() != null ? customer.getBranch().getId() : null, true,
+                    Arrays.asList(customer.getCustomerId(), customer.getPhone()),
+                    Arrays.asList(customer.getName(), customer.getEmail())));
+        }
+        if (entity instanceof Supplier supplier) {
+            boolean gone = removed || Boolean.TRUE.equals(supplier.getIsDeleted());
+            return new Change(SearchEntityType.SUPPLIER, supplier.getId(), gone ? null : new Doc(supplier.getId(), null,
+                    !Boolean.FALSE.equals(supplier.getIsActive()),
+                    Arrays.asList(supplier.getCode()), Arrays.asList(supplier.getName(), supplier.getContactPerson())));
+        }
+        if (entity instanceof CreditAccount account) {
+            boolean gone = removed || Boolean.TRUE.equals(account.getIsDeleted());
+            return new Change(SearchEntityType.CREDIT_ACCOUNT, account.getId(), gone ? null : new Doc(account.getId(),
+                    null, true,
+                    Arrays.asList(account.getAccountNumber(), account.getCustomerPhone()),
+                    Arrays.asList(account.getCustomerName())));
+        }
+        return null;
+    }
+
+    // ==========================================
+    // MATCHING
+    // ==========================================
+
+    /**
+     * Sum of each query word's best match, or 0 if any word matches nothing.
+     */
+    private static int score(Doc doc, List<String> words, String wholeQuery) {
+        int total = 0;
+        for (String word : words) {
+            int best = 0;
+            for (String term : doc.terms) {
+                best = Math.max(best, match(word, term));
+                if (best == EXACT) {
+                    break;
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        for (String identifier : doc.identifiers) {
+            if (identifier.equals(wholeQuery)) {
+                total += IDENTIFIER_BONUS;
+            } else if (identifier.startsWith(wholeQuery)) {
+                total += IDENTIFIER_BONUS / 2;
+            }
+        }
+        return total;
+    }
+
+    private static int match(String word, String term) {
+        if (term.equals(word)) {
+            return EXACT;
+        }
+        if (term.startsWith(word)) {
+            return PREFIX;
+        }
+        if (term.contains(word)) {
+            return SUBSTRING;
+        }
+        int allowed = word.length() >= 8 ? 2 : word.length() >= 4 ? 1 : 0;
+        if (allowed > 0 && Math.abs(term.length() - word.length()) <= allowed
+                && editDistance(word, term, allowed) <= allowed) {
+            return FUZZY;
+        }
+        return 0;
+    }
+
+    /**
+     * Optimal string alignment distance, giving up once it exceeds max.
+     */
+    private static int editDistance(String a, String b, int max) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, d[i][j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Trigrams of a word padded as pg_trgm does, so a word's start has trigrams of its own.
+     */
+    private static Set<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private record Match(Doc doc, int score) {
+    }
+
+    private record Change(SearchEntityType type, Long id, Doc doc) {
+    }
+
+    private static final class Doc {
+        private final long id;
+        private final Long branchId;
+        private final boolean active;
+        private final List<String> identifiers;
+        private final Set<String> terms;
+        private final Set<String> trigrams;
+        private final int length;
+
+        private Doc(long id, Long branchId, boolean active, List<String> identifierValues, List<String> textValues) {
+            this.id = id;
+            this.branchId = branchId;
+            this.active = active;
+            this.identifiers = normalized(identifierValues);
+            List<String> all = new ArrayList<>(identifiers);
+            all.addAll(normalized(textValues));
+            this.terms = new LinkedHashSet<>();
+            all.forEach(field -> terms.addAll(words(field)));
+            this.trigrams = new HashSet<>();
+            terms.forEach(term -> trigrams.addAll(trigrams(term)));
+            this.length = all.stream().mapToInt(String::length).sum();
+        }
+
+        private static List<String> normalized(List<String> values) {
+            return values.stream()
+                    .filter(Objects::nonNull)
+                    .map(value -> value.toLowerCase(Locale.ROOT).trim())
+                    .filter(value -> !value.isEmpty())
+                    .toList();
+        }
+    }
+
+    /**
+     * The documents of one type and a posting list of ids per trigram. Writers lock the index;
+     * searches read the concurrent maps without locking.
+     */
+    private static final class TypeIndex {
+        private volatile Map<Long, Doc> docs = new ConcurrentHashMap<>();
+        private volatile Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+        private List<Change> replay;
+
+        /**
+         * Records that may hold the word: those sharing a trigram with it, or all of them for
+         * words too short to have an inner trigram.
+         */
+        private Collection<Doc> candidates(String word) {
+            Map<Long, Doc> currentDocs = docs;
+            if (word.length() < 3) {
+                return currentDocs.values();
+            }
+            Map<String, Set<Long>> currentPostings = postings;
+            Set<Long> ids = new HashSet<>();
+            for (String trigram : trigrams(word)) {
+                ids.addAll(currentPostings.getOrDefault(trigram, Set.of()));
+            }
+            List<Doc> candidates = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                Doc doc = currentDocs.get(id);
+                if (doc != null) {
+                    candidates.add(doc);
+                }
+            }
+            return candidates;
+        }
+
+        private synchronized void apply(Change change) {
+            put(docs, postings, change);
+            if (replay != null) {
+                replay.add(change);
+            }
+        }
+
+        private synchronized void startReplay() {
+            replay = new ArrayList<>();
+        }
+
+        private synchronized void stopReplay() {
+            replay = null;
+        }
+
+        private synchronized void replaceWith(List<Doc> loaded) {
+            Map<Long, Doc> newDocs = new ConcurrentHashMap<>();
+            Map<String, Set<Long>> newPostings = new ConcurrentHashMap<>();
+            for (Doc doc : loaded) {
+                put(newDocs, newPostings, new Change(null, doc.id, doc));
+            }
+            replay.forEach(change -> put(newDocs, newPostings, change));
+            replay = null;
+            postings = newPostings;
+            docs = newDocs;
+        }
+
+        private static void put(Map<Long, Doc> docs, Map<String, Set<Long>> postings, Change change) {
+            Doc old = change.doc != null ? docs.put(change.id, change.doc) : docs.remove(change.id);
+            if (old != null) {
+                for (String trigram : old.trigrams) {
+                    Set<Long> ids = postings.get(trigram);
+                    if (ids != null) {
+                        ids.remove(change.id);
+                    }
+                }
+            }
+            if (change.doc != null) {
+                for (String trigram : change.doc.trigrams) {
+                    postings.computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet()).add(change.id);
+                }
+            }
+        }
+    }
+}
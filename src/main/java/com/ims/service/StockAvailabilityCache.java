@@ -0,0 +1,174 @@
+package com.ims.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ims.entity.BranchInventory;
+import com.ims.entity.Category;
+import com.ims.entity.Product;
+import com.ims.repository.BranchInventoryRepository;
+import com.ims.repository.ProductRepository;
+import com.ims.util.TransactionScopedBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-memory stock counts and products for POS lookups, so a barcode scan on a hot SKU is
+ * answered without a database round trip. Bounded caches with W-TinyLFU eviction; hit, miss
+ * and eviction counts are published as cache.* metrics under the pos.* cache names.
+ *
+ * Every stock and product write evicts the entries it touched once its transaction commits,
+ * and the next lookup reloads them. Entries also expire after a short TTL to pick up changes
+ * made outside this application.
+ */
+@Service
+@Slf4j
+public class StockAvailabilityCache {
+
+    /**
+     * Stock counts of one product in one branch.
+     */
+    public record StockLevel(int quantityOnHand, int quantityReserved, int quantityAvailable) {
+    }
+
+    /**
+     * The fields of a product that POS lookups need. Cached instead of the entity, which is
+     * mutable and tied to the session that loaded it, and so not safe to share across threads.
+     */
+    public record CachedProduct(Long id, String sku, String name, String barcode, BigDecimal unitPrice,
+                                Long categoryId, String categoryName) {
+
+        static CachedProduct of(Product product) {
+            Category category = product.getCategory();
+            return new CachedProduct(product.getId(), product.getSku(), product.getName(), product.getBarcode(),
+                    product.getUnitPrice(), category != null ? category.getId() : null,
+                    category != null ? category.getName() : null);
+        }
+    }
+
+    private final BranchInventoryRepository branchInventoryRepository;
+    private final ProductRepository productRepository;
+
+    // Keyed by branch id in the high and product id in the low 32 bits; empty when the branch has no row
+    private final Cache<Long, Optional<StockLevel>> stockLevels;
+    private final Cache<Long, CachedProduct> products;
+    private final Cache<String, Long> barcodes;
+
+    public StockAvailabilityCache(BranchInventoryRepository branchInventoryRepository,
+                                  ProductRepository productRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.stock-cache.max-stock-levels:20000}") long maxStockLevels,
+                                  @Value("${app.stock-cache.max-products:10000}") long maxProducts,
+                                  @Value("${app.stock-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.branchInventoryRepository = branchInventoryRepository;
+        this.productRepository = productRepository;
+
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.stockLevels = Caffeine.newBuilder()
+                .maximumSize(maxStockLevels).expireAfterWrite(ttl).recordStats().build();
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxProducts).expireAfterWrite(ttl).recordStats().build();
+        this.barcodes = Caffeine.newBuilder()
+                .maximumSize(maxProducts).expireAfterWrite(ttl).recordStats().build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, stockLevels, "pos.stock-levels");
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "pos.products");
+        CaffeineCacheMetrics.monitor(meterRegistry, barcodes, "pos.barcodes");
+    }
+
+    public Optional<StockLevel> getStockLevel(Long branchId, Long productId) {
+        return stockLevels.get(key(branchId, productId), k -> branchInventoryRepository
+                .findStockLevel(branchId, productId)
+                .map(level -> new StockLevel(level.getQuantityOnHand(), level.getQuantityReserved(),
+                        level.getQuantityAvailable())));
+    }
+
+    /**
+     * The product, or null if there is none. Unknown ids are not cached.
+     */
+    public CachedProduct getProduct(Long productId) {
+        return products.get(productId, id -> productRepository.findById(id).map(CachedProduct::of).orElse(null));
+    }
+
+    /**
+     * The product with this barcode, or null if there is none. Unknown barcodes are not cached.
+     * A product evicted after a write is only known by its new barcode, so a cached barcode
+     * whose product no longer carries it is looked up again.
+     */
+    public CachedProduct getProductByBarcode(String barcode) {
+        CachedProduct product = findByCachedBarcode(barcode);
+        if (product != null && !barcode.equals(product.barcode())) {
+            barcodes.invalidate(barcode);
+            product = findByCachedBarcode(barcode);
+        }
+        return product;
+    }
+
+    private CachedProduct findByCachedBarcode(String barcode) {
+        Long productId = barcodes.get(barcode, code -> productRepository.findByBarcode(code)
+                .map(product -> {
+                    products.put(product.getId(), CachedProduct.of(product));
+                    return product.getId();
+                })
+                .orElse(null));
+        return productId != null ? getProduct(productId) : null;
+    }
+
+    /**
+     * Drop the cached stock counts of an inventory row once the current transaction commits.
+     */
+    public void evictAfterCommit(Long branchId, Long productId) {
+        long key = key(branchId, productId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stockLevels.invalidate(key);
+            return;
+        }
+        pendingEvictions().add(key);
+    }
+
+    public void evictAfterCommit(BranchInventory inventory) {
+        evictAfterCommit(inventory.getBranch().getId(), inventory.getProduct().getId());
+    }
+
+    /**
+     * Drop a product and the barcodes it was cached under once the current transaction commits.
+     */
+    public void evictProductAfterCommit(Long productId, String... productBarcodes) {
+        Runnable eviction = () -> {
+            products.invalidate(productId);
+            for (String barcode : productBarcodes) {
+                if (barcode != null) {
+                    barcodes.invalidate(barcode);
+                }
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+
+    private Set<Long> pendingEvictions() {
+        return TransactionScopedBuffer.get(this, HashSet::new, stockLevels::invalidateAll);
+    }
+
+    private static long key(Long branchId, Long productId) {
+        return (branchId << 32) | productId;
+    }
+}
@@ -0,0 +1,57 @@
+package com.ims.service;
+
+import com.ims.entity.StockMovement;
+import com.ims.repository.StockMovementRepository;
+import com.ims.util.TransactionScopedBuffer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Collects the stock movements of one business operation and writes them together just before
+ * its transaction commits. StockMovement ids come from a pooled sequence, so the whole set goes
+ * out as JDBC batches (hibernate.jdbc.batch_size) instead of one INSERT per movement, and no
+ * intervening query can flush them one at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockLedgerWriter {
+
+    private final StockMovementRepository stockMovementRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public void record(StockMovement movement) {
+        pendingMovements().add(movement);
+    }
+
+    public void recordAll(Collection<StockMovement> movements) {
+        pendingMovements().addAll(movements);
+    }
+
+    private List<StockMovement> pendingMovements() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Stock movements can only be recorded inside a transaction");
+        }
+        return TransactionScopedBuffer.get(this, ArrayList::new, this::write, null);
+    }
+
+    private void write(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        stockMovementRepository.saveAll(movements);
+        entityManager.flush();
+        log.debug("Wrote {} stock movements", movements.size());
+        movements.clear();
+    }
+}
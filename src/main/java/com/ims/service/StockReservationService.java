@@ -0,0 +1,244 @@
+package com.ims.service;
+
+import com.ims.dto.request.ReservationItemRequest;
+import com.ims.dto.request.ReservationRequest;
+import com.ims.entity.Branch;
+import com.ims.entity.Product;
+import com.ims.entity.StockReservation;
+import com.ims.enums.ReservationStatus;
+import com.ims.exception.BadRequestException;
+import com.ims.exception.ResourceNotFoundException;
+import com.ims.repository.BranchRepository;
+import com.ims.repository.ProductRepository;
+import com.ims.repository.StockReservationRepository;
+import com.ims.repository.StockReservationRepository.HeldStock;
+import com.ims.service.ReservationExpiryProcessor.ExpiredBatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Holds stock for a cart while it is being scanned, so checkout only has to hand the held
+ * units over to the sale. A hold moves units from quantityAvailable into quantityReserved
+ * until the cart checks out, releases it, or it expires and the sweeper gives it back.
+ * Every change of a hold is conditional on the status and quantity last read, so checkout,
+ * release and the sweeper can race for the same hold and exactly one of them returns its units.
+ * All of them change a product's inventory row before its hold, product by product in id
+ * order, so they cannot deadlock on each other's rows; whoever loses the race on the hold
+ * puts the inventory row back.
+ */
+@Service
+@Slf4j
+public class StockReservationService {
+
+    private final StockReservationRepository stockReservationRepository;
+    private final InventoryMutationService inventoryMutationService;
+    private final ReservationExpiryProcessor reservationExpiryProcessor;
+    private final BranchRepository branchRepository;
+    private final ProductRepository productRepository;
+    private final int defaultTtlSeconds;
+    private final int maxTtlSeconds;
+    private final int sweepBatchSize;
+
+    public StockReservationService(StockReservationRepository stockReservationRepository,
+                                   InventoryMutationService inventoryMutationService,
+                                   ReservationExpiryProcessor reservationExpiryProcessor,
+                                   BranchRepository branchRepository,
+                                   ProductRepository productRepository,
+                                   @Value("${app.reservations.default-ttl-seconds:900}") int defaultTtlSeconds,
+                                   @Value("${app.reservations.max-ttl-seconds:3600}") int maxTtlSeconds,
+                                   @Value("${app.reservations.sweep-batch-size:50}") int sweepBatchSize) {
+        this.stockReservationRepository = stockReservationRepository;
+        this.inventoryMutationService = inventoryMutationService;
+        this.reservationExpiryProcessor = reservationExpiryProcessor;
+        this.branchRepository = branchRepository;
+        this.productRepository = productRepository;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    /**
+     * Set the cart's holds in a branch to the requested quantities; a quantity of 0 releases
+     * that product's hold. Every remaining hold of the cart gets the new expiry.
+     */
+    @Transactional
+    public List<StockReservation> reserve(ReservationRequest request) {
+        Branch branch = branchRepository.findById(request.getBranchId())
+                .orElseThrow(() -> new ResourceNotFoundException("Branch", "id", request.getBranchId()));
+
+        int ttlSeconds = request.getTtlSeconds() != null ? request.getTtlSeconds() : defaultTtlSeconds;
+        if (ttlSeconds <= 0 || ttlSeconds > maxTtlSeconds) {
+            throw new BadRequestException("Reservation TTL must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusSeconds(ttlSeconds);
+
+        Map<Long, Integer> requested = new TreeMap<>();
+        for (ReservationItemRequest item : request.getItems()) {
+            requested.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        Map<Long, HeldStock> holds = findActiveHolds(request.getReservationKey(), branch.getId());
+        Set<Long> productIds = new TreeSet<>(requested.keySet());
+        productIds.addAll(holds.keySet());
+
+        // Any failure below rolls back the lines already changed
+        for (Long productId : productIds) {
+            HeldStock hold = holds.get(productId);
+            int held = hold != null ? hold.getQuantity() : 0;
+            if (!requested.containsKey(productId)) {
+                // Holds on products not mentioned in this request are kept alive with the cart
+                stockReservationRepository.resize(hold.getId(), ReservationStatus.ACTIVE, held, held, expiresAt, now);
+                continue;
+            }
+            int quantity = requested.get(productId);
+
+            if (hold == null && quantity == 0) {
+                continue;
+            }
+            if (quantity != held && !inventoryMutationService.reserve(branch.getId(), productId, quantity - held)) {
+                throw insufficientStock(branch.getId(), productId);
+            }
+
+            if (hold == null) {
+                Product product = productRepository.findById(productId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+                stockReservationRepository.save(StockReservation.builder()
+                        .reservationKey(request.getReservationKey())
+                        .branch(branch)
+                        .product(product)
+                        .quantity(quantity)
+                        .status(ReservationStatus.ACTIVE)
+                        .expiresAt(expiresAt)
+                        .build());
+            } else {
+                int updated = quantity == 0
+                        ? stockReservationRepository.transition(
+                                hold.getId(), held, ReservationStatus.ACTIVE, ReservationStatus.RELEASED, now)
+                        : stockReservationRepository.resize(
+                                hold.getId(), ReservationStatus.ACTIVE, held, quantity, expiresAt, now);
+                if (updated == 0) {
+                    throw new BadRequestException("Reservation " + request.getReservationKey() +
+                            " changed while it was being updated; please retry");
+                }
+            }
+        }
+
+        return stockReservationRepository.findByKeyAndBranch(
+                request.getReservationKey(), branch.getId(), ReservationStatus.ACTIVE);
+    }
+
+    /**
+     * Release every active hold of a cart in a branch.
+     */
+    @Transactional
+    public int release(String reservationKey, Long branchId) {
+        int released = 0;
+        for (HeldStock hold : findActiveHolds(reservationKey, branchId).values()) {
+            if (releaseHold(branchId, hold)) {
+                released++;
+            }
+        }
+        log.info("Released {} holds for reservation {}", released, reservationKey);
+        return released;
+    }
+
+    @Transactional(readOnly = true)
+    public List<StockReservation> getReservations(String reservationKey, Long branchId) {
+        return stockReservationRepository.findByKeyAndBranch(reservationKey, branchId, ReservationStatus.ACTIVE);
+    }
+
+    /**
+     * Active holds of a cart in a branch, keyed and ordered by product id.
+     */
+    public Map<Long, HeldStock> findActiveHolds(String reservationKey, Long branchId) {
+        Map<Long, HeldStock> holds = new TreeMap<>();
+        for (HeldStock hold : stockReservationRepository
+                .findHeldStock(reservationKey, branchId, ReservationStatus.ACTIVE)) {
+            holds.put(hold.getProductId(), hold);
+        }
+        return holds;
+    }
+
+    /**
+     * Claim a hold for a sale, after taking the stock with the hold's units released from
+     * quantityReserved. On failure the caller must put those units back.
+     */
+    public boolean claim(HeldStock hold) {
+        return stockReservationRepository.transition(hold.getId(), hold.getQuantity(),
+                ReservationStatus.ACTIVE, ReservationStatus.CONSUMED, LocalDateTime.now()) == 1;
+    }
+
+    /**
+     * Undo a {@link #claim} whose sale could not take its stock.
+     */
+    public void unclaim(HeldStock hold) {
+        stockReservationRepository.transition(hold.getId(), hold.getQuantity(),
+                ReservationStatus.CONSUMED, ReservationStatus.ACTIVE, LocalDateTime.now());
+    }
+
+    /**
+     * Release one hold and give its units back to available stock, unless something else
+     * got to the hold first.
+     */
+    public boolean releaseHold(Long branchId, HeldStock hold) {
+        // Units no longer reserved means the hold was settled since it was read
+        if (!inventoryMutationService.reserve(branchId, hold.getProductId(), -hold.getQuantity())) {
+            return false;
+        }
+        if (stockReservationRepository.transition(hold.getId(), hold.getQuantity(),
+                ReservationStatus.ACTIVE, ReservationStatus.RELEASED, LocalDateTime.now()) == 0) {
+            inventoryMutationService.reserve(branchId, hold.getProductId(), hold.getQuantity());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Undo a {@link #releaseHold} whose sale could not take its stock.
+     */
+    public void restoreHold(Long branchId, HeldStock hold) {
+        inventoryMutationService.reserve(branchId, hold.getProductId(), hold.getQuantity());
+        stockReservationRepository.transition(hold.getId(), hold.getQuantity(),
+                ReservationStatus.RELEASED, ReservationStatus.ACTIVE, LocalDateTime.now());
+    }
+
+    /**
+     * Give expired holds back to available stock, in batches that each commit on their own.
+     */
+    @Scheduled(fixedDelayString = "${app.reservations.sweep-interval-ms:30000}", initialDelay = 20000)
+    public void releaseExpiredReservations() {
+        LocalDateTime now = LocalDateTime.now();
+        int holds = 0;
+        int units = 0;
+        ExpiredBatch batch;
+        do {
+            batch = reservationExpiryProcessor.expireBatch(now, sweepBatchSize);
+            holds += batch.holds();
+            units += batch.units();
+        } while (batch.found() == sweepBatchSize);
+
+        if (holds > 0) {
+            log.info("Released {} expired holds ({} units)", holds, units);
+        }
+    }
+
+    private BadRequestException insufficientStock(Long branchId, Long productId) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+        return inventoryMutationService.quantityAvailable(branchId, productId)
+                .map(available -> new BadRequestException(
+                        "Insufficient stock for " + product.getName() + ". Available: " + available))
+                .orElseGet(() -> new BadRequestException(
+                        "Product " + product.getName() + " not available in this branch"));
+    }
+}
@@ -5,6 +5,7 @@ import com.ims.enums.*;
 import com.ims.exception.BadRequestException;
 import com.ims.exception.ResourceNotFoundException;
 import com.ims.repository.*;
+import com.ims.service.InventoryMutationService.StockChange;
 import com.ims.util.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -26,9 +28,10 @@ public class StockTakeService {
     private final StockTakeItemRepository stockTakeItemRepository;
     private final BranchInventoryRepository branchInventoryRepository;
     private final BranchRepository branchRepository;
-    private final StockMovementRepository stockMovementRepository;
+    private final StockLedgerWriter stockLedgerWriter;
     private final NotificationService notificationService;
     private final SecurityUtils securityUtils;
+    private final InventoryMutationService inventoryMutationService;
 
     public StockTake initiateStockTake(Long branchId, String notes) {
         Branch branch = branchRepository.findById(branchId)
@@ -100,28 +103,22 @@ public class StockTakeService {
                 discrepancyCount++;
 
                 if (applyAdjustments) {
-                    BranchInventory inventory = branchInventoryRepository
-                            .findByBranchIdAndProductIdForUpdate(stockTake.getBranch().getId(), item.getProduct().getId())
-                            .orElse(null);
-
-                    if (inventory != null) {
-                        int oldQty = inventory.getQuantityOnHand();
-                        inventory.setQuantityOnHand(item.getPhysicalQuantity());
-                        inventory.setQuantityAvailable(item.getPhysicalQuantity() - inventory.getQuantityReserved());
-                        branchInventoryRepository.save(inventory);
+                    Optional<StockChange> change = inventoryMutationService.replace(
+                            stockTake.getBranch().getId(), item.getProduct().getId(), item.getPhysicalQuantity());
 
+                    if (change.isPresent()) {
                         StockMovement movement = StockMovement.builder()
                                 .product(item.getProduct())
                                 .branch(stockTake.getBranch())
                                 .movementType(StockMovementType.STOCK_TAKE)
                                 .quantity(Math.abs(item.getDiscrepancy()))
-                                .quantityBefore(oldQty)
-                                .quantityAfter(item.getPhysicalQuantity())
+                                .quantityBefore(change.get().quantityBefore())
+                                .quantityAfter(change.get().quantityAfter())
                                 .referenceType("STOCK_TAKE")
                                 .referenceId(stockTake.getId())
                                 .notes("Stock take adjustment: " + stockTake.getStockTakeNumber())
                                 .build();
-                        stockMovementRepository.save(movement);
+                        stockLedgerWriter.record(movement);
                     }
                 }
             }
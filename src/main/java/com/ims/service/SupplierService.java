@@ -3,6 +3,7 @@ package com.ims.service;
 import com.ims.dto.supplier.SupplierDTO;
 import com.ims.dto.supplier.SupplierRequest;
 import com.ims.entity.Supplier;
+import com.ims.enums.SearchEntityType;
 import com.ims.exception.ResourceNotFoundException;
 import com.ims.repository.SupplierRepository;
 import lombok.RequiredArgsConstructor;
@@ -21,6 +22,7 @@ import java.util.List;
 public class SupplierService {
 
     private final SupplierRepository supplierRepository;
+    private final SearchIndexService searchIndexService;
 
     public SupplierDTO createSupplier(SupplierRequest request) {
         Supplier supplier = Supplier.builder()
@@ -54,7 +56,11 @@ public class SupplierService {
 
     @Transactional(readOnly = true)
     public Page<SupplierDTO> searchSuppliers(String search, Pageable pageable) {
-        return supplierRepository.searchByNameOrContact(search, pageable).map(this::mapToDTO);
+        if (!searchIndexService.isReady()) {
+            return supplierRepository.searchByNameOrContact(search, pageable).map(this::mapToDTO);
+        }
+        return searchIndexService.page(searchIndexService.search(SearchEntityType.SUPPLIER, search, null, false),
+                pageable, supplierRepository::findAllById, Supplier::getId).map(this::mapToDTO);
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,465 @@
+package com.ims.service;
+
+import com.ims.dto.sync.*;
+import com.ims.entity.Category;
+import com.ims.entity.Customer;
+import com.ims.entity.Product;
+import com.ims.entity.SyncChange;
+import com.ims.enums.SyncEntityType;
+import com.ims.enums.SyncSnapshotSection;
+import com.ims.repository.BranchInventoryRepository;
+import com.ims.repository.BranchInventoryRepository.ProductStockLevelView;
+import com.ims.repository.CategoryRepository;
+import com.ims.repository.CustomerRepository;
+import com.ims.repository.ProductRepository;
+import com.ims.repository.SyncChangeRepository;
+import com.ims.util.TransactionScopedBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Change feed for offline tills. Product, customer and inventory writes are logged in
+ * sync_changes, whose id is a change sequence; a till sends back the last sequence it saw and
+ * receives the current state of whatever changed since, with deletions as tombstones.
+ *
+ * A transaction's changes are logged just before it commits, one row per record however often
+ * it was touched, so sequences are handed out close to commit order. Rows younger than the
+ * settle window are held back so that a slower transaction holding a lower sequence is not
+ * skipped. Rows past the retention period are pruned; a till whose cursor predates the
+ * remaining log is told to take a fresh snapshot.
+ *
+ * Snapshots are downloaded a section at a time in chunks paged by id, each addressed by the last
+ * id of the chunk before it, so a till on a slow link can resume a broken download where it
+ * stopped. Rows are positional under one column header, with repetitive text columns
+ * dictionary-coded; the response is gzipped by the server's compression settings.
+ */
+@Service
+@Slf4j
+public class SyncService {
+
+    private final SyncChangeRepository syncChangeRepository;
+    private final ProductRepository productRepository;
+    private final CustomerRepository customerRepository;
+    private final BranchInventoryRepository branchInventoryRepository;
+    private final CategoryRepository categoryRepository;
+    private final EventStreamService eventStreamService;
+
+    private final int maxChanges;
+    private final int snapshotChunkSize;
+    private final Duration settle;
+    private final Duration retention;
+
+    public SyncService(SyncChangeRepository syncChangeRepository,
+                       ProductRepository productRepository,
+                       CustomerRepository customerRepository,
+                       BranchInventoryRepository branchInventoryRepository,
+                       CategoryRepository categoryRepository,
+                       EventStreamService eventStreamService,
+                       @Value("${app.sync.max-changes:1000}") int maxChanges,
+                       @Value("${app.sync.snapshot-chunk-size:2000}") int snapshotChunkSize,
+                       @Value("${app.sync.settle-ms:2000}") long settleMs,
+                       @Value("${app.sync.retention-days:30}") long retentionDays) {
+        this.syncChangeRepository = syncChangeRepository;
+        this.productRepository = productRepository;
+        this.customerRepository = customerRepository;
+        this.branchInventoryRepository = branchInventoryRepository;
+        this.categoryRepository = categoryRepository;
+        this.eventStreamService = eventStreamService;
+        this.maxChanges = maxChanges;
+        this.snapshotChunkSize = snapshotChunkSize;
+        this.settle = Duration.ofMillis(settleMs);
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    public void productChanged(Long productId, boolean deleted) {
+        record(SyncEntityType.PRODUCT, productId, null, deleted);
+    }
+
+    public void customerChanged(Customer customer, boolean deleted) {
+        record(SyncEntityType.CUSTOMER, customer.getId(), customer.getBranch().getId(), deleted);
+    }
+
+    public void inventoryChanged(Long branchId, Long productId) {
+        record(SyncEntityType.INVENTORY, productId, branchId, false);
+    }
+
+    /**
+     * Sequence of the newest logged change, for a snapshot to hand out as the starting cursor.
+     */
+    @Transactional(readOnly = true)
+    public long getLatestCursor() {
+        Long latest = syncChangeRepository.findLatestSeq();
+        return latest != null ? latest : 0L;
+    }
+
+    /**
+     * Cursor that replays everything logged after a point in time, for tills that still sync by timestamp.
+     */
+    @Transactional(readOnly = true)
+    public long getCursorAt(LocalDateTime since) {
+        Long first = syncChangeRepository.findFirstSeqAfter(since);
+        return first != null ? first - 1 : getLatestCursor();
+    }
+
+    @Transactional(readOnly = true)
+    public SyncChangesResponse getChanges(Long branchId, long cursor, Integer limit) {
+        Long oldest = syncChangeRepository.findOldestSeq();
+        if (oldest != null && cursor < oldest - 1) {
+            return SyncChangesResponse.builder()
+                    .cursor(cursor)
+                    .resetRequired(true)
+                    .products(List.of())
+                    .customers(List.of())
+                    .inventory(List.of())
+                    .deleted(List.of())
+                    .build();
+        }
+
+        int pageSize = limit != null ? Math.max(1, Math.min(limit, maxChanges)) : maxChanges;
+        List<SyncChange> changes = syncChangeRepository.findChangesAfter(
+                cursor, branchId, LocalDateTime.now().minus(settle), PageRequest.of(0, pageSize + 1));
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = changes.subList(0, pageSize);
+        }
+
+        // Latest entry per record; the till only needs its current state
+        Map<SyncEntityType, Map<Long, Boolean>> latest = new EnumMap<>(SyncEntityType.class);
+        for (SyncChange change : changes) {
+            latest.computeIfAbsent(change.getEntityType(), type -> new LinkedHashMap<>())
+                    .put(change.getEntityId(), change.getDeleted());
+        }
+
+        List<SyncTombstone> deleted = new ArrayList<>();
+        List<SyncProductDTO> products = loadProducts(live(latest, SyncEntityType.PRODUCT, deleted), deleted);
+        List<SyncCustomerDTO> customers = loadCustomers(
+                live(latest, SyncEntityType.CUSTOMER, deleted), branchId, deleted);
+        List<SyncInventoryDTO> inventory = loadInventory(live(latest, SyncEntityType.INVENTORY, deleted), branchId);
+
+        return SyncChangesResponse.builder()
+                .cursor(changes.isEmpty() ? cursor : changes.get(changes.size() - 1).getId())
+                .hasMore(hasMore)
+                .products(products)
+                .customers(customers)
+                .inventory(inventory)
+                .deleted(deleted)
+                .build();
+    }
+
+    /**
+     * Start of a chunked snapshot. The cursor is taken before any chunk is read, so changes made
+     * while the till downloads are replayed by the change feed afterwards.
+     */
+    @Transactional(readOnly = true)
+    public SyncSnapshotManifest getSnapshotManifest(Long branchId) {
+        long cursor = getLatestCursor();
+        Map<SyncSnapshotSection, Long> rowCounts = new EnumMap<>(SyncSnapshotSection.class);
+        rowCounts.put(SyncSnapshotSection.CATEGORIES, categoryRepository.countByIsDeletedFalse());
+        rowCounts.put(SyncSnapshotSection.PRODUCTS, productRepository.countByIsDeletedFalse());
+        rowCounts.put(SyncSnapshotSection.CUSTOMERS, customerRepository.countByBranchIdAndIsDeletedFalse(branchId));
+        rowCounts.put(SyncSnapshotSection.INVENTORY, branchInventoryRepository.countByBranchId(branchId));
+
+        return SyncSnapshotManifest.builder()
+                .branchId(branchId)
+                .generatedAt(LocalDateTime.now())
+                .cursor(cursor)
+                .chunkSize(snapshotChunkSize)
+                .rowCounts(rowCounts)
+                .build();
+    }
+
+    /**
+     * The rows of a snapshot section after an id: category, product or customer id, or product
+     * id for inventory.
+     */
+    @Transactional(readOnly = true)
+    public SyncSnapshotChunk getSnapshotChunk(Long branchId, SyncSnapshotSection section, long after, Integer limit) {
+        int pageSize = limit != null ? Math.max(1, Math.min(limit, snapshotChunkSize)) : snapshotChunkSize;
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        return switch (section) {
+            case CATEGORIES -> {
+                ChunkWriter chunk = new ChunkWriter(section, after, pageSize, "id", "name", "parentId");
+                for (Category category : chunk.limit(categoryRepository.findSnapshotPage(after, page))) {
+                    chunk.add(category.getId(), category.getName(),
+                            category.getParent() != null ? category.getParent().getId() : null);
+                }
+                yield chunk.build();
+            }
+            case PRODUCTS -> {
+                ChunkWriter chunk = new ChunkWriter(section, after, pageSize, "id", "sku", "name", "barcode",
+                        "categoryId", "brand", "model", "unit", "unitPrice", "costPrice", "reorderLevel", "isActive")
+                        .dictionary("brand", "unit");
+                for (Product product : chunk.limit(productRepository.findSnapshotPage(after, page))) {
+                    chunk.add(product.getId(), product.getSku(), product.getName(), product.getBarcode(),
+                            product.getCategory() != null ? product.getCategory().getId() : null,
+                            product.getBrand(), product.getModel(), product.getUnit(),
+                            product.getUnitPrice(), product.getCostPrice(), product.getReorderLevel(),
+                            product.getIsActive());
+                }
+                yield chunk.build();
+            }
+            case CUSTOMERS -> {
+                ChunkWriter chunk = new ChunkWriter(section, after, pageSize, "id", "customerId", "name", "phone",
+                        "email", "customerType", "status", "creditLimit", "currentDebt")
+                        .dictionary("customerType", "status");
+                for (Customer customer : chunk.limit(customerRepository.findSnapshotPage(branchId, after, page))) {
+                    chunk.add(customer.getId(), customer.getCustomerId(), customer.getName(), customer.getPhone(),
+                            customer.getEmail(),
+                            customer.getCustomerType() != null ? customer.getCustomerType().name() : null,
+                            customer.getStatus() != null ? customer.getStatus().name() : null,
+                            customer.getCreditLimit(), customer.getCurrentDebt());
+                }
+                yield chunk.build();
+            }
+            case INVENTORY -> {
+                ChunkWriter chunk = new ChunkWriter(section, after, pageSize,
+                        "productId", "quantityOnHand", "quantityReserved", "quantityAvailable");
+                for (ProductStockLevelView level
+                        : chunk.limit(branchInventoryRepository.findStockLevelPage(branchId, after, page))) {
+                    chunk.add(level.getProductId(), level.getQuantityOnHand(), level.getQuantityReserved(),
+                            level.getQuantityAvailable());
+                }
+                yield chunk.build();
+            }
+        };
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    @Transactional
+    public void pruneChangeLog() {
+        Long latest = syncChangeRepository.findLatestSeq();
+        if (latest == null) {
+            return;
+        }
+        // The newest row always stays, so the oldest retained sequence still tells stale cursors apart
+        int removed = syncChangeRepository.deleteRecordedBefore(LocalDateTime.now().minus(retention), latest);
+        if (removed > 0) {
+            log.info("Pruned {} sync change log rows older than {} days", removed, retention.toDays());
+        }
+    }
+
+    /**
+     * Log a change in the current transaction. Entries are written just before it commits and
+     * dropped if it rolls back.
+     */
+    private void record(SyncEntityType type, Long entityId, Long branchId, boolean deleted) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishStockChanges(List.of(syncChangeRepository.save(toChange(type, entityId, branchId, deleted))));
+            return;
+        }
+        pendingChanges().put(type + "|" + entityId + "|" + branchId, toChange(type, entityId, branchId, deleted));
+    }
+
+    private Map<String, SyncChange> pendingChanges() {
+        return TransactionScopedBuffer.get(this, LinkedHashMap::new, this::saveChanges,
+                changes -> publishStockChanges(changes.values()));
+    }
+
+    private void saveChanges(Map<String, SyncChange> changes) {
+        LocalDateTime now = LocalDateTime.now();
+        changes.values().forEach(change -> change.setRecordedAt(now));
+        syncChangeRepository.saveAll(changes.values());
+    }
+
+    /**
+     * Push the stock changes of a committed transaction to the event streams of their branches.
+     */
+    private void publishStockChanges(Collection<SyncChange> changes) {
+        Map<Long, Set<Long>> productIdsByBranch = new HashMap<>();
+        for (SyncChange change : changes) {
+            if (change.getEntityType() == SyncEntityType.INVENTORY) {
+                productIdsByBranch.computeIfAbsent(change.getBranchId(), id -> new LinkedHashSet<>())
+                        .add(change.getEntityId());
+            }
+        }
+        productIdsByBranch.forEach(eventStreamService::publishStockChanges);
+    }
+
+    private static SyncChange toChange(SyncEntityType type, Long entityId, Long branchId, boolean deleted) {
+        return SyncChange.builder()
+                .entityType(type)
+                .entityId(entityId)
+                .branchId(branchId)
+                .deleted(deleted)
+                .recordedAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Ids of one type whose latest entry is not a deletion; the deletions go to tombstones.
+     */
+    private static List<Long> live(Map<SyncEntityType, Map<Long, Boolean>> latest, SyncEntityType type,
+                                   List<SyncTombstone> deleted) {
+        List<Long> ids = new ArrayList<>();
+        latest.getOrDefault(type, Map.of()).forEach((id, isDeleted) -> {
+            if (isDeleted) {
+                deleted.add(new SyncTombstone(type, id));
+            } else {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    private List<SyncProductDTO> loadProducts(List<Long> ids, List<SyncTombstone> deleted) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> found = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<SyncProductDTO> products = new ArrayList<>();
+        for (Long id : ids) {
+            Product product = found.get(id);
+            if (product == null || Boolean.TRUE.equals(product.getIsDeleted())) {
+                deleted.add(new SyncTombstone(SyncEntityType.PRODUCT, id));
+            } else {
+                products.add(toProductDTO(product));
+            }
+        }
+        return products;
+    }
+
+    private List<SyncCustomerDTO> loadCustomers(List<Long> ids, Long branchId, List<SyncTombstone> deleted) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Customer> found = customerRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        List<SyncCustomerDTO> customers = new ArrayList<>();
+        for (Long id : ids) {
+            Customer customer = found.get(id);
+            // A customer moved to another branch since the entry was logged leaves this one
+            if (customer == null || Boolean.TRUE.equals(customer.getIsDeleted())
+                    || !customer.getBranch().getId().equals(branchId)) {
+                deleted.add(new SyncTombstone(SyncEntityType.CUSTOMER, id));
+            } else {
+                customers.add(toCustomerDTO(customer));
+            }
+        }
+        return customers;
+    }
+
+    private List<SyncInventoryDTO> loadInventory(List<Long> productIds, Long branchId) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        return branchInventoryRepository.findStockLevels(branchId, productIds).stream()
+                .map(SyncService::toInventoryDTO)
+                .toList();
+    }
+
+    private static SyncProductDTO toProductDTO(Product product) {
+        return SyncProductDTO.builder()
+                .id(product.getId())
+                .sku(product.getSku())
+                .name(product.getName())
+                .barcode(product.getBarcode())
+                .categoryId(product.getCategory() != null ? product.getCategory().getId() : null)
+                .brand(product.getBrand())
+                .model(product.getModel())
+                .unit(product.getUnit())
+                .unitPrice(product.getUnitPrice())
+                .costPrice(product.getCostPrice())
+                .reorderLevel(product.getReorderLevel())
+                .isActive(product.getIsActive())
+                .build();
+    }
+
+    private static SyncCustomerDTO toCustomerDTO(Customer customer) {
+        return SyncCustomerDTO.builder()
+                .id(customer.getId())
+                .customerId(customer.getCustomerId())
+                .name(customer.getName())
+                .phone(customer.getPhone())
+                .email(customer.getEmail())
+                .customerType(customer.getCustomerType() != null ? customer.getCustomerType().name() : null)
+                .status(customer.getStatus() != null ? customer.getStatus().name() : null)
+                .creditLimit(customer.getCreditLimit())
+                .currentDebt(customer.getCurrentDebt())
+                .branchId(customer.getBranch().getId())
+                .build();
+    }
+
+    static SyncInventoryDTO toInventoryDTO(ProductStockLevelView level) {
+        return SyncInventoryDTO.builder()
+                .productId(level.getProductId())
+                .quantityOnHand(level.getQuantityOnHand())
+                .quantityReserved(level.getQuantityReserved())
+                .quantityAvailable(level.getQuantityAvailable())
+                .build();
+    }
+
+    /**
+     * Collects one snapshot chunk. The first value of each row is the id the next chunk starts after.
+     */
+    private static final class ChunkWriter {
+        private final SyncSnapshotSection section;
+        private final int pageSize;
+        private final List<String> columns;
+        private final Map<Integer, Map<String, Integer>> codes = new LinkedHashMap<>();
+        private final List<List<Object>> rows = new ArrayList<>();
+        private long next;
+        private boolean hasMore;
+
+        private ChunkWriter(SyncSnapshotSection section, long after, int pageSize, String... columns) {
+            this.section = section;
+            this.next = after;
+            this.pageSize = pageSize;
+            this.columns = List.of(columns);
+        }
+
+        private ChunkWriter dictionary(String... dictionaryColumns) {
+            for (String column : dictionaryColumns) {
+                codes.put(columns.indexOf(column), new LinkedHashMap<>());
+            }
+            return this;
+        }
+
+        /**
+         * The rows of a page fetched one row beyond the chunk size; the extra row only tells there are more.
+         */
+        private <T> List<T> limit(List<T> fetched) {
+            hasMore = fetched.size() > pageSize;
+            return hasMore ? fetched.subList(0, pageSize) : fetched;
+        }
+
+        private void add(Object... values) {
+            List<Object> row = new ArrayList<>(values.length);
+            for (int i = 0; i < values.length; i++) {
+                Map<String, Integer> dictionary = codes.get(i);
+                if (dictionary != null && values[i] != null) {
+                    row.add(dictionary.computeIfAbsent((String) values[i], value -> dictionary.size()));
+                } else {
+                    row.add(values[i]);
+                }
+            }
+            rows.add(row);
+            next = ((Number) values[0]).longValue();
+        }
+
+        private SyncSnapshotChunk build() {
+            Map<String, List<String>> dictionaries = new LinkedHashMap<>();
+            codes.forEach((index, dictionary) -> dictionaries.put(columns.get(index), List.copyOf(dictionary.keySet())));
+            return SyncSnapshotChunk.builder()
+                    .section(section)
+                    .columns(columns)
+                    .dictionaries(dictionaries)
+                    .rows(rows)
+                    .next(next)
+                    .hasMore(hasMore)
+                    .build();
+        }
+    }
+}
@@ -13,10 +13,10 @@ import com.ims.enums.TransferStatus;
 import com.ims.exception.BadRequestException;
 import com.ims.exception.ResourceNotFoundException;
 import com.ims.repository.*;
+import com.ims.security.CurrentUserContext;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,10 +33,13 @@ public class TransferService {
     private final BranchRepository branchRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final CurrentUserContext currentUserContext;
     private final BranchInventoryRepository branchInventoryRepository;
-    private final StockMovementRepository stockMovementRepository;
+    private final InventoryMutationService inventoryMutationService;
+    private final StockLedgerWriter stockLedgerWriter;
     private final NotificationService notificationService;
     private final AuditLogService auditLogService;
+    private final DocumentNumberService documentNumberService;
 
     @Transactional
     public StockTransferDTO createTransfer(TransferRequest request) {
@@ -50,11 +53,9 @@ public class TransferService {
             throw new BadRequestException("Source and destination branches cannot be the same");
         }
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User requestedBy = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
+        User requestedBy = currentUserContext.getUser();
 
-        String transferNumber = generateTransferNumber(sourceBranch, destinationBranch);
+        String transferNumber = documentNumberService.nextTransferNumber(sourceBranch, destinationBranch);
 
         StockTransfer transfer = StockTransfer.builder()
                 .transferNumber(transferNumber)
@@ -107,9 +108,7 @@ public class TransferService {
             throw new BadRequestException("Source and destination branches cannot be the same");
         }
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User requestedBy = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
+        User requestedBy = currentUserContext.getUser();
 
         // Phase 1: Validate all items have sufficient stock before making any changes
         List<Product> products = new ArrayList<>();
@@ -133,7 +132,7 @@ public class TransferService {
         }
 
         // Phase 2: Create and save the transfer record to get its ID
-        String transferNumber = generateTransferNumber(sourceBranch, destinationBranch);
+        String transferNumber = documentNumberService.nextTransferNumber(sourceBranch, destinationBranch);
         LocalDateTime now = LocalDateTime.now();
 
         StockTransfer transfer = StockTransfer.builder()
@@ -176,9 +175,10 @@ public class TransferService {
             sourceInventory.setQuantityOnHand(newSourceQty);
             sourceInventory.setQuantityAvailable(newSourceQty - sourceInventory.getQuantityReserved());
             branchInventoryRepository.save(sourceInventory);
+            inventoryMutationService.inventoryChanged(sourceInventory.getBranch().getId(), sourceInventory.getProduct().getId());
 
             // Create TRANSFER_OUT movement
-            stockMovementRepository.save(StockMovement.builder()
+            stockLedgerWriter.record(StockMovement.builder()
                     .product(product)
                     .branch(sourceBranch)
                     .movementType(StockMovementType.TRANSFER_OUT)
@@ -206,9 +206,10 @@ public class TransferService {
             destInventory.setQuantityOnHand(newDestQty);
             destInventory.setQuantityAvailable(newDestQty - destInventory.getQuantityReserved());
             branchInventoryRepository.save(destInventory);
+            inventoryMutationService.inventoryChanged(destInventory.getBranch().getId(), destInventory.getProduct().getId());
 
             // Create TRANSFER_IN movement
-            stockMovementRepository.save(StockMovement.builder()
+            stockLedgerWriter.record(StockMovement.builder()
                     .product(product)
                     .branch(destinationBranch)
                     .movementType(StockMovementType.TRANSFER_IN)
@@ -252,9 +253,7 @@ public class TransferService {
             throw new BadRequestException("Transfer is not in pending status");
         }
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User approvedBy = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
+        User approvedBy = currentUserContext.getUser();
 
         // Validate stock availability for ALL items first (before reserving any)
         List<BranchInventory> inventoriesToReserve = new ArrayList<>();
@@ -282,6 +281,7 @@ public class TransferService {
             inventory.setQuantityReserved(inventory.getQuantityReserved() + item.getQuantityRequested());
             inventory.setQuantityAvailable(inventory.getQuantityOnHand() - inventory.getQuantityReserved());
             branchInventoryRepository.save(inventory);
+            inventoryMutationService.inventoryChanged(inventory.getBranch().getId(), inventory.getProduct().getId());
         }
 
         transfer.setStatus(TransferStatus.APPROVED);
@@ -346,6 +346,7 @@ public class TransferService {
             inventory.setQuantityReserved(inventory.getQuantityReserved() - item.getQuantityRequested());
             inventory.setQuantityAvailable(newQuantity - inventory.getQuantityReserved());
             branchInventoryRepository.save(inventory);
+            inventoryMutationService.inventoryChanged(inventory.getBranch().getId(), inventory.getProduct().getId());
 
             item.setQuantityShipped(item.getQuantityRequested());
 
@@ -361,7 +362,7 @@ public class TransferService {
                     .referenceId(transfer.getId())
                     .notes("Stock transfer to " + transfer.getDestinationBranch().getName())
                     .build();
-            stockMovementRepository.save(movement);
+            stockLedgerWriter.record(movement);
         }
 
         transfer.setStatus(TransferStatus.SHIPPED);
@@ -415,6 +416,7 @@ public class TransferService {
             inventory.setQuantityOnHand(newQuantity);
             inventory.setQuantityAvailable(newQuantity - inventory.getQuantityReserved());
             branchInventoryRepository.save(inventory);
+            inventoryMutationService.inventoryChanged(inventory.getBranch().getId(), inventory.getProduct().getId());
 
             // Create stock movement
             StockMovement movement = StockMovement.builder()
@@ -428,7 +430,7 @@ public class TransferService {
                     .referenceId(transfer.getId())
                     .notes("Stock transfer from " + transfer.getSourceBranch().getName())
                     .build();
-            stockMovementRepository.save(movement);
+            stockLedgerWriter.record(movement);
         }
 
         transfer.setStatus(TransferStatus.RECEIVED);
@@ -500,13 +502,6 @@ public class TransferService {
                 .orElseThrow(() -> new ResourceNotFoundException("StockTransfer", "id", id));
     }
 
-    private String generateTransferNumber(Branch source, Branch destination) {
-        return String.format("TRF-%s-%s-%d",
-                source.getCode(),
-                destination.getCode(),
-                System.currentTimeMillis());
-    }
-
     // DTO Mapping methods
 
     private StockTransferDTO mapToDTO(StockTransfer transfer) {
@@ -7,6 +7,7 @@ import com.ims.exception.BadRequestException;
 import com.ims.exception.ResourceNotFoundException;
 import com.ims.repository.BranchRepository;
 import com.ims.repository.UserRepository;
+import com.ims.security.PrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -21,6 +22,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final BranchRepository branchRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
     @Transactional(readOnly = true)
     public Page<User> getAllUsers(Pageable pageable) {
@@ -92,6 +94,8 @@ public class UserService {
             user.setBranch(branch);
         }
 
+        // Role, branch, password or active changes take effect on the user's next request
+        principalCache.evictAfterCommit(user.getUsername());
         return userRepository.save(user);
     }
 
@@ -99,6 +103,7 @@ public class UserService {
     public void deleteUser(Long id) {
         User user = getUserById(id);
         user.setIsDeleted(true);
+        principalCache.evictAfterCommit(user.getUsername());
         userRepository.save(user);
     }
 }
@@ -1,8 +1,11 @@
 package com.ims.util;
 
+import com.ims.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -17,6 +20,9 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
 
+    public static final String ROLE_CLAIM = "role";
+    public static final String BRANCH_CLAIM = "branchId";
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -26,9 +32,25 @@ public class JwtUtil {
     @Value("${jwt.refresh-token-expiration}")
     private Long refreshTokenExpiration;
 
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+    }
+
     private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
+    }
+
+    /**
+     * Verify a token's signature and expiry and return its claims, parsing it once.
+     * Throws the JwtException subtype describing why the token was rejected.
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public String extractUsername(String token) {
@@ -45,20 +67,24 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parseClaims(token);
     }
 
     private Boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
 
-    public String generateAccessToken(UserDetails userDetails) {
+    /**
+     * An access token carrying the user's role and branch, so requests can be scoped
+     * without loading the user.
+     */
+    public String generateAccessToken(User user) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername(), accessTokenExpiration);
+        claims.put(ROLE_CLAIM, user.getRole().name());
+        if (user.getBranch() != null) {
+            claims.put(BRANCH_CLAIM, user.getBranch().getId());
+        }
+        return createToken(claims, user.getUsername(), accessTokenExpiration);
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
@@ -3,35 +3,28 @@ package com.ims.util;
 import com.ims.entity.Branch;
 import com.ims.entity.User;
 import com.ims.enums.Role;
-import com.ims.repository.UserRepository;
+import com.ims.security.CurrentUserContext;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import org.springframework.web.context.annotation.RequestScope;
 
+/**
+ * Branch scoping checks for the current user. Id, role and branch are read from
+ * {@link CurrentUserContext} without a query; only {@link #getCurrentUser} and
+ * {@link #getCurrentBranch} load the user, once per request.
+ */
 @Component
-@RequestScope
 @RequiredArgsConstructor
 public class SecurityUtils {
 
-    private final UserRepository userRepository;
-    private User currentUser;
+    private final CurrentUserContext currentUserContext;
 
     public User getCurrentUser() {
-        if (currentUser == null) {
-            String username = SecurityContextHolder.getContext()
-                    .getAuthentication().getName();
-            currentUser = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found: " + username));
-        }
-        return currentUser;
+        return currentUserContext.getUser();
     }
 
     public Long getCurrentBranchId() {
-        User user = getCurrentUser();
-        if (user.getBranch() == null) return null;
-        return user.getBranch().getId();
+        return currentUserContext.getBranchId();
     }
 
     public Branch getCurrentBranch() {
@@ -39,7 +32,7 @@ public class SecurityUtils {
     }
 
     public boolean isAdmin() {
-        return getCurrentUser().getRole() == Role.ADMIN;
+        return currentUserContext.getRole() == Role.ADMIN;
     }
 
     /**
@@ -0,0 +1,77 @@
+package com.ims.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A buffer of work collected during a transaction and handed over when it commits, one per
+ * owner and transaction. Bound as a transaction resource under the owner, and unbound while
+ * the transaction is suspended, so work done in a nested REQUIRES_NEW transaction lands in
+ * that transaction's own buffer and commits with it.
+ */
+public final class TransactionScopedBuffer {
+
+    private TransactionScopedBuffer() {
+    }
+
+    /**
+     * The owner's buffer for the current transaction, created on first use. onCommit gets it
+     * after the transaction commits; a rollback drops it.
+     */
+    public static <T> T get(Object owner, Supplier<T> factory, Consumer<T> onCommit) {
+        return get(owner, factory, null, onCommit);
+    }
+
+    /**
+     * As {@link #get(Object, Supplier, Consumer)}, with beforeCommit called inside the
+     * transaction, just before it commits. Either callback may be null.
+     */
+    public static <T> T get(Object owner, Supplier<T> factory, Consumer<T> beforeCommit, Consumer<T> onCommit) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("No transaction to buffer work for " + owner.getClass().getSimpleName());
+        }
+
+        @SuppressWarnings("unchecked")
+        T buffer = (T) TransactionSynchronizationManager.getResource(owner);
+        if (buffer != null) {
+            return buffer;
+        }
+
+        T created = factory.get();
+        TransactionSynchronizationManager.bindResource(owner, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(owner);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(owner, created);
+            }
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                if (beforeCommit != null) {
+                    beforeCommit.accept(created);
+                }
+            }
+
+            @Override
+            public void afterCommit() {
+                if (onCommit != null) {
+                    onCommit.accept(created);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(owner);
+            }
+        });
+        return created;
+    }
+}
@@ -0,0 +1,7 @@
+-- Sequences behind the pooled ids of the ledger and line-item tables. The increment matches
+-- the allocationSize of their @SequenceGenerator. Safe to run repeatedly; applied on PostgreSQL
+-- at startup by LedgerSequenceInitializer, before Hibernate validates the schema.
+CREATE SEQUENCE IF NOT EXISTS stock_movements_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS sale_items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS transfer_items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS audit_logs_seq START WITH 1 INCREMENT BY 50;
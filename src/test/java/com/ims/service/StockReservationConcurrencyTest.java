@@ -0,0 +1,243 @@
+package com.ims.service;
+
+import com.ims.dto.request.ReservationItemRequest;
+import com.ims.dto.request.ReservationRequest;
+import com.ims.dto.request.SaleItemRequest;
+import com.ims.dto.request.SaleRequest;
+import com.ims.entity.Branch;
+import com.ims.entity.BranchInventory;
+import com.ims.entity.Product;
+import com.ims.entity.StockReservation;
+import com.ims.enums.PaymentMethod;
+import com.ims.enums.ReservationStatus;
+import com.ims.exception.BadRequestException;
+import com.ims.repository.BranchInventoryRepository;
+import com.ims.repository.BranchRepository;
+import com.ims.repository.ProductRepository;
+import com.ims.repository.StockReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkout racing a refresh of the same cart, and racing the expiry sweeper. Every path
+ * changes a product's inventory row before its hold, in product order, so none of them may
+ * fail on a deadlock or lock timeout, and reserved stock must always match the active holds.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reservation-locks;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=3000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never",
+        "app.reservations.sweep-interval-ms=3600000",
+        "logging.file.name=",
+        "logging.level.com.ims=WARN",
+        "logging.level.org.hibernate=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework=WARN",
+        "logging.level.com.zaxxer.hikari=WARN"
+})
+class StockReservationConcurrencyTest {
+
+    private static final int ROUNDS = 15;
+    private static final int INITIAL_STOCK = 100_000;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ReservationExpiryProcessor reservationExpiryProcessor;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private BranchInventoryRepository branchInventoryRepository;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final AtomicInteger unitsSold = new AtomicInteger();
+
+    private Branch branch;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        branch = branchRepository.findByCode("BR01").orElseThrow();
+        products = List.of(
+                productRepository.findBySku("BRK-PAD-001").orElseThrow(),
+                productRepository.findBySku("ENG-FILT-001").orElseThrow());
+        for (Product product : products) {
+            BranchInventory inventory = branchInventoryRepository
+                    .findByBranchIdAndProductId(branch.getId(), product.getId())
+                    .orElseGet(() -> BranchInventory.builder()
+                            .branch(branch)
+                            .product(product)
+                            .version(0L)
+                            .build());
+            inventory.setQuantityOnHand(INITIAL_STOCK);
+            inventory.setQuantityReserved(0);
+            inventory.setQuantityAvailable(INITIAL_STOCK);
+            branchInventoryRepository.save(inventory);
+        }
+        stockReservationRepository.deleteAll();
+        unitsSold.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void checkoutAndRefreshOfTheSameCartDoNotDeadlock() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String cart = "refresh-" + round;
+            stockReservationService.reserve(reservation(cart, 2));
+
+            race(() -> checkout(cart, 2), () -> stockReservationService.reserve(reservation(cart, 3)));
+        }
+        assertStockMatchesHolds();
+    }
+
+    @Test
+    void checkoutAndExpirySweepDoNotDeadlock() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String buyer = "buyer-" + round;
+            String abandoned = "abandoned-" + round;
+            stockReservationService.reserve(reservation(buyer, 2));
+            // Holds created against product order, as the old id-ordered sweep would visit them
+            stockReservationService.reserve(new ReservationRequest(abandoned, branch.getId(),
+                    List.of(new ReservationItemRequest(products.get(1).getId(), 1)), null));
+            stockReservationService.reserve(reservation(abandoned, 1));
+            expire(abandoned);
+
+            LocalDateTime now = LocalDateTime.now();
+            race(() -> checkout(buyer, 2), () -> reservationExpiryProcessor.expireBatch(now, 50));
+        }
+        assertThat(stockReservationRepository.findAll())
+                .filteredOn(hold -> hold.getReservationKey().startsWith("abandoned-"))
+                .allMatch(hold -> hold.getStatus() == ReservationStatus.EXPIRED);
+        assertStockMatchesHolds();
+    }
+
+    private void checkout(String cart, int quantity) {
+        UserDetails seller = userDetailsService.loadUserByUsername("admin");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(seller, null, seller.getAuthorities()));
+        try {
+            List<SaleItemRequest> items = new ArrayList<>();
+            for (Product product : products) {
+                SaleItemRequest item = new SaleItemRequest();
+                item.setProductId(product.getId());
+                item.setQuantity(quantity);
+                item.setUnitPrice(product.getUnitPrice());
+                items.add(item);
+            }
+            SaleRequest request = new SaleRequest();
+            request.setBranchId(branch.getId());
+            request.setPaymentMethod(PaymentMethod.CASH);
+            request.setAmountPaid(new BigDecimal("100000"));
+            request.setItems(items);
+            request.setReservationKey(cart);
+            saleService.createSale(request);
+            unitsSold.addAndGet(quantity);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private ReservationRequest reservation(String cart, int quantity) {
+        return new ReservationRequest(cart, branch.getId(), products.stream()
+                .map(product -> new ReservationItemRequest(product.getId(), quantity))
+                .toList(), null);
+    }
+
+    private void expire(String cart) {
+        List<StockReservation> holds = stockReservationRepository
+                .findByKeyAndBranch(cart, branch.getId(), ReservationStatus.ACTIVE);
+        holds.forEach(hold -> hold.setExpiresAt(LocalDateTime.now().minusMinutes(1)));
+        stockReservationRepository.saveAll(holds);
+    }
+
+    /**
+     * Run both tasks at once. Losing a race for a hold is a business outcome; anything else,
+     * such as a deadlock or lock timeout, fails the test.
+     */
+    private void race(Runnable first, Runnable second) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(2);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (Runnable task : List.of(first, second)) {
+            tasks.add(executor.submit(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (BadRequestException e) {
+                    // Lost the race, or not enough stock left for the refresh
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get(30, TimeUnit.SECONDS);
+        }
+        assertThat(failures).isEmpty();
+    }
+
+    private void assertStockMatchesHolds() {
+        List<StockReservation> holds = stockReservationRepository.findAll();
+        for (Product product : products) {
+            BranchInventory inventory = branchInventoryRepository
+                    .findByBranchIdAndProductId(branch.getId(), product.getId())
+                    .orElseThrow();
+            int held = holds.stream()
+                    .filter(hold -> hold.getStatus() == ReservationStatus.ACTIVE)
+                    .filter(hold -> hold.getProduct().getId().equals(product.getId()))
+                    .mapToInt(StockReservation::getQuantity)
+                    .sum();
+
+            assertThat(inventory.getQuantityReserved()).isEqualTo(held);
+            assertThat(inventory.getQuantityOnHand()).isEqualTo(INITIAL_STOCK - unitsSold.get());
+            assertThat(inventory.getQuantityAvailable())
+                    .isEqualTo(inventory.getQuantityOnHand() - inventory.getQuantityReserved());
+        }
+    }
+}